@@ -0,0 +1,63 @@
+package com.priacc.hrsystem.config;
+
+import com.priacc.hrsystem.service.AttendancePartitionService;
+import com.priacc.hrsystem.service.AttendanceRollupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Installs the database objects Hibernate's schema generation does not
+ * cover, such as table partitioning, triggers and functions. Runs once the entity manager
+ * factory (and so the generated schema) is ready, before the application
+ * starts serving requests. Every script is idempotent.
+ */
+@Component
+public class DatabaseSchemaInitializer implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseSchemaInitializer.class);
+
+    private static final String STATEMENT_SEPARATOR = ";;";
+
+    private static final String[] SCRIPTS = {
+            "db/attendance-partitions.sql",
+            "db/attendance-unique-key.sql",
+            "db/attendance-rollups.sql",
+            "db/leave-overlap.sql",
+            "db/leave-ledger.sql"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    // Injected only so the schema is generated before the scripts run
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private AttendancePartitionService attendancePartitionService;
+
+    @Override
+    public void afterPropertiesSet() {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
+        populator.setSeparator(STATEMENT_SEPARATOR);
+        for (String script : SCRIPTS) {
+            populator.addScript(new ClassPathResource(script));
+        }
+        populator.execute(dataSource);
+        logger.info("Applied {} database scripts", SCRIPTS.length);
+
+        attendancePartitionService.ensurePartitions();
+        attendanceRollupService.rebuildIfEmpty();
+    }
+}
@@ -2,8 +2,12 @@ package com.priacc.hrsystem.config;
 
 import com.priacc.hrsystem.security.JwtAuthenticationEntryPoint;
 import com.priacc.hrsystem.security.JwtAuthenticationFilter;
+import com.priacc.hrsystem.security.LoginRateLimitFilter;
+import com.priacc.hrsystem.security.PooledPasswordEncoder;
 import com.priacc.hrsystem.service.UserDetailsServiceImpl;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,8 +17,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -35,14 +37,54 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationEntryPoint unauthorizedHandler;
 
+    // 0 means one hashing thread per available processor
+    @Value("${app.password.pool-size:0}")
+    private int passwordPoolSize;
+
+    @Value("${app.password.queue-capacity:64}")
+    private int passwordQueueCapacity;
+
+    @Value("${app.password.timeout-ms:5000}")
+    private long passwordTimeoutMs;
+
+    @Value("${app.password.retry-after-seconds:2}")
+    private long passwordRetryAfterSeconds;
+
+    // A positive value pins the BCrypt cost and skips calibration
+    @Value("${app.password.bcrypt-strength:0}")
+    private int bcryptStrength;
+
+    @Value("${app.password.target-hash-ms:250}")
+    private long passwordTargetHashMs;
+
+    @Value("${app.password.min-strength:10}")
+    private int bcryptMinStrength;
+
+    @Value("${app.password.max-strength:14}")
+    private int bcryptMaxStrength;
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
         return new JwtAuthenticationFilter();
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public LoginRateLimitFilter loginRateLimitFilter() {
+        return new LoginRateLimitFilter();
+    }
+
+    @Bean
+    public PooledPasswordEncoder passwordEncoder() {
+        return new PooledPasswordEncoder(
+                passwordPoolSize,
+                passwordQueueCapacity,
+                passwordTimeoutMs,
+                passwordRetryAfterSeconds,
+                bcryptStrength,
+                passwordTargetHashMs,
+                bcryptMinStrength,
+                bcryptMaxStrength
+        );
     }
 
     @Bean
@@ -50,6 +92,8 @@ public class SecurityConfig {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        // Rehashes the password on successful login when its stored cost differs
+        authProvider.setUserDetailsPasswordService(userDetailsService);
         return authProvider;
     }
 
@@ -80,12 +124,15 @@ public class SecurityConfig {
             .exceptionHandling(exception -> exception.authenticationEntryPoint(unauthorizedHandler))
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Async dispatches of streamed responses were authorized by the original request
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/auth/**", "/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
                 .requestMatchers("/actuator/**").permitAll()
                 .anyRequest().authenticated()
             );
 
         http.authenticationProvider(authenticationProvider());
+        http.addFilterBefore(loginRateLimitFilter(), UsernamePasswordAuthenticationFilter.class);
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
@@ -0,0 +1,46 @@
+package com.priacc.hrsystem.controller;
+
+import com.priacc.hrsystem.dto.AttendanceCubeRow;
+import com.priacc.hrsystem.model.Attendance;
+import com.priacc.hrsystem.service.AttendanceCube;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/analytics")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Analytics", description = "Aggregations over the in-memory attendance cube")
+public class AnalyticsController {
+
+    @Autowired
+    private AttendanceCube attendanceCube;
+
+    @GetMapping("/attendance")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Aggregate attendance", description = "Attendance days and work hours between two dates, grouped by any of DEPARTMENT, POSITION, STATUS and MONTH, optionally filtered by status, department and position (Admin, HR, and Managers only)")
+    public ResponseEntity<List<AttendanceCubeRow>> getAttendanceAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Set<AttendanceCube.Dimension> groupBy,
+            @RequestParam(required = false) Set<Attendance.AttendanceStatus> status,
+            @RequestParam(required = false) Long departmentId,
+            @RequestParam(required = false) Long positionId) {
+        Set<AttendanceCube.Dimension> dimensions = groupBy != null && !groupBy.isEmpty()
+                ? groupBy : EnumSet.noneOf(AttendanceCube.Dimension.class);
+        return ResponseEntity.ok(attendanceCube.query(startDate, endDate, dimensions, status, departmentId, positionId));
+    }
+}
@@ -1,8 +1,22 @@
 package com.priacc.hrsystem.controller;
 
+import com.priacc.hrsystem.dto.AttendanceArchiveDto;
+import com.priacc.hrsystem.dto.AttendanceCloseOutDto;
 import com.priacc.hrsystem.dto.AttendanceDto;
+import com.priacc.hrsystem.dto.AttendanceSummaryDto;
+import com.priacc.hrsystem.dto.CursorPage;
+import com.priacc.hrsystem.dto.DepartmentPresenceDto;
+import com.priacc.hrsystem.dto.PunchAck;
+import com.priacc.hrsystem.dto.PunchRequest;
 import com.priacc.hrsystem.model.Attendance;
+import com.priacc.hrsystem.model.AttendanceRollup;
+import com.priacc.hrsystem.service.AttendanceCloseOutService;
+import com.priacc.hrsystem.service.AttendancePartitionService;
+import com.priacc.hrsystem.service.AttendancePresenceService;
+import com.priacc.hrsystem.service.AttendanceRollupService;
 import com.priacc.hrsystem.service.AttendanceService;
+import com.priacc.hrsystem.service.PunchIngestionService;
+import com.priacc.hrsystem.service.StreamingExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,12 +25,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -30,6 +49,24 @@ public class AttendanceController {
     @Autowired
     private AttendanceService attendanceService;
 
+    @Autowired
+    private StreamingExportService streamingExportService;
+
+    @Autowired
+    private PunchIngestionService punchIngestionService;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
+
+    @Autowired
+    private AttendancePartitionService attendancePartitionService;
+
+    @Autowired
+    private AttendanceCloseOutService attendanceCloseOutService;
+
+    @Autowired
+    private AttendancePresenceService attendancePresenceService;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
     @Operation(summary = "Get all attendance records", description = "Retrieve all attendance records (Admin, HR, and Managers only)")
@@ -50,8 +87,25 @@ public class AttendanceController {
         return ResponseEntity.ok(attendanceDtos);
     }
 
+    @GetMapping("/paged/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get attendance records with cursor pagination", description = "Retrieve attendance records a page at a time using an opaque cursor (newest first). Pass the returned nextCursor to fetch the following page. count=none|approximate|exact controls whether a total is included (Admin, HR, and Managers only)")
+    public ResponseEntity<CursorPage<AttendanceDto>> getAttendancePage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "none") String count) {
+        return ResponseEntity.ok(attendanceService.getAttendancePage(cursor, size, CursorPage.CountMode.from(count)));
+    }
+
+    @GetMapping("/present")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get employees present now", description = "Retrieve today's attendance for everyone currently checked in, including those on a break (Admin, HR, and Managers only)")
+    public ResponseEntity<List<AttendanceDto>> getPresentAttendance() {
+        return ResponseEntity.ok(attendanceService.getPresentAttendance());
+    }
+
     @GetMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.ownsAttendance(#id)")
     @Operation(summary = "Get attendance by ID", description = "Retrieve an attendance record by ID (Admin, HR, Managers, or the employee themselves)")
     public ResponseEntity<AttendanceDto> getAttendanceById(@PathVariable Long id) {
         Attendance attendance = attendanceService.getAttendanceById(id);
@@ -59,7 +113,7 @@ public class AttendanceController {
     }
 
     @GetMapping("/employee/{employeeId}/date/{date}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#employeeId)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
     @Operation(summary = "Get attendance by employee and date", description = "Retrieve an attendance record for an employee on a specific date (Admin, HR, Managers, or the employee themselves)")
     public ResponseEntity<AttendanceDto> getAttendanceByEmployeeAndDate(
             @PathVariable Long employeeId,
@@ -69,7 +123,7 @@ public class AttendanceController {
     }
 
     @GetMapping("/employee/{employeeId}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#employeeId)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
     @Operation(summary = "Get attendance by employee", description = "Retrieve all attendance records for an employee (Admin, HR, Managers, or the employee themselves)")
     public ResponseEntity<List<AttendanceDto>> getAttendanceByEmployee(@PathVariable Long employeeId) {
         List<Attendance> attendances = attendanceService.getAttendanceByEmployee(employeeId);
@@ -80,7 +134,7 @@ public class AttendanceController {
     }
 
     @GetMapping("/employee/{employeeId}/date-range")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#employeeId)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
     @Operation(summary = "Get attendance by employee and date range", description = "Retrieve all attendance records for an employee within a date range (Admin, HR, Managers, or the employee themselves)")
     public ResponseEntity<List<AttendanceDto>> getAttendanceByEmployeeAndDateRange(
             @PathVariable Long employeeId,
@@ -106,6 +160,29 @@ public class AttendanceController {
         return ResponseEntity.ok(attendanceDtos);
     }
 
+    @GetMapping(value = "/date-range", produces = {StreamingExportService.NDJSON_VALUE, StreamingExportService.CSV_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Stream attendance records within a date range", description = "Stream attendance records within a date range as NDJSON or CSV, chosen by the Accept header, without buffering the result (Admin, HR, and Managers only)")
+    public ResponseEntity<StreamingResponseBody> streamAttendanceByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        StreamingExportService.ExportFormat format = StreamingExportService.ExportFormat.fromAcceptHeader(accept);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(streamingExportService.exportAttendanceByDateRange(startDate, endDate, format));
+    }
+
+    @GetMapping(value = "/date-range", params = "stream=true")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Stream attendance records within a date range (query flag)", description = "Same as the Accept-based stream, selected with ?stream=true; CSV when Accept is text/csv, NDJSON otherwise (Admin, HR, and Managers only)")
+    public ResponseEntity<StreamingResponseBody> streamAttendanceByDateRangeByFlag(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return streamAttendanceByDateRange(startDate, endDate, accept);
+    }
+
     @GetMapping("/department/{departmentId}/date/{date}")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
     @Operation(summary = "Get attendance by department and date", description = "Retrieve all attendance records for a department on a specific date (Admin, HR, and Managers only)")
@@ -134,7 +211,7 @@ public class AttendanceController {
     }
 
     @GetMapping("/count/employee/{employeeId}/status/{status}/date-range")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#employeeId)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
     @Operation(summary = "Count attendance by employee, status, and date range", description = "Count attendance records for an employee with a specific status within a date range (Admin, HR, Managers, or the employee themselves)")
     public ResponseEntity<Map<String, Long>> countAttendanceByEmployeeAndStatusAndDateRange(
             @PathVariable Long employeeId,
@@ -145,36 +222,144 @@ public class AttendanceController {
         return ResponseEntity.ok(Map.of("count", count));
     }
 
+    @GetMapping("/summary/employee/{employeeId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @Operation(summary = "Get attendance summary for an employee", description = "Counts by status and total work hours for an employee within a date range, served from the attendance rollups (Admin, HR, Managers, or the employee themselves)")
+    public ResponseEntity<AttendanceSummaryDto> getEmployeeAttendanceSummary(
+            @PathVariable Long employeeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(attendanceRollupService.getEmployeeSummary(employeeId, startDate, endDate));
+    }
+
+    @GetMapping("/summary/employee/{employeeId}/monthly")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @Operation(summary = "Get monthly attendance summaries for an employee", description = "One summary per month of the given year (Admin, HR, Managers, or the employee themselves)")
+    public ResponseEntity<List<AttendanceSummaryDto>> getEmployeeMonthlyAttendanceSummaries(
+            @PathVariable Long employeeId,
+            @RequestParam int year) {
+        return ResponseEntity.ok(attendanceRollupService.getMonthlySummaries(AttendanceRollup.Scope.EMPLOYEE, employeeId, year));
+    }
+
+    @GetMapping("/summary/department/{departmentId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get attendance summary for a department", description = "Counts by status and total work hours for a department within a date range, served from the attendance rollups (Admin, HR, and Managers only)")
+    public ResponseEntity<AttendanceSummaryDto> getDepartmentAttendanceSummary(
+            @PathVariable Long departmentId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(attendanceRollupService.getDepartmentSummary(departmentId, startDate, endDate));
+    }
+
+    @GetMapping("/summary/department/{departmentId}/monthly")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get monthly attendance summaries for a department", description = "One summary per month of the given year (Admin, HR, and Managers only)")
+    public ResponseEntity<List<AttendanceSummaryDto>> getDepartmentMonthlyAttendanceSummaries(
+            @PathVariable Long departmentId,
+            @RequestParam int year) {
+        return ResponseEntity.ok(attendanceRollupService.getMonthlySummaries(AttendanceRollup.Scope.DEPARTMENT, departmentId, year));
+    }
+
+    @PostMapping("/summary/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Rebuild attendance rollups", description = "Recompute all attendance rollups from the attendance records, e.g. after employees moved between departments (Admin only)")
+    public ResponseEntity<Void> rebuildAttendanceRollups() {
+        attendanceRollupService.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/presence")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get live presence counts", description = "Employees checked in, on a break and checked out today, per department (Admin, HR, and Managers only)")
+    public ResponseEntity<List<DepartmentPresenceDto>> getPresence() {
+        return ResponseEntity.ok(attendancePresenceService.getPresence());
+    }
+
+    @GetMapping(value = "/presence/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Stream live presence counts", description = "Server-sent events: a \"snapshot\" of today's presence counts per department, then a \"delta\" with the new counts of each department that changed. Optionally limited to one department (Admin, HR, and Managers only)")
+    public SseEmitter streamPresence(@RequestParam(required = false) Long departmentId) {
+        return attendancePresenceService.subscribe(departmentId);
+    }
+
+    @GetMapping("/close-outs")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "List attendance close-outs", description = "Progress of the nightly close-out for the most recent days (Admin and HR only)")
+    public ResponseEntity<List<AttendanceCloseOutDto>> getAttendanceCloseOuts() {
+        return ResponseEntity.ok(attendanceCloseOutService.getRecentCloseOuts());
+    }
+
+    @PostMapping("/close-outs")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Close out a day", description = "Close open check-outs and create ABSENT, WEEKEND, HOLIDAY or LEAVE records for a past day; resumes an interrupted run (Admin only)")
+    public ResponseEntity<AttendanceCloseOutDto> closeOutAttendance(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return ResponseEntity.ok(attendanceCloseOutService.closeOut(date));
+    }
+
+    @GetMapping("/archives")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "List attendance archives", description = "Months of attendance moved out of the database by the retention job (Admin only)")
+    public ResponseEntity<List<AttendanceArchiveDto>> getAttendanceArchives() {
+        return ResponseEntity.ok(attendancePartitionService.listArchives());
+    }
+
+    @PostMapping("/archives/run")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Archive old attendance", description = "Archive and drop every month older than the given month, default the configured retention age (Admin only)")
+    public ResponseEntity<List<YearMonth>> archiveAttendance(@RequestParam(required = false) YearMonth before) {
+        return ResponseEntity.ok(attendancePartitionService.archiveOlderThan(before != null ? before : attendancePartitionService.getRetentionCutoff()));
+    }
+
+    @PostMapping("/archives/{month}/restore")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Restore archived attendance", description = "Load an archived month (yyyy-MM) back into the attendance records (Admin only)")
+    public ResponseEntity<Void> restoreAttendanceArchive(@PathVariable YearMonth month) {
+        attendancePartitionService.restore(month);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/archives/{month}/release")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Release restored attendance", description = "Drop a restored month (yyyy-MM) again; its archive file is kept (Admin only)")
+    public ResponseEntity<Void> releaseAttendanceArchive(@PathVariable YearMonth month) {
+        attendancePartitionService.release(month);
+        return ResponseEntity.noContent().build();
+    }
+
     @PostMapping("/check-in")
     @PreAuthorize("isAuthenticated()")
     @Operation(summary = "Check in", description = "Record a check-in (All authenticated users)")
     public ResponseEntity<AttendanceDto> checkIn(@Valid @RequestBody AttendanceDto attendanceDto) {
-        Attendance attendance = attendanceService.checkIn(attendanceDto);
-        return new ResponseEntity<>(AttendanceDto.fromEntity(attendance), HttpStatus.CREATED);
+        return new ResponseEntity<>(attendanceService.checkIn(attendanceDto), HttpStatus.CREATED);
+    }
+
+    @PostMapping("/punches")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentEmployee(#punchRequest.employeeId)")
+    @Operation(summary = "Submit a punch", description = "Queue a check-in, check-out or break punch for asynchronous recording. The punch is journaled before the response and applied to attendance shortly after; the response carries its journal sequence number. Available when punch ingestion is enabled (Admin, HR, or the employee themselves)")
+    public ResponseEntity<PunchAck> submitPunch(@Valid @RequestBody PunchRequest punchRequest) {
+        return new ResponseEntity<>(punchIngestionService.submit(punchRequest), HttpStatus.ACCEPTED);
     }
 
     @PutMapping("/{id}/check-out")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentUser(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.ownsAttendance(#id)")
     @Operation(summary = "Check out", description = "Record a check-out (Admin, HR, or the employee themselves)")
     public ResponseEntity<AttendanceDto> checkOut(@PathVariable Long id, @Valid @RequestBody AttendanceDto attendanceDto) {
-        Attendance attendance = attendanceService.checkOut(id, attendanceDto);
-        return ResponseEntity.ok(AttendanceDto.fromEntity(attendance));
+        return ResponseEntity.ok(attendanceService.checkOut(id, attendanceDto));
     }
 
     @PutMapping("/{id}/start-break")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentUser(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentEmployee(#id)")
     @Operation(summary = "Start break", description = "Record the start of a break (Admin, HR, or the employee themselves)")
     public ResponseEntity<AttendanceDto> startBreak(@PathVariable Long id) {
-        Attendance attendance = attendanceService.startBreak(id);
-        return ResponseEntity.ok(AttendanceDto.fromEntity(attendance));
+        return ResponseEntity.ok(attendanceService.startBreak(id));
     }
 
     @PutMapping("/{id}/end-break")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentUser(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentEmployee(#id)")
     @Operation(summary = "End break", description = "Record the end of a break (Admin, HR, or the employee themselves)")
     public ResponseEntity<AttendanceDto> endBreak(@PathVariable Long id) {
-        Attendance attendance = attendanceService.endBreak(id);
-        return ResponseEntity.ok(AttendanceDto.fromEntity(attendance));
+        return ResponseEntity.ok(attendanceService.endBreak(id));
     }
 
     @PutMapping("/{id}")
@@ -1,24 +1,36 @@
 package com.priacc.hrsystem.controller;
 
+import com.priacc.hrsystem.dto.CursorPage;
 import com.priacc.hrsystem.dto.EmployeeDto;
+import com.priacc.hrsystem.dto.EmployeeImportResult;
+import com.priacc.hrsystem.dto.EmployeeSearchResult;
 import com.priacc.hrsystem.model.Employee;
+import com.priacc.hrsystem.service.EmployeeImportService;
 import com.priacc.hrsystem.service.EmployeeService;
+import com.priacc.hrsystem.service.StreamingExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/employees")
@@ -29,15 +41,36 @@ public class EmployeeController {
     @Autowired
     private EmployeeService employeeService;
 
+    @Autowired
+    private StreamingExportService streamingExportService;
+
+    @Autowired
+    private EmployeeImportService employeeImportService;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
     @Operation(summary = "Get all employees", description = "Retrieve all employees (Admin, HR, and Managers only)")
     public ResponseEntity<List<EmployeeDto>> getAllEmployees() {
-        List<Employee> employees = employeeService.getAllEmployees();
-        List<EmployeeDto> employeeDtos = employees.stream()
-                .map(EmployeeDto::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(employeeDtos);
+        return ResponseEntity.ok(employeeService.getAllEmployees());
+    }
+
+    @GetMapping(produces = {StreamingExportService.NDJSON_VALUE, StreamingExportService.CSV_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Stream all employees", description = "Stream all employees as NDJSON or CSV, chosen by the Accept header, without buffering the result (Admin, HR, and Managers only)")
+    public ResponseEntity<StreamingResponseBody> streamAllEmployees(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        StreamingExportService.ExportFormat format = StreamingExportService.ExportFormat.fromAcceptHeader(accept);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(streamingExportService.exportEmployees(format));
+    }
+
+    @GetMapping(params = "stream=true")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Stream all employees (query flag)", description = "Same as the Accept-based stream, selected with ?stream=true; CSV when Accept is text/csv, NDJSON otherwise (Admin, HR, and Managers only)")
+    public ResponseEntity<StreamingResponseBody> streamAllEmployeesByFlag(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return streamAllEmployees(accept);
     }
 
     @GetMapping("/paged")
@@ -49,8 +82,18 @@ public class EmployeeController {
         return ResponseEntity.ok(employeeDtos);
     }
 
+    @GetMapping("/paged/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get employees with cursor pagination", description = "Retrieve employees a page at a time using an opaque cursor (ordered by last name). Pass the returned nextCursor to fetch the following page. count=none|approximate|exact controls whether a total is included (Admin, HR, and Managers only)")
+    public ResponseEntity<CursorPage<EmployeeDto>> getEmployeesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "none") String count) {
+        return ResponseEntity.ok(employeeService.getEmployeesPage(cursor, size, CursorPage.CountMode.from(count)));
+    }
+
     @GetMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#id) or @userSecurity.isManager(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#id) or @userSecurity.isManager(#id)")
     @Operation(summary = "Get employee by ID", description = "Retrieve an employee by ID (Admin, HR, Managers, the employee themselves, or their manager)")
     public ResponseEntity<EmployeeDto> getEmployeeById(@PathVariable Long id) {
         Employee employee = employeeService.getEmployeeById(id);
@@ -69,22 +112,23 @@ public class EmployeeController {
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
     @Operation(summary = "Get employees by department", description = "Retrieve all employees in a department (Admin, HR, and Managers only)")
     public ResponseEntity<List<EmployeeDto>> getEmployeesByDepartment(@PathVariable Long departmentId) {
-        List<Employee> employees = employeeService.getEmployeesByDepartment(departmentId);
-        List<EmployeeDto> employeeDtos = employees.stream()
-                .map(EmployeeDto::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(employeeDtos);
+        return ResponseEntity.ok(employeeService.getEmployeesByDepartment(departmentId));
     }
 
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
-    @Operation(summary = "Search employees", description = "Search employees by keyword (Admin, HR, and Managers only)")
+    @Operation(summary = "Search employees", description = "Search employees by name, employee code or email. Matching tolerates typos, results are ranked best first and capped at app.search.max-results (Admin, HR, and Managers only)")
     public ResponseEntity<List<EmployeeDto>> searchEmployees(@RequestParam String keyword) {
-        List<Employee> employees = employeeService.searchEmployees(keyword);
-        List<EmployeeDto> employeeDtos = employees.stream()
-                .map(EmployeeDto::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(employeeDtos);
+        return ResponseEntity.ok(employeeService.searchEmployees(keyword));
+    }
+
+    @GetMapping("/typeahead")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Employee typeahead", description = "Top matches by name, employee code or email for search-as-you-type (Admin, HR, and Managers only)")
+    public ResponseEntity<List<EmployeeSearchResult>> typeahead(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(employeeService.typeahead(q, limit));
     }
 
     @GetMapping("/join-date")
@@ -93,22 +137,14 @@ public class EmployeeController {
     public ResponseEntity<List<EmployeeDto>> getEmployeesByJoinDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
-        List<Employee> employees = employeeService.getEmployeesByJoinDateRange(startDate, endDate);
-        List<EmployeeDto> employeeDtos = employees.stream()
-                .map(EmployeeDto::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(employeeDtos);
+        return ResponseEntity.ok(employeeService.getEmployeesByJoinDateRange(startDate, endDate));
     }
 
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
     @Operation(summary = "Get employees by status", description = "Retrieve employees by status (Admin and HR only)")
     public ResponseEntity<List<EmployeeDto>> getEmployeesByStatus(@PathVariable String status) {
-        List<Employee> employees = employeeService.getEmployeesByStatus(status);
-        List<EmployeeDto> employeeDtos = employees.stream()
-                .map(EmployeeDto::fromEntity)
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(employeeDtos);
+        return ResponseEntity.ok(employeeService.getEmployeesByStatus(status));
     }
 
     @PostMapping
@@ -119,6 +155,22 @@ public class EmployeeController {
         return new ResponseEntity<>(EmployeeDto.fromEntity(employee), HttpStatus.CREATED);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Bulk import employees", description = "Import a JSON array of employees in one batch; invalid rows are reported and skipped (Admin and HR only)")
+    public ResponseEntity<EmployeeImportResult> importEmployees(@RequestBody List<EmployeeDto> employeeDtos) {
+        return ResponseEntity.ok(employeeImportService.importEmployees(employeeDtos));
+    }
+
+    @PostMapping(value = "/import", consumes = StreamingExportService.CSV_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Bulk import employees from CSV", description = "Import employees from a CSV body with a header row; invalid rows are reported and skipped (Admin and HR only)")
+    public ResponseEntity<EmployeeImportResult> importEmployeesCsv(HttpServletRequest request) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            return ResponseEntity.ok(employeeImportService.importCsv(reader));
+        }
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
     @Operation(summary = "Update an employee", description = "Update an employee (Admin and HR only)")
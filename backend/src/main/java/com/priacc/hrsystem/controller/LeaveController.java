@@ -1,8 +1,18 @@
 package com.priacc.hrsystem.controller;
 
+import com.priacc.hrsystem.dto.CursorPage;
+import com.priacc.hrsystem.dto.LeaveAdjustmentRequest;
+import com.priacc.hrsystem.dto.LeaveCalendarDto;
+import com.priacc.hrsystem.dto.LeaveDecisionRequest;
+import com.priacc.hrsystem.dto.LeaveDecisionResult;
 import com.priacc.hrsystem.dto.LeaveDto;
 import com.priacc.hrsystem.model.Leave;
+import com.priacc.hrsystem.model.LeaveBalance;
+import com.priacc.hrsystem.model.LeaveLedgerEntry;
+import com.priacc.hrsystem.service.LeaveBalanceService;
+import com.priacc.hrsystem.service.LeaveCalendarService;
 import com.priacc.hrsystem.service.LeaveService;
+import com.priacc.hrsystem.service.StreamingExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -11,13 +21,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -29,6 +43,15 @@ public class LeaveController {
     @Autowired
     private LeaveService leaveService;
 
+    @Autowired
+    private LeaveBalanceService leaveBalanceService;
+
+    @Autowired
+    private LeaveCalendarService leaveCalendarService;
+
+    @Autowired
+    private StreamingExportService streamingExportService;
+
     @GetMapping
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
     @Operation(summary = "Get all leaves", description = "Retrieve all leaves (Admin, HR, and Managers only)")
@@ -49,8 +72,18 @@ public class LeaveController {
         return ResponseEntity.ok(leaveDtos);
     }
 
+    @GetMapping("/paged/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get leaves with cursor pagination", description = "Retrieve leaves a page at a time using an opaque cursor (latest start date first). Pass the returned nextCursor to fetch the following page. count=none|approximate|exact controls whether a total is included (Admin, HR, and Managers only)")
+    public ResponseEntity<CursorPage<LeaveDto>> getLeavesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "none") String count) {
+        return ResponseEntity.ok(leaveService.getLeavesPage(cursor, size, CursorPage.CountMode.from(count)));
+    }
+
     @GetMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#id) or @userSecurity.isManager(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.ownsLeave(#id) or @userSecurity.managesLeave(#id)")
     @Operation(summary = "Get leave by ID", description = "Retrieve a leave by ID (Admin, HR, Managers, the employee themselves, or their manager)")
     public ResponseEntity<LeaveDto> getLeaveById(@PathVariable Long id) {
         Leave leave = leaveService.getLeaveById(id);
@@ -58,7 +91,7 @@ public class LeaveController {
     }
 
     @GetMapping("/employee/{employeeId}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentUser(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
     @Operation(summary = "Get leaves by employee", description = "Retrieve all leaves for an employee (Admin, HR, Managers, the employee themselves, or their manager)")
     public ResponseEntity<List<LeaveDto>> getLeavesByEmployee(@PathVariable Long employeeId) {
         List<Leave> leaves = leaveService.getLeavesByEmployee(employeeId);
@@ -68,6 +101,69 @@ public class LeaveController {
         return ResponseEntity.ok(leaveDtos);
     }
 
+    @GetMapping("/conflicts")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @Operation(summary = "Find conflicting leaves", description = "Ids of the employee's pending or approved leaves that overlap a date range, optionally ignoring one leave being edited (Admin, HR, Managers, the employee themselves, or their manager)")
+    public ResponseEntity<List<Long>> getConflictingLeaves(
+            @RequestParam Long employeeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long excludeLeaveId) {
+        return ResponseEntity.ok(leaveService.getConflictingLeaveIds(employeeId, startDate, endDate, excludeLeaveId));
+    }
+
+    @GetMapping("/calendar")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Get team leave calendar", description = "Employees of a department on approved leave and the number off, for each day of a month (yyyy-MM) (Admin, HR, and Managers only)")
+    public ResponseEntity<LeaveCalendarDto> getLeaveCalendar(
+            @RequestParam Long departmentId,
+            @RequestParam YearMonth month) {
+        return ResponseEntity.ok(leaveCalendarService.getCalendar(departmentId, month));
+    }
+
+    @GetMapping("/balances/employee/{employeeId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @Operation(summary = "Get leave balances by employee", description = "Accrued, used, adjusted and remaining days per leave type for a year, the current year by default (Admin, HR, Managers, the employee themselves, or their manager)")
+    public ResponseEntity<List<LeaveBalance>> getLeaveBalances(
+            @PathVariable Long employeeId,
+            @RequestParam(required = false) Integer year) {
+        return ResponseEntity.ok(leaveBalanceService.getBalances(employeeId, yearOrCurrent(year)));
+    }
+
+    @GetMapping("/balances/employee/{employeeId}/ledger")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @Operation(summary = "Get leave ledger by employee", description = "Accruals, consumptions, reversals and adjustments behind the employee's balances for a year, oldest first (Admin, HR, Managers, the employee themselves, or their manager)")
+    public ResponseEntity<List<LeaveLedgerEntry>> getLeaveLedger(
+            @PathVariable Long employeeId,
+            @RequestParam(required = false) Integer year) {
+        return ResponseEntity.ok(leaveBalanceService.getLedger(employeeId, yearOrCurrent(year)));
+    }
+
+    @GetMapping("/balances/employee/{employeeId}/{leaveType}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @Operation(summary = "Get leave balance by employee and type", description = "Balance of one leave type for a year, the current year by default (Admin, HR, Managers, the employee themselves, or their manager)")
+    public ResponseEntity<LeaveBalance> getLeaveBalance(
+            @PathVariable Long employeeId,
+            @PathVariable Leave.LeaveType leaveType,
+            @RequestParam(required = false) Integer year) {
+        return ResponseEntity.ok(leaveBalanceService.getBalance(employeeId, leaveType, yearOrCurrent(year)));
+    }
+
+    @PostMapping("/balances/adjustments")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Adjust a leave balance", description = "Grant or remove days on an employee's balance with a ledger entry (Admin and HR only)")
+    public ResponseEntity<LeaveBalance> adjustLeaveBalance(@Valid @RequestBody LeaveAdjustmentRequest request) {
+        return ResponseEntity.ok(leaveBalanceService.adjust(request));
+    }
+
+    @PostMapping("/balances/accruals")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Run leave accrual", description = "Grant the year's entitlements to active employees that do not have them yet; safe to repeat (Admin only)")
+    public ResponseEntity<Map<String, Integer>> accrueLeave(@RequestParam(required = false) Integer year) {
+        int accrued = leaveBalanceService.accrue(yearOrCurrent(year));
+        return ResponseEntity.ok(Map.of("accrued", accrued));
+    }
+
     @GetMapping("/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
     @Operation(summary = "Get leaves by status", description = "Retrieve all leaves with a specific status (Admin, HR, and Managers only)")
@@ -92,6 +188,29 @@ public class LeaveController {
         return ResponseEntity.ok(leaveDtos);
     }
 
+    @GetMapping(value = "/date-range", produces = {StreamingExportService.NDJSON_VALUE, StreamingExportService.CSV_VALUE})
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Stream leaves within a date range", description = "Stream leaves within a date range as NDJSON or CSV, chosen by the Accept header, without buffering the result (Admin, HR, and Managers only)")
+    public ResponseEntity<StreamingResponseBody> streamLeavesByDateRange(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        StreamingExportService.ExportFormat format = StreamingExportService.ExportFormat.fromAcceptHeader(accept);
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .body(streamingExportService.exportLeavesByDateRange(startDate, endDate, format));
+    }
+
+    @GetMapping(value = "/date-range", params = "stream=true")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Stream leaves within a date range (query flag)", description = "Same as the Accept-based stream, selected with ?stream=true; CSV when Accept is text/csv, NDJSON otherwise (Admin, HR, and Managers only)")
+    public ResponseEntity<StreamingResponseBody> streamLeavesByDateRangeByFlag(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        return streamLeavesByDateRange(startDate, endDate, accept);
+    }
+
     @GetMapping("/department/{departmentId}/status/{status}")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
     @Operation(summary = "Get leaves by department and status", description = "Retrieve all leaves for a department with a specific status (Admin, HR, and Managers only)")
@@ -114,7 +233,7 @@ public class LeaveController {
     }
 
     @PutMapping("/{id}")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentUser(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.ownsLeave(#id)")
     @Operation(summary = "Update a leave request", description = "Update a leave request (Admin, HR, or the employee themselves)")
     public ResponseEntity<LeaveDto> updateLeave(@PathVariable Long id, @Valid @RequestBody LeaveDto leaveDto) {
         Leave leave = leaveService.updateLeave(id, leaveDto);
@@ -143,8 +262,15 @@ public class LeaveController {
         return ResponseEntity.ok(LeaveDto.fromEntity(leave));
     }
 
+    @PostMapping("/decisions")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER')")
+    @Operation(summary = "Approve or reject leave requests in bulk", description = "Apply one decision to many pending leave requests in a single transaction. Returns an outcome per id; ids that are missing, not pending or not covered by the balance are skipped (Admin, HR, and Managers only)")
+    public ResponseEntity<LeaveDecisionResult> decideLeaves(@Valid @RequestBody LeaveDecisionRequest request) {
+        return ResponseEntity.ok(leaveService.decideLeaves(request));
+    }
+
     @PutMapping("/{id}/cancel")
-    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentUser(#id)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.ownsLeave(#id)")
     @Operation(summary = "Cancel a leave request", description = "Cancel a leave request (Admin, HR, or the employee themselves)")
     public ResponseEntity<LeaveDto> cancelLeave(@PathVariable Long id) {
         Leave leave = leaveService.cancelLeave(id);
@@ -158,4 +284,8 @@ public class LeaveController {
         leaveService.deleteLeave(id);
         return ResponseEntity.noContent().build();
     }
-}
\ No newline at end of file
+
+    private static int yearOrCurrent(Integer year) {
+        return year != null ? year : LocalDate.now().getYear();
+    }
+}
@@ -0,0 +1,97 @@
+package com.priacc.hrsystem.controller;
+
+import com.priacc.hrsystem.security.JwtTokenProvider;
+import com.priacc.hrsystem.security.LoginRateLimiter;
+import com.priacc.hrsystem.security.PooledPasswordEncoder;
+import com.priacc.hrsystem.service.AttendanceCube;
+import com.priacc.hrsystem.service.IdentityCache;
+import com.priacc.hrsystem.service.LeaveCalendarService;
+import com.priacc.hrsystem.service.PunchIngestionService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Metrics", description = "Runtime metrics for in-process caches and pools")
+public class MetricsController {
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private PooledPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private PunchIngestionService punchIngestionService;
+
+    @Autowired
+    private AttendanceCube attendanceCube;
+
+    @Autowired
+    private LeaveCalendarService leaveCalendarService;
+
+    @GetMapping("/jwt-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "JWT claims cache metrics", description = "Hit, miss and eviction counters for the verified-claims cache (Admin only)")
+    public ResponseEntity<Map<String, Long>> getJwtCacheMetrics() {
+        return ResponseEntity.ok(tokenProvider.getClaimsCacheStats());
+    }
+
+    @GetMapping("/identity-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Identity cache metrics", description = "Hit, miss and eviction counters for the email, user and employee identity caches (Admin only)")
+    public ResponseEntity<Map<String, Map<String, Long>>> getIdentityCacheMetrics() {
+        return ResponseEntity.ok(identityCache.getStats());
+    }
+
+    @GetMapping("/password-hashing")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Password hashing pool metrics", description = "Queue depth, rejections and hash latency of the password hashing pool (Admin only)")
+    public ResponseEntity<Map<String, Number>> getPasswordHashingMetrics() {
+        return ResponseEntity.ok(passwordEncoder.getStats());
+    }
+
+    @GetMapping("/login-rate-limit")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Login rate limiter metrics", description = "Tracked keys and allowed/rejected counts for the per-IP and per-email login limits (Admin only)")
+    public ResponseEntity<Map<String, Map<String, Long>>> getLoginRateLimitMetrics() {
+        return ResponseEntity.ok(loginRateLimiter.getStats());
+    }
+
+    @GetMapping("/punch-ingestion")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Punch ingestion metrics", description = "Queue depth, batch sizes and journal sequence numbers of the asynchronous punch writer (Admin only)")
+    public ResponseEntity<Map<String, Number>> getPunchIngestionMetrics() {
+        return ResponseEntity.ok(punchIngestionService.getStats());
+    }
+
+    @GetMapping("/attendance-cube")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Attendance cube metrics", description = "Employees, covered date range and approximate memory of the in-memory attendance cube (Admin only)")
+    public ResponseEntity<Map<String, Object>> getAttendanceCubeMetrics() {
+        return ResponseEntity.ok(attendanceCube.getStats());
+    }
+
+    @GetMapping("/leave-calendar-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Leave calendar cache metrics", description = "Hit, miss and eviction counters for the per-department month calendars (Admin only)")
+    public ResponseEntity<Map<String, Long>> getLeaveCalendarCacheMetrics() {
+        return ResponseEntity.ok(leaveCalendarService.getStats());
+    }
+}
@@ -1,5 +1,6 @@
 package com.priacc.hrsystem.controller;
 
+import com.priacc.hrsystem.dto.CursorPage;
 import com.priacc.hrsystem.dto.UserDto;
 import com.priacc.hrsystem.model.User;
 import com.priacc.hrsystem.service.UserService;
@@ -47,6 +48,16 @@ public class UserController {
         return ResponseEntity.ok(userDtos);
     }
 
+    @GetMapping("/paged/cursor")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Get users with cursor pagination", description = "Retrieve users a page at a time using an opaque cursor (ordered by email). Pass the returned nextCursor to fetch the following page. count=none|approximate|exact controls whether a total is included (Admin and HR only)")
+    public ResponseEntity<CursorPage<UserDto>> getUsersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "none") String count) {
+        return ResponseEntity.ok(userService.getUsersPage(cursor, size, CursorPage.CountMode.from(count)));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN') or @userSecurity.isCurrentUser(#id)")
     @Operation(summary = "Get user by ID", description = "Retrieve a user by ID (Admin, HR, or the user themselves)")
@@ -0,0 +1,103 @@
+package com.priacc.hrsystem.controller;
+
+import com.priacc.hrsystem.dto.HolidayDto;
+import com.priacc.hrsystem.dto.WorkCalendarDto;
+import com.priacc.hrsystem.service.WorkCalendarService;
+import com.priacc.hrsystem.service.WorkingCalendar;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/work-calendars")
+@SecurityRequirement(name = "bearerAuth")
+@Tag(name = "Work Calendars", description = "Weekend rules, holidays and working-day counts")
+public class WorkCalendarController {
+
+    @Autowired
+    private WorkCalendarService workCalendarService;
+
+    @Autowired
+    private WorkingCalendar workingCalendar;
+
+    @GetMapping
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Get all work calendars", description = "Retrieve all work calendars (All authenticated users)")
+    public ResponseEntity<List<WorkCalendarDto>> getAllCalendars() {
+        return ResponseEntity.ok(workCalendarService.getAllCalendars());
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Get work calendar by ID", description = "Retrieve a work calendar by ID (All authenticated users)")
+    public ResponseEntity<WorkCalendarDto> getCalendarById(@PathVariable Long id) {
+        return ResponseEntity.ok(workCalendarService.getCalendarDto(id));
+    }
+
+    @PostMapping
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Create a work calendar", description = "Create a work calendar with its weekend days (Admin and HR only)")
+    public ResponseEntity<WorkCalendarDto> createCalendar(@Valid @RequestBody WorkCalendarDto calendarDto) {
+        return new ResponseEntity<>(workCalendarService.createCalendar(calendarDto), HttpStatus.CREATED);
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Update a work calendar", description = "Update a work calendar's name, description and weekend days (Admin and HR only)")
+    public ResponseEntity<WorkCalendarDto> updateCalendar(@PathVariable Long id, @Valid @RequestBody WorkCalendarDto calendarDto) {
+        return ResponseEntity.ok(workCalendarService.updateCalendar(id, calendarDto));
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Delete a work calendar", description = "Delete a work calendar not assigned to any department (Admin only)")
+    public ResponseEntity<Void> deleteCalendar(@PathVariable Long id) {
+        workCalendarService.deleteCalendar(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/{id}/holidays")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "Get holidays", description = "Retrieve a work calendar's holidays, optionally for one year (All authenticated users)")
+    public ResponseEntity<List<HolidayDto>> getHolidays(@PathVariable Long id, @RequestParam(required = false) Integer year) {
+        return ResponseEntity.ok(workCalendarService.getHolidays(id, year));
+    }
+
+    @PostMapping("/{id}/holidays")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Add a holiday", description = "Add a holiday to a work calendar (Admin and HR only)")
+    public ResponseEntity<HolidayDto> addHoliday(@PathVariable Long id, @Valid @RequestBody HolidayDto holidayDto) {
+        return new ResponseEntity<>(workCalendarService.addHoliday(id, holidayDto), HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{id}/holidays/{holidayId}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN')")
+    @Operation(summary = "Delete a holiday", description = "Remove a holiday from a work calendar (Admin and HR only)")
+    public ResponseEntity<Void> deleteHoliday(@PathVariable Long id, @PathVariable Long holidayId) {
+        workCalendarService.deleteHoliday(id, holidayId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/working-days")
+    @PreAuthorize("hasAnyRole('ADMIN', 'HR_ADMIN', 'MANAGER') or @userSecurity.isCurrentEmployee(#employeeId) or @userSecurity.isManager(#employeeId)")
+    @Operation(summary = "Count an employee's working days", description = "Working days between two dates, both inclusive, on the calendar of the employee's department (Admin, HR, Managers, the employee themselves, or their manager)")
+    public ResponseEntity<Map<String, Long>> countWorkingDays(
+            @RequestParam Long employeeId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(Map.of(
+                "calendarId", workingCalendar.getCalendarIdForEmployee(employeeId),
+                "workingDays", workingCalendar.countWorkingDaysForEmployee(employeeId, startDate, endDate)));
+    }
+}
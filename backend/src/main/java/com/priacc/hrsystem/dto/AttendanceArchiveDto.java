@@ -0,0 +1,25 @@
+package com.priacc.hrsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A month of attendance that was moved out of the database into an archive
+ * file.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceArchiveDto {
+
+    // yyyy-MM
+    private String month;
+
+    private String fileName;
+
+    private long sizeBytes;
+
+    // Whether the month is currently loaded back into the attendances table
+    private boolean restored;
+}
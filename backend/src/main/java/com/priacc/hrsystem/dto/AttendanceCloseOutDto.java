@@ -0,0 +1,34 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.AttendanceCloseOut;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceCloseOutDto {
+
+    private LocalDate date;
+
+    private boolean completed;
+
+    private Long lastEmployeeId;
+
+    private long insertedCount;
+
+    private long closedCount;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+
+    public static AttendanceCloseOutDto fromEntity(AttendanceCloseOut closeOut) {
+        return new AttendanceCloseOutDto(closeOut.getDate(), closeOut.isCompleted(), closeOut.getLastEmployeeId(),
+                closeOut.getInsertedCount(), closeOut.getClosedCount(), closeOut.getStartedAt(), closeOut.getCompletedAt());
+    }
+}
@@ -0,0 +1,29 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.Attendance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One group of an attendance analytics query. Dimensions that were not
+ * grouped by are null.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceCubeRow {
+
+    private Long departmentId;
+
+    private Long positionId;
+
+    private Attendance.AttendanceStatus status;
+
+    // yyyy-MM
+    private String month;
+
+    private long days;
+
+    private double workHours;
+}
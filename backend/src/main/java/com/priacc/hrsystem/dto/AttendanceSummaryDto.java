@@ -0,0 +1,92 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.Attendance;
+import com.priacc.hrsystem.model.AttendanceRollup;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AttendanceSummaryDto {
+
+    private AttendanceRollup.Scope scope;
+
+    private Long scopeId;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    // Working days in the range on the employee's or department's work calendar
+    private long workingDays;
+
+    private long recordCount;
+
+    private long presentCount;
+
+    private long absentCount;
+
+    private long halfDayCount;
+
+    private long lateCount;
+
+    private long leaveCount;
+
+    private long holidayCount;
+
+    private long weekendCount;
+
+    private double totalWorkHours;
+
+    public AttendanceSummaryDto(AttendanceRollup.Scope scope, Long scopeId, LocalDate startDate, LocalDate endDate) {
+        this.scope = scope;
+        this.scopeId = scopeId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public void add(AttendanceRollup rollup) {
+        recordCount += rollup.getRecordCount();
+        presentCount += rollup.getPresentCount();
+        absentCount += rollup.getAbsentCount();
+        halfDayCount += rollup.getHalfDayCount();
+        lateCount += rollup.getLateCount();
+        leaveCount += rollup.getLeaveCount();
+        holidayCount += rollup.getHolidayCount();
+        weekendCount += rollup.getWeekendCount();
+        totalWorkHours += rollup.getTotalWorkHours();
+    }
+
+    public void add(Attendance.AttendanceStatus status, long count, double workHours) {
+        recordCount += count;
+        totalWorkHours += workHours;
+        if (status == null) {
+            return;
+        }
+        switch (status) {
+            case PRESENT -> presentCount += count;
+            case ABSENT -> absentCount += count;
+            case HALF_DAY -> halfDayCount += count;
+            case LATE -> lateCount += count;
+            case LEAVE -> leaveCount += count;
+            case HOLIDAY -> holidayCount += count;
+            case WEEKEND -> weekendCount += count;
+        }
+    }
+
+    public long getCount(Attendance.AttendanceStatus status) {
+        return switch (status) {
+            case PRESENT -> presentCount;
+            case ABSENT -> absentCount;
+            case HALF_DAY -> halfDayCount;
+            case LATE -> lateCount;
+            case LEAVE -> leaveCount;
+            case HOLIDAY -> holidayCount;
+            case WEEKEND -> weekendCount;
+        };
+    }
+}
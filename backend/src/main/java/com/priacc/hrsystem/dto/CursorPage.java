@@ -0,0 +1,60 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paged listing. {@code nextCursor} is null on the last
+ * page. {@code totalElements} is only filled in when the caller asked for a count.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+
+    private List<T> content;
+
+    private int size;
+
+    private boolean hasNext;
+
+    private String nextCursor;
+
+    private Long totalElements;
+
+    private CountMode countMode;
+
+    public enum CountMode {
+        NONE, APPROXIMATE, EXACT;
+
+        public static CountMode from(String value) {
+            if (value == null || value.isBlank()) {
+                return NONE;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Unknown count mode: " + value);
+            }
+        }
+    }
+
+    /**
+     * Build a page from rows fetched with {@link PageCursor#limit(int)}, which
+     * returns at most one row more than the page size.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, Function<T, String> cursorOf,
+                                       Long totalElements, CountMode countMode) {
+        int pageSize = PageCursor.clampSize(size);
+        boolean hasNext = rows.size() > pageSize;
+        List<T> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, pageSize, hasNext, nextCursor, totalElements, countMode);
+    }
+}
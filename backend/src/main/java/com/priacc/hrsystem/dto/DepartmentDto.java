@@ -27,6 +27,8 @@ public class DepartmentDto {
     
     private String departmentHeadName; // For display purposes only
     
+    private Long workCalendarId; // Null for the default calendar
+    
     private int employeeCount; // For display purposes only
     
     private List<Long> positionIds; // For reference only
@@ -44,6 +46,10 @@ public class DepartmentDto {
                                      department.getDepartmentHead().getLastName());
         }
         
+        if (department.getWorkCalendar() != null) {
+            dto.setWorkCalendarId(department.getWorkCalendar().getId());
+        }
+        
         dto.setEmployeeCount(department.getEmployees() != null ? department.getEmployees().size() : 0);
         
         if (department.getPositions() != null) {
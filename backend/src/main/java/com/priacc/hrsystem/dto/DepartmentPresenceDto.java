@@ -0,0 +1,27 @@
+package com.priacc.hrsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * How many employees of a department are in, on a break or gone for the day.
+ * departmentId is null for employees without a department.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DepartmentPresenceDto {
+
+    private Long departmentId;
+
+    private LocalDate date;
+
+    private int checkedIn;
+
+    private int onBreak;
+
+    private int checkedOut;
+}
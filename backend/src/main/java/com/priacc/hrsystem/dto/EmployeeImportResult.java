@@ -0,0 +1,35 @@
+package com.priacc.hrsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeImportResult {
+
+    private int totalRows;
+
+    private int importedCount;
+
+    private int failedCount;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+
+        // 1-based position of the row in the submitted file or array
+        private int row;
+
+        private String field;
+
+        private String message;
+    }
+}
@@ -0,0 +1,25 @@
+package com.priacc.hrsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeSearchResult {
+
+    private Long id;
+
+    private String employeeId;
+
+    private String fullName;
+
+    private String email;
+
+    private String departmentName;
+
+    private String status;
+
+    private double score;
+}
@@ -0,0 +1,66 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.Employee;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EmployeeSummary {
+
+    private Long id;
+
+    private String employeeId;
+
+    private String firstName;
+
+    private String lastName;
+
+    private String email;
+
+    private Long userId;
+
+    private Long departmentId;
+
+    private String departmentName;
+
+    private Long positionId;
+
+    private Long managerId;
+
+    private String status;
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+
+    // Static method to convert Employee entity to EmployeeSummary
+    public static EmployeeSummary fromEntity(Employee employee) {
+        EmployeeSummary summary = new EmployeeSummary();
+        summary.setId(employee.getId());
+        summary.setEmployeeId(employee.getEmployeeId());
+        summary.setFirstName(employee.getFirstName());
+        summary.setLastName(employee.getLastName());
+        summary.setEmail(employee.getEmail());
+        summary.setStatus(employee.getStatus());
+
+        // Reading the id of a lazy association does not initialize it
+        if (employee.getUser() != null) {
+            summary.setUserId(employee.getUser().getId());
+        }
+        if (employee.getDepartment() != null) {
+            summary.setDepartmentId(employee.getDepartment().getId());
+            summary.setDepartmentName(employee.getDepartment().getName());
+        }
+        if (employee.getPosition() != null) {
+            summary.setPositionId(employee.getPosition().getId());
+        }
+        if (employee.getManager() != null) {
+            summary.setManagerId(employee.getManager().getId());
+        }
+
+        return summary;
+    }
+}
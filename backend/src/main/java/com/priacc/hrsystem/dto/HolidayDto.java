@@ -0,0 +1,32 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.Holiday;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HolidayDto {
+
+    private Long id;
+
+    private Long calendarId;
+
+    @NotNull(message = "Date is required")
+    private LocalDate date;
+
+    @NotBlank(message = "Holiday name is required")
+    @Size(max = 100, message = "Holiday name must be less than 100 characters")
+    private String name;
+
+    public static HolidayDto fromEntity(Holiday holiday) {
+        return new HolidayDto(holiday.getId(), holiday.getCalendarId(), holiday.getDate(), holiday.getName());
+    }
+}
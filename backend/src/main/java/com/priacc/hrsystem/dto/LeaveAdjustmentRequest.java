@@ -0,0 +1,30 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.Leave;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaveAdjustmentRequest {
+
+    @NotNull(message = "Employee ID is required")
+    private Long employeeId;
+
+    @NotNull(message = "Leave type is required")
+    private Leave.LeaveType leaveType;
+
+    @NotNull(message = "Year is required")
+    private Integer year;
+
+    // Positive to grant days, negative to take them away
+    @NotNull(message = "Days are required")
+    private Double days;
+
+    @Size(max = 500, message = "Note must be less than 500 characters")
+    private String note;
+}
@@ -0,0 +1,53 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.Leave;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Who in a department is on approved leave on each day of a month.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaveCalendarDto {
+
+    private Long departmentId;
+
+    // yyyy-MM
+    private String month;
+
+    // One entry per day of the month, in date order
+    private List<Day> days;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Day {
+
+        private LocalDate date;
+
+        // Distinct employees off on the day
+        private int headcountOff;
+
+        private List<Absence> absences;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Absence {
+
+        private Long employeeId;
+
+        private String employeeName;
+
+        private Long leaveId;
+
+        private Leave.LeaveType leaveType;
+    }
+}
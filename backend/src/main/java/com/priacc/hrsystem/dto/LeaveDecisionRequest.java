@@ -0,0 +1,36 @@
+package com.priacc.hrsystem.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One decision applied to many pending leave requests.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaveDecisionRequest {
+
+    @NotEmpty(message = "Leave IDs are required")
+    private List<Long> leaveIds;
+
+    @NotNull(message = "Decision is required")
+    private Decision decision;
+
+    @NotNull(message = "Approver ID is required")
+    private Long approverId;
+
+    @Size(max = 500, message = "Comments must be less than 500 characters")
+    private String comments;
+
+    public enum Decision {
+        APPROVE,
+        REJECT
+    }
+}
@@ -0,0 +1,47 @@
+package com.priacc.hrsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a bulk leave decision, one entry per requested id in request
+ * order. Leaves that failed are left untouched; the others are all updated.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LeaveDecisionResult {
+
+    private LeaveDecisionRequest.Decision decision;
+
+    private int succeededCount;
+
+    private int failedCount;
+
+    private List<Item> results = new ArrayList<>();
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+
+        private Long leaveId;
+
+        private Outcome outcome;
+
+        // Why the leave was skipped; null on success
+        private String message;
+    }
+
+    public enum Outcome {
+        APPROVED,
+        REJECTED,
+        NOT_FOUND,
+        INVALID_STATUS,
+        INSUFFICIENT_BALANCE
+    }
+}
@@ -0,0 +1,73 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row returned by a keyset-paged query: the value of the
+ * sort column and the row id used as a tie-breaker. Clients only ever see the
+ * opaque token produced by {@link #encode(Object, Long)}.
+ */
+@Data
+@AllArgsConstructor
+public class PageCursor {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private String sortKey;
+
+    private Long id;
+
+    public static String encode(Object sortKey, Long id) {
+        String raw = id + ":" + (sortKey != null ? sortKey : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token from a previous page. A null or blank token means the first page.
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator <= 0) {
+                throw new BadRequestException("Invalid page cursor");
+            }
+            return new PageCursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid page cursor");
+        }
+    }
+
+    public LocalDate getSortKeyAsDate() {
+        try {
+            return LocalDate.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid page cursor");
+        }
+    }
+
+    /**
+     * Page request for a keyset query. One extra row is fetched to tell whether
+     * another page follows.
+     */
+    public static Pageable limit(int size) {
+        return PageRequest.of(0, clampSize(size) + 1);
+    }
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+}
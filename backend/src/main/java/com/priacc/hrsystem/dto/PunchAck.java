@@ -0,0 +1,25 @@
+package com.priacc.hrsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Acknowledgment for a punch that has been journaled but not yet written to
+ * the attendance table.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PunchAck {
+
+    private long sequence;
+
+    private Long employeeId;
+
+    private PunchRequest.PunchType type;
+
+    private LocalDateTime punchTime;
+}
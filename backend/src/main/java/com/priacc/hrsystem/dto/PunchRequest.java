@@ -0,0 +1,32 @@
+package com.priacc.hrsystem.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PunchRequest {
+
+    @NotNull(message = "Employee ID is required")
+    private Long employeeId;
+
+    @NotNull(message = "Punch type is required")
+    private PunchType type;
+
+    @Size(max = 255)
+    private String ipAddress;
+
+    @Size(max = 255)
+    private String location;
+
+    public enum PunchType {
+        CHECK_IN,
+        CHECK_OUT,
+        BREAK_START,
+        BREAK_END
+    }
+}
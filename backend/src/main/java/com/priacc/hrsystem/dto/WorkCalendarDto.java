@@ -0,0 +1,48 @@
+package com.priacc.hrsystem.dto;
+
+import com.priacc.hrsystem.model.WorkCalendar;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WorkCalendarDto {
+
+    private Long id;
+
+    @NotBlank(message = "Calendar name is required")
+    @Size(max = 50, message = "Calendar name must be less than 50 characters")
+    private String name;
+
+    @Size(max = 500, message = "Description must be less than 500 characters")
+    private String description;
+
+    // Empty for seven-day operations
+    @NotNull(message = "Weekend days are required, an empty list for none")
+    private List<DayOfWeek> weekendDays;
+
+    private boolean defaultCalendar; // For display purposes only
+
+    public static WorkCalendarDto fromEntity(WorkCalendar calendar, boolean defaultCalendar) {
+        WorkCalendarDto dto = new WorkCalendarDto();
+        dto.setId(calendar.getId());
+        dto.setName(calendar.getName());
+        dto.setDescription(calendar.getDescription());
+        dto.setWeekendDays(Arrays.stream(calendar.getWeekendDays().split(","))
+                .filter(day -> !day.isBlank())
+                .map(day -> DayOfWeek.valueOf(day.trim()))
+                .collect(Collectors.toList()));
+        dto.setDefaultCalendar(defaultCalendar);
+        return dto;
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -14,6 +15,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @ControllerAdvice
@@ -35,6 +37,39 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handle BadRequestException
+     */
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ErrorDetails> handleBadRequestException(BadRequestException exception,
+                                                                WebRequest webRequest) {
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "BAD_REQUEST"
+        );
+
+        return new ResponseEntity<>(errorDetails, HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handle LeaveConflictException
+     */
+    @ExceptionHandler(LeaveConflictException.class)
+    public ResponseEntity<ErrorDetails> handleLeaveConflictException(LeaveConflictException exception,
+                                                                   WebRequest webRequest) {
+        ErrorDetails errorDetails = new LeaveConflictErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "LEAVE_CONFLICT",
+                exception.getConflictingLeaveIds()
+        );
+
+        return new ResponseEntity<>(errorDetails, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handle BadCredentialsException
      */
@@ -67,6 +102,55 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseEntity<>(errorDetails, HttpStatus.FORBIDDEN);
     }
 
+    /**
+     * Handle ServiceBusyException
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ErrorDetails> handleServiceBusyException(ServiceBusyException exception,
+                                                                 WebRequest webRequest) {
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "SERVICE_BUSY"
+        );
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(errorDetails);
+    }
+
+    /**
+     * Handle RateLimitExceededException
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ErrorDetails> handleRateLimitExceededException(RateLimitExceededException exception,
+                                                                       WebRequest webRequest) {
+        ErrorDetails errorDetails = new ErrorDetails(
+                LocalDateTime.now(),
+                exception.getMessage(),
+                webRequest.getDescription(false),
+                "TOO_MANY_REQUESTS"
+        );
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+                .body(errorDetails);
+    }
+
+    /**
+     * Handle InternalAuthenticationServiceException, which Spring Security uses to
+     * wrap failures raised while loading or checking a user
+     */
+    @ExceptionHandler(InternalAuthenticationServiceException.class)
+    public ResponseEntity<ErrorDetails> handleInternalAuthenticationServiceException(InternalAuthenticationServiceException exception,
+                                                                                   WebRequest webRequest) {
+        if (exception.getCause() instanceof ServiceBusyException busy) {
+            return handleServiceBusyException(busy, webRequest);
+        }
+        return handleGlobalException(exception, webRequest);
+    }
+
     /**
      * Handle all other exceptions
      */
@@ -157,4 +241,21 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
             return errors;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Error details class for overlapping leave
+     */
+    public static class LeaveConflictErrorDetails extends ErrorDetails {
+        private List<Long> conflictingLeaveIds;
+
+        public LeaveConflictErrorDetails(LocalDateTime timestamp, String message, String details, String errorCode,
+                                         List<Long> conflictingLeaveIds) {
+            super(timestamp, message, details, errorCode);
+            this.conflictingLeaveIds = conflictingLeaveIds;
+        }
+
+        public List<Long> getConflictingLeaveIds() {
+            return conflictingLeaveIds;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.priacc.hrsystem.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.util.List;
+
+/**
+ * Thrown when a leave would overlap pending or approved leave of the same
+ * employee.
+ */
+@ResponseStatus(HttpStatus.CONFLICT)
+public class LeaveConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Long> conflictingLeaveIds;
+
+    public LeaveConflictException(String message, List<Long> conflictingLeaveIds) {
+        super(message);
+        this.conflictingLeaveIds = List.copyOf(conflictingLeaveIds);
+    }
+
+    public List<Long> getConflictingLeaveIds() {
+        return conflictingLeaveIds;
+    }
+}
@@ -14,7 +14,11 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "attendances")
+@Table(name = "attendances", indexes = {
+        @Index(name = "idx_attendances_date_id", columnList = "date, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_attendances_employee_date", columnNames = {"employee_id", "date"})
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @NoArgsConstructor
@@ -29,6 +33,7 @@ public class Attendance {
     @JoinColumn(name = "employee_id", nullable = false)
     private Employee employee;
 
+    @Column(nullable = false)
     private LocalDate date;
 
     private LocalTime checkInTime;
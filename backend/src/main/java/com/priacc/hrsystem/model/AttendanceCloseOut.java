@@ -0,0 +1,39 @@
+package com.priacc.hrsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of the nightly attendance close-out for one day. Employees are
+ * processed in id order, so a run that stopped part way resumes after
+ * {@code lastEmployeeId}.
+ */
+@Entity
+@Table(name = "attendance_close_outs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceCloseOut {
+
+    @Id
+    private LocalDate date;
+
+    private Long lastEmployeeId;
+
+    private boolean completed;
+
+    // Rows created for employees without attendance
+    private long insertedCount;
+
+    // Open check-ins that were closed automatically
+    private long closedCount;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime completedAt;
+}
@@ -0,0 +1,69 @@
+package com.priacc.hrsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Pre-aggregated attendance counts for one employee or department over one
+ * day or month. Rows are maintained by a database trigger on attendances
+ * (see DatabaseSchemaInitializer) and are read-only from the application.
+ */
+@Entity
+@Table(name = "attendance_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_attendance_rollups_key", columnNames = {"scope", "scope_id", "period", "period_start"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AttendanceRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Scope scope;
+
+    @Column(nullable = false)
+    private Long scopeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Period period;
+
+    @Column(nullable = false)
+    private LocalDate periodStart;
+
+    private long recordCount;
+
+    private long presentCount;
+
+    private long absentCount;
+
+    private long halfDayCount;
+
+    private long lateCount;
+
+    private long leaveCount;
+
+    private long holidayCount;
+
+    private long weekendCount;
+
+    private double totalWorkHours;
+
+    public enum Scope {
+        EMPLOYEE,
+        DEPARTMENT
+    }
+
+    public enum Period {
+        DAY,
+        MONTH
+    }
+}
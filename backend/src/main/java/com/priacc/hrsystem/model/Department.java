@@ -39,6 +39,12 @@ public class Department {
     @JoinColumn(name = "head_id")
     private Employee departmentHead;
 
+    // Null means the default calendar
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "work_calendar_id")
+    @JsonIgnore
+    private WorkCalendar workCalendar;
+
     @OneToMany(mappedBy = "department")
     @JsonIgnore
     private List<Employee> employees = new ArrayList<>();
@@ -22,7 +22,9 @@ import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "employees")
+@Table(name = "employees", indexes = {
+        @Index(name = "idx_employees_last_name_id", columnList = "lastName, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @NoArgsConstructor
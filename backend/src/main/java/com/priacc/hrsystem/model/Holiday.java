@@ -0,0 +1,34 @@
+package com.priacc.hrsystem.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "holidays", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_holidays_calendar_date", columnNames = {"calendar_id", "date"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Holiday {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "calendar_id", nullable = false)
+    private Long calendarId;
+
+    @Column(nullable = false)
+    private LocalDate date;
+
+    @NotBlank
+    @Size(max = 100)
+    private String name;
+}
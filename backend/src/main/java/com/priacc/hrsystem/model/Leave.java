@@ -15,7 +15,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "leaves")
+@Table(name = "leaves", indexes = {
+        @Index(name = "idx_leaves_start_date_id", columnList = "startDate, id"),
+        @Index(name = "idx_leaves_employee_start_date", columnList = "employee_id, startDate")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @NoArgsConstructor
@@ -0,0 +1,49 @@
+package com.priacc.hrsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running leave balance of one employee for one leave type and year: the sum
+ * of its {@link LeaveLedgerEntry} rows. Written only by atomic upserts in
+ * LeaveBalanceRepository, in the same transaction as the ledger entry.
+ */
+@Entity
+@Table(name = "leave_balances", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_leave_balances_key", columnNames = {"employee_id", "leave_type", "year"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Leave.LeaveType leaveType;
+
+    @Column(nullable = false)
+    private int year;
+
+    private double accrued;
+
+    // Consumed days net of reversals
+    private double used;
+
+    private double adjusted;
+
+    // accrued - used + adjusted
+    private double balance;
+
+    private LocalDateTime updatedAt;
+}
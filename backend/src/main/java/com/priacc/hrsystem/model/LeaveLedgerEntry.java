@@ -0,0 +1,65 @@
+package com.priacc.hrsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * One movement of an employee's leave balance. Entries are only ever
+ * appended; a mistake is corrected with a reversal or an adjustment. The
+ * running total lives in {@link LeaveBalance}, written in the same
+ * transaction.
+ */
+@Entity
+@Table(name = "leave_ledger_entries", indexes = {
+        @Index(name = "idx_leave_ledger_employee_year", columnList = "employee_id, year, id"),
+        @Index(name = "idx_leave_ledger_leave", columnList = "leaveId")
+})
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaveLedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "employee_id", nullable = false)
+    private Long employeeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Leave.LeaveType leaveType;
+
+    @Column(nullable = false)
+    private int year;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EntryType entryType;
+
+    // Signed change to the balance
+    private double days;
+
+    // Kept as a plain id so history survives deletion of the leave
+    private Long leaveId;
+
+    @Column(length = 500)
+    private String note;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    public enum EntryType {
+        ACCRUAL,
+        CONSUMPTION,
+        REVERSAL,
+        ADJUSTMENT
+    }
+}
@@ -0,0 +1,28 @@
+package com.priacc.hrsystem.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Per-user counter embedded in issued tokens. Bumping it revokes every token
+ * issued before the bump.
+ */
+@Entity
+@Table(name = "user_security_epochs")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SecurityEpoch {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private long epoch;
+
+    private LocalDateTime updatedAt;
+}
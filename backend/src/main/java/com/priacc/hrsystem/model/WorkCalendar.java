@@ -0,0 +1,50 @@
+package com.priacc.hrsystem.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Weekend rule and holidays of a region, assigned to departments. Employees
+ * whose department has no calendar use the default one.
+ */
+@Entity
+@Table(name = "work_calendars")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkCalendar {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    @Column(unique = true)
+    private String name;
+
+    @Size(max = 500)
+    private String description;
+
+    // Comma-separated day names, e.g. SATURDAY,SUNDAY; empty for a calendar without weekend
+    @NotNull
+    @Size(max = 100)
+    private String weekendDays;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,17 @@
+package com.priacc.hrsystem.repository;
+
+import com.priacc.hrsystem.model.AttendanceCloseOut;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AttendanceCloseOutRepository extends JpaRepository<AttendanceCloseOut, LocalDate> {
+
+    Optional<AttendanceCloseOut> findFirstByCompletedTrueOrderByDateDesc();
+
+    List<AttendanceCloseOut> findTop31ByOrderByDateDesc();
+}
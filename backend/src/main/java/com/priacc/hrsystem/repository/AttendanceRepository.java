@@ -1,19 +1,35 @@
 package com.priacc.hrsystem.repository;
 
+import com.priacc.hrsystem.dto.AttendanceDto;
 import com.priacc.hrsystem.model.Attendance;
 import com.priacc.hrsystem.model.Employee;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
+
+    String DAY_STATE_QUERY = "SELECT a.id, a.employee.id, a.checkInTime, a.breakStartTime, a.breakEndTime, "
+            + "a.checkOutTime, a.workHours, a.status, a.notes, a.ipAddress, a.location "
+            + "FROM Attendance a WHERE a.date = :date ";
+
+    String DTO_QUERY = "SELECT new com.priacc.hrsystem.dto.AttendanceDto("
+            + "a.id, e.id, CONCAT(e.firstName, ' ', e.lastName), a.date, a.checkInTime, a.checkOutTime, "
+            + "a.breakStartTime, a.breakEndTime, a.workHours, a.status, a.notes, a.ipAddress, a.location, d.name) "
+            + "FROM Attendance a "
+            + "JOIN a.employee e "
+            + "LEFT JOIN e.department d ";
     
     Optional<Attendance> findByEmployeeAndDate(Employee employee, LocalDate date);
     
@@ -33,4 +49,42 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
     
     @Query("SELECT COUNT(a) FROM Attendance a WHERE a.employee = :employee AND a.status = :status AND a.date BETWEEN :startDate AND :endDate")
     Long countByEmployeeAndStatusAndDateBetween(Employee employee, Attendance.AttendanceStatus status, LocalDate startDate, LocalDate endDate);
-}
\ No newline at end of file
+
+    @Query("SELECT a.status, COUNT(a), COALESCE(SUM(a.workHours), 0) FROM Attendance a "
+            + "WHERE a.employee.id = :employeeId AND a.date BETWEEN :startDate AND :endDate GROUP BY a.status")
+    List<Object[]> summarizeByEmployeeAndDateBetween(Long employeeId, LocalDate startDate, LocalDate endDate);
+
+    @Query("SELECT a.employee.id FROM Attendance a WHERE a.id = :id")
+    Optional<Long> findEmployeeIdById(Long id);
+
+    @Query(DTO_QUERY + "ORDER BY a.date DESC, a.id DESC")
+    List<AttendanceDto> findDtosFirstPage(Pageable pageable);
+
+    // The leading "a.date <= :date" lets PostgreSQL skip later monthly partitions
+    @Query(DTO_QUERY + "WHERE a.date <= :date AND (a.date < :date OR a.id < :id) ORDER BY a.date DESC, a.id DESC")
+    List<AttendanceDto> findDtosBefore(LocalDate date, Long id, Pageable pageable);
+
+    @Query(DAY_STATE_QUERY)
+    List<Object[]> findDayStateRows(LocalDate date);
+
+    @Query(DAY_STATE_QUERY + "AND a.employee.id IN :employeeIds")
+    List<Object[]> findDayStateRowsForEmployees(LocalDate date, Collection<Long> employeeIds);
+
+    @Modifying
+    @Query("UPDATE Attendance a SET a.breakStartTime = :time, a.updatedAt = :now "
+            + "WHERE a.id = :id AND a.checkInTime IS NOT NULL AND a.checkOutTime IS NULL "
+            + "AND (a.breakStartTime IS NULL OR a.breakEndTime IS NOT NULL)")
+    int startBreak(Long id, LocalTime time, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Attendance a SET a.breakEndTime = :time, a.updatedAt = :now "
+            + "WHERE a.id = :id AND a.breakStartTime IS NOT NULL AND a.breakEndTime IS NULL")
+    int endBreak(Long id, LocalTime time, LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Attendance a SET a.checkOutTime = :time, a.workHours = :workHours, "
+            + "a.ipAddress = COALESCE(:ipAddress, a.ipAddress), a.location = COALESCE(:location, a.location), "
+            + "a.updatedAt = :now "
+            + "WHERE a.id = :id AND a.checkInTime IS NOT NULL AND a.checkOutTime IS NULL")
+    int checkOut(Long id, LocalTime time, double workHours, String ipAddress, String location, LocalDateTime now);
+}
@@ -0,0 +1,15 @@
+package com.priacc.hrsystem.repository;
+
+import com.priacc.hrsystem.model.AttendanceRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface AttendanceRollupRepository extends JpaRepository<AttendanceRollup, Long> {
+
+    List<AttendanceRollup> findByScopeAndScopeIdAndPeriodAndPeriodStartBetweenOrderByPeriodStart(
+            AttendanceRollup.Scope scope, Long scopeId, AttendanceRollup.Period period, LocalDate start, LocalDate end);
+}
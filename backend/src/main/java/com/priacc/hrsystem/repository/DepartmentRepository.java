@@ -2,8 +2,10 @@ package com.priacc.hrsystem.repository;
 
 import com.priacc.hrsystem.model.Department;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +14,9 @@ public interface DepartmentRepository extends JpaRepository<Department, Long> {
     Optional<Department> findByName(String name);
     
     Boolean existsByName(String name);
+
+    @Query("SELECT d.id, d.workCalendar.id FROM Department d WHERE d.workCalendar IS NOT NULL")
+    List<Object[]> findWorkCalendarAssignments();
+
+    boolean existsByWorkCalendarId(Long workCalendarId);
 }
\ No newline at end of file
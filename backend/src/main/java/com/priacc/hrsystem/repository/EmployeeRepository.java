@@ -1,5 +1,6 @@
 package com.priacc.hrsystem.repository;
 
+import com.priacc.hrsystem.dto.EmployeeDto;
 import com.priacc.hrsystem.model.Department;
 import com.priacc.hrsystem.model.Employee;
 import com.priacc.hrsystem.model.User;
@@ -10,16 +11,36 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, Long> {
+
+    /**
+     * Read model for list endpoints: every EmployeeDto column in one joined
+     * select, so a list costs one query regardless of its size.
+     */
+    String DTO_QUERY = "SELECT new com.priacc.hrsystem.dto.EmployeeDto("
+            + "e.id, e.firstName, e.lastName, e.dateOfBirth, e.gender, e.maritalStatus, e.nationality, "
+            + "e.email, e.phone, e.mobilePhone, a, d.id, d.name, p.id, p.title, "
+            + "m.id, CONCAT(m.firstName, ' ', m.lastName), e.employeeType, e.joinDate, e.status, s, b, u.id) "
+            + "FROM Employee e "
+            + "LEFT JOIN e.address a "
+            + "LEFT JOIN e.department d "
+            + "LEFT JOIN e.position p "
+            + "LEFT JOIN e.manager m "
+            + "LEFT JOIN e.salary s "
+            + "LEFT JOIN e.bankDetails b "
+            + "LEFT JOIN e.user u ";
     
     Optional<Employee> findByEmployeeId(String employeeId);
     
     Optional<Employee> findByUser(User user);
     
+    Optional<Employee> findByUserId(Long userId);
+    
     List<Employee> findByDepartment(Department department);
     
     Page<Employee> findByDepartment(Department department, Pageable pageable);
@@ -35,4 +56,35 @@ public interface EmployeeRepository extends JpaRepository<Employee, Long> {
     
     @Query("SELECT e FROM Employee e WHERE LOWER(e.firstName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(e.lastName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR LOWER(e.employeeId) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Employee> searchByKeyword(String keyword);
-}
\ No newline at end of file
+
+    @Query("SELECT e.id, u.id, d.id, m.id FROM Employee e LEFT JOIN e.user u LEFT JOIN e.department d LEFT JOIN e.manager m")
+    List<Object[]> findOrgHierarchyRows();
+
+    @Query("SELECT e.id, d.id, p.id FROM Employee e LEFT JOIN e.department d LEFT JOIN e.position p")
+    List<Object[]> findAnalyticsRows();
+
+    @Query(DTO_QUERY + "ORDER BY e.id")
+    List<EmployeeDto> findAllDtos();
+
+    @Query(DTO_QUERY + "WHERE d.id = :departmentId ORDER BY e.id")
+    List<EmployeeDto> findDtosByDepartmentId(Long departmentId);
+
+    @Query(DTO_QUERY + "WHERE e.status = :status ORDER BY e.id")
+    List<EmployeeDto> findDtosByStatus(String status);
+
+    @Query(DTO_QUERY + "WHERE e.joinDate BETWEEN :startDate AND :endDate ORDER BY e.id")
+    List<EmployeeDto> findDtosByJoinDateBetween(LocalDate startDate, LocalDate endDate);
+
+    @Query(DTO_QUERY + "ORDER BY e.lastName, e.id")
+    List<EmployeeDto> findDtosFirstPage(Pageable pageable);
+
+    // The leading "e.lastName >= :lastName" gives the index scan a start key
+    @Query(DTO_QUERY + "WHERE e.lastName >= :lastName AND (e.lastName > :lastName OR e.id > :id) ORDER BY e.lastName, e.id")
+    List<EmployeeDto> findDtosAfter(String lastName, Long id, Pageable pageable);
+
+    @Query(DTO_QUERY + "WHERE e.id IN :ids")
+    List<EmployeeDto> findDtosByIdIn(Collection<Long> ids);
+
+    @Query("SELECT e.id, e.employeeId, e.firstName, e.lastName, e.email, d.name, e.status FROM Employee e LEFT JOIN e.department d")
+    List<Object[]> findSearchIndexRows();
+}
@@ -0,0 +1,20 @@
+package com.priacc.hrsystem.repository;
+
+import com.priacc.hrsystem.model.Holiday;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface HolidayRepository extends JpaRepository<Holiday, Long> {
+
+    List<Holiday> findByCalendarIdOrderByDate(Long calendarId);
+
+    List<Holiday> findByCalendarIdAndDateBetweenOrderByDate(Long calendarId, LocalDate startDate, LocalDate endDate);
+
+    boolean existsByCalendarIdAndDate(Long calendarId, LocalDate date);
+
+    long deleteByCalendarId(Long calendarId);
+}
@@ -0,0 +1,53 @@
+package com.priacc.hrsystem.repository;
+
+import com.priacc.hrsystem.model.Leave;
+import com.priacc.hrsystem.model.LeaveBalance;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LeaveBalanceRepository extends JpaRepository<LeaveBalance, Long> {
+
+    Optional<LeaveBalance> findByEmployeeIdAndLeaveTypeAndYear(Long employeeId, Leave.LeaveType leaveType, int year);
+
+    List<LeaveBalance> findByEmployeeIdAndYearOrderByLeaveType(Long employeeId, int year);
+
+    // Locked in id order so concurrent bulk decisions cannot deadlock on each other's rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM LeaveBalance b WHERE b.employeeId IN :employeeIds AND b.year IN :years ORDER BY b.id")
+    List<LeaveBalance> findForUpdate(Collection<Long> employeeIds, Collection<Integer> years);
+
+    /**
+     * Add to a balance, creating it if needed.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO leave_balances (employee_id, leave_type, year, accrued, used, adjusted, balance, updated_at) "
+            + "VALUES (:employeeId, :leaveType, :year, :accrued, :used, :adjusted, :accrued - :used + :adjusted, now()) "
+            + "ON CONFLICT (employee_id, leave_type, year) DO UPDATE SET "
+            + "accrued = leave_balances.accrued + EXCLUDED.accrued, "
+            + "used = leave_balances.used + EXCLUDED.used, "
+            + "adjusted = leave_balances.adjusted + EXCLUDED.adjusted, "
+            + "balance = leave_balances.balance + EXCLUDED.balance, "
+            + "updated_at = now()",
+            nativeQuery = true)
+    int apply(Long employeeId, String leaveType, int year, double accrued, double used, double adjusted);
+
+    /**
+     * Take days from a balance only if it covers them.
+     *
+     * @return 1 when the days were taken, 0 when the balance is missing or too low
+     */
+    @Modifying
+    @Query(value = "UPDATE leave_balances SET used = used + :days, balance = balance - :days, updated_at = now() "
+            + "WHERE employee_id = :employeeId AND leave_type = :leaveType AND year = :year AND balance >= :days",
+            nativeQuery = true)
+    int consumeIfAvailable(Long employeeId, String leaveType, int year, double days);
+}
@@ -0,0 +1,21 @@
+package com.priacc.hrsystem.repository;
+
+import com.priacc.hrsystem.model.LeaveLedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LeaveLedgerEntryRepository extends JpaRepository<LeaveLedgerEntry, Long> {
+
+    List<LeaveLedgerEntry> findByEmployeeIdAndYearOrderById(Long employeeId, int year);
+
+    // Net days per leave type and year recorded against one leave
+    @Query("SELECT e.leaveType, e.year, SUM(e.days) FROM LeaveLedgerEntry e WHERE e.leaveId = :leaveId "
+            + "GROUP BY e.leaveType, e.year")
+    List<Object[]> sumDaysByLeaveId(Long leaveId);
+
+    boolean existsByLeaveId(Long leaveId);
+}
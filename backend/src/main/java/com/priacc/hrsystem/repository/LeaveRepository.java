@@ -1,18 +1,32 @@
 package com.priacc.hrsystem.repository;
 
+import com.priacc.hrsystem.dto.LeaveDto;
 import com.priacc.hrsystem.model.Employee;
 import com.priacc.hrsystem.model.Leave;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface LeaveRepository extends JpaRepository<Leave, Long> {
+
+    String DTO_QUERY = "SELECT new com.priacc.hrsystem.dto.LeaveDto("
+            + "l.id, e.id, CONCAT(e.firstName, ' ', e.lastName), l.leaveType, l.startDate, l.endDate, "
+            + "l.numberOfDays, l.reason, l.status, l.comments, ap.id, CONCAT(ap.firstName, ' ', ap.lastName), "
+            + "l.approvedAt, l.createdAt, l.updatedAt, d.name) "
+            + "FROM Leave l "
+            + "JOIN l.employee e "
+            + "LEFT JOIN e.department d "
+            + "LEFT JOIN l.approvedBy ap ";
     
     List<Leave> findByEmployee(Employee employee);
     
@@ -30,4 +44,30 @@ public interface LeaveRepository extends JpaRepository<Leave, Long> {
     
     @Query("SELECT l FROM Leave l WHERE l.employee.department.id = :departmentId AND l.status = :status")
     List<Leave> findByDepartmentAndStatus(Long departmentId, Leave.LeaveStatus status);
-}
\ No newline at end of file
+
+    @Query("SELECT l.id FROM Leave l WHERE l.employee.id = :employeeId AND l.status IN :statuses "
+            + "AND l.startDate <= :endDate AND l.endDate >= :startDate ORDER BY l.startDate")
+    List<Long> findOverlappingIds(Long employeeId, LocalDate startDate, LocalDate endDate, Collection<Leave.LeaveStatus> statuses);
+
+    @Query("SELECT l.id, l.employee.id, l.startDate, l.endDate FROM Leave l WHERE l.status IN :statuses")
+    List<Object[]> findIntervalRows(Collection<Leave.LeaveStatus> statuses);
+
+    @Query("SELECT l.id, e.id, CONCAT(e.firstName, ' ', e.lastName), l.leaveType, l.startDate, l.endDate "
+            + "FROM Leave l JOIN l.employee e WHERE e.department.id = :departmentId AND l.status IN :statuses "
+            + "AND l.startDate <= :endDate AND l.endDate >= :startDate")
+    List<Object[]> findCalendarRows(Long departmentId, LocalDate startDate, LocalDate endDate, Collection<Leave.LeaveStatus> statuses);
+
+    @Query("SELECT l.employee.id FROM Leave l WHERE l.id = :id")
+    Optional<Long> findEmployeeIdById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Leave l WHERE l.id = :id")
+    Optional<Leave> findByIdForUpdate(Long id);
+
+    @Query(DTO_QUERY + "ORDER BY l.startDate DESC, l.id DESC")
+    List<LeaveDto> findDtosFirstPage(Pageable pageable);
+
+    // The leading "l.startDate <= :startDate" gives the index scan a start key
+    @Query(DTO_QUERY + "WHERE l.startDate <= :startDate AND (l.startDate < :startDate OR l.id < :id) ORDER BY l.startDate DESC, l.id DESC")
+    List<LeaveDto> findDtosBefore(LocalDate startDate, Long id, Pageable pageable);
+}
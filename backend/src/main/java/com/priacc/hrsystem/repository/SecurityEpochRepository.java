@@ -0,0 +1,17 @@
+package com.priacc.hrsystem.repository;
+
+import com.priacc.hrsystem.model.SecurityEpoch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SecurityEpochRepository extends JpaRepository<SecurityEpoch, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO user_security_epochs (user_id, epoch, updated_at) VALUES (:userId, 1, now()) " +
+            "ON CONFLICT (user_id) DO UPDATE SET epoch = user_security_epochs.epoch + 1, updated_at = now()",
+            nativeQuery = true)
+    int bumpEpoch(Long userId);
+}
@@ -1,15 +1,31 @@
 package com.priacc.hrsystem.repository;
 
+import com.priacc.hrsystem.dto.UserDto;
 import com.priacc.hrsystem.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+
+    String DTO_QUERY = "SELECT new com.priacc.hrsystem.dto.UserDto("
+            + "u.id, u.firstName, u.lastName, u.email, u.role, u.avatarUrl, u.active, emp.id) "
+            + "FROM User u "
+            + "LEFT JOIN u.employee emp ";
     
     Optional<User> findByEmail(String email);
     
     Boolean existsByEmail(String email);
-}
\ No newline at end of file
+
+    @Query(DTO_QUERY + "ORDER BY u.email, u.id")
+    List<UserDto> findDtosFirstPage(Pageable pageable);
+
+    // The leading "u.email >= :email" gives the index scan a start key
+    @Query(DTO_QUERY + "WHERE u.email >= :email AND (u.email > :email OR u.id > :id) ORDER BY u.email, u.id")
+    List<UserDto> findDtosAfter(String email, Long id, Pageable pageable);
+}
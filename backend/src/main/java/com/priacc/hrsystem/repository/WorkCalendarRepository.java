@@ -0,0 +1,15 @@
+package com.priacc.hrsystem.repository;
+
+import com.priacc.hrsystem.model.WorkCalendar;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface WorkCalendarRepository extends JpaRepository<WorkCalendar, Long> {
+
+    Optional<WorkCalendar> findByName(String name);
+
+    boolean existsByName(String name);
+}
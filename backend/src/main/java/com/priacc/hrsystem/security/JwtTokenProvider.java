@@ -1,14 +1,25 @@
 package com.priacc.hrsystem.security;
 
+import com.priacc.hrsystem.cache.BoundedCache;
+import com.priacc.hrsystem.model.Role;
+import com.priacc.hrsystem.service.SecurityEpochService;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -17,12 +28,37 @@ import java.util.function.Function;
 @Component
 public class JwtTokenProvider {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_SECURITY_EPOCH = "sep";
+
+    @Autowired
+    private SecurityEpochService securityEpochService;
+
     @Value("${jwt.secret}")
     private String jwtSecret;
 
     @Value("${jwt.expiration}")
     private int jwtExpirationInMs;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    private Key signingKey;
+
+    private JwtParser jwtParser;
+
+    // Verified claims keyed by token digest, kept until the token's own expiry
+    private BoundedCache<String, Claims> claimsCache;
+
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        jwtParser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        claimsCache = new BoundedCache<>(claimsCacheMaxSize, jwtExpirationInMs);
+    }
+
     public String generateToken(Authentication authentication) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         return generateToken(userDetails);
@@ -31,6 +67,14 @@ public class JwtTokenProvider {
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("roles", userDetails.getAuthorities());
+
+        // Enough to rebuild the principal without a user lookup
+        if (userDetails instanceof UserPrincipal principal) {
+            claims.put(CLAIM_USER_ID, principal.getId());
+            claims.put(CLAIM_ROLE, principal.getRole().name());
+            claims.put(CLAIM_SECURITY_EPOCH, securityEpochService.getEpoch(principal.getId()));
+        }
+
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -43,13 +87,70 @@ public class JwtTokenProvider {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verify a token and return its claims, parsing and checking the signature
+     * only the first time a given token is seen.
+     *
+     * @param token The compact JWT
+     * @return the verified claims, or null if the token is invalid or expired
+     */
+    public Claims getVerifiedClaims(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        String cacheKey = digest(token);
+        Claims claims = claimsCache.get(cacheKey);
+        if (claims != null) {
+            return claims;
+        }
+
+        try {
+            claims = jwtParser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+
+        Date expiration = claims.getExpiration();
+        long expiresAt = expiration != null ? expiration.getTime() : System.currentTimeMillis() + jwtExpirationInMs;
+        claimsCache.put(cacheKey, claims, expiresAt);
+        return claims;
+    }
+
+    public boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(CLAIM_USER_ID) != null
+                && claims.get(CLAIM_ROLE) != null
+                && claims.get(CLAIM_SECURITY_EPOCH) != null;
+    }
+
+    /**
+     * Build the principal straight from verified claims.
+     *
+     * @param claims Verified claims carrying user id, role and security epoch
+     * @return the principal, or null if the token was issued before the user's
+     *         current security epoch (role, status or password changed since)
+     */
+    public UserPrincipal getPrincipalFromClaims(Claims claims) {
+        Long userId = claims.get(CLAIM_USER_ID, Long.class);
+        Long tokenEpoch = claims.get(CLAIM_SECURITY_EPOCH, Long.class);
+
+        if (tokenEpoch == null || tokenEpoch != securityEpochService.getEpoch(userId)) {
+            return null;
+        }
+
+        Role role = Role.valueOf(claims.get(CLAIM_ROLE, String.class));
+        return new UserPrincipal(
+                userId,
+                role,
+                claims.getSubject(),
+                "",
+                true,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()))
+        );
     }
 
     public String getUsernameFromJWT(String token) {
@@ -62,20 +163,16 @@ public class JwtTokenProvider {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = getVerifiedClaims(token);
+        if (claims == null) {
+            // Re-parse so the caller sees the specific parser exception
+            return jwtParser.parseClaimsJws(token).getBody();
+        }
+        return claims;
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(token);
-            return true;
-        } catch (SecurityException | MalformedJwtException | ExpiredJwtException | UnsupportedJwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return getVerifiedClaims(token) != null;
     }
 
     public boolean isTokenExpired(String token) {
@@ -86,4 +183,18 @@ public class JwtTokenProvider {
     private Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
-}
\ No newline at end of file
+
+    public Map<String, Long> getClaimsCacheStats() {
+        return claimsCache.getStats();
+    }
+
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.priacc.hrsystem.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejects login attempts from a client IP that has used up its budget, before
+ * the request reaches the authentication manager, and charges the IP when a
+ * login is answered with 401 (bad credentials).
+ *
+ * Behind the proxy the remote address is the client's, resolved from
+ * X-Forwarded-For by server.forward-headers-strategy=native.
+ */
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final String LOGIN_PATH = "/auth/login";
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !request.getRequestURI().endsWith(LOGIN_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String ip = request.getRemoteAddr();
+        long retryAfterSeconds = loginRateLimiter.checkIp(ip);
+        if (retryAfterSeconds > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType("application/json");
+            response.getWriter().write("{"
+                    + "\"status\": \"error\","
+                    + "\"message\": \"Too many login attempts, try again later\""
+                    + "}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+        if (response.getStatus() == HttpStatus.UNAUTHORIZED.value()) {
+            loginRateLimiter.recordIpFailure(ip);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.priacc.hrsystem.security;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Login attempt limits per client IP and per email address.
+ *
+ * Both checks run before any password hashing, so a rejected attempt costs a
+ * hash lookup rather than a BCrypt round. Only failed logins take a token,
+ * from the IP and from the email, so neither a user who signs in correctly
+ * nor an office signing in together behind one NAT address is locked out;
+ * the IP budget is set well above the per-email one to leave room for typos
+ * across a whole site.
+ */
+@Component
+public class LoginRateLimiter {
+
+    @Value("${app.login-rate-limit.stripes:16}")
+    private int stripes;
+
+    @Value("${app.login-rate-limit.ip.burst:100}")
+    private int ipBurst;
+
+    @Value("${app.login-rate-limit.ip.per-minute:60}")
+    private int ipPerMinute;
+
+    @Value("${app.login-rate-limit.ip.max-keys:100000}")
+    private int ipMaxKeys;
+
+    @Value("${app.login-rate-limit.email.burst:5}")
+    private int emailBurst;
+
+    @Value("${app.login-rate-limit.email.per-minute:5}")
+    private int emailPerMinute;
+
+    @Value("${app.login-rate-limit.email.max-keys:100000}")
+    private int emailMaxKeys;
+
+    private TokenBucketLimiter ipLimiter;
+
+    private TokenBucketLimiter emailLimiter;
+
+    @PostConstruct
+    public void init() {
+        ipLimiter = new TokenBucketLimiter(stripes, ipMaxKeys, ipBurst, ipPerMinute);
+        emailLimiter = new TokenBucketLimiter(stripes, emailMaxKeys, emailBurst, emailPerMinute);
+    }
+
+    /**
+     * @return 0 if the client may attempt a login, otherwise seconds to wait
+     */
+    public long checkIp(String ip) {
+        return toSeconds(ipLimiter.peek(ip));
+    }
+
+    /**
+     * Charge a failed login against the client IP's budget.
+     */
+    public void recordIpFailure(String ip) {
+        ipLimiter.tryAcquire(ip);
+    }
+
+    /**
+     * @return 0 if the account may attempt a login, otherwise seconds to wait
+     */
+    public long checkEmail(String email) {
+        if (email == null) {
+            return 0;
+        }
+        return toSeconds(emailLimiter.peek(normalize(email)));
+    }
+
+    /**
+     * Charge a failed login against the account's budget.
+     */
+    public void recordEmailFailure(String email) {
+        if (email != null) {
+            emailLimiter.tryAcquire(normalize(email));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.login-rate-limit.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        ipLimiter.purgeExpired();
+        emailLimiter.purgeExpired();
+    }
+
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("ip", ipLimiter.getStats());
+        stats.put("email", emailLimiter.getStats());
+        return stats;
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long toSeconds(long waitMillis) {
+        return waitMillis == 0 ? 0 : Math.max(1, (waitMillis + 999) / 1000);
+    }
+}
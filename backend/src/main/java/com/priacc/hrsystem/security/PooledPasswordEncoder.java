@@ -0,0 +1,186 @@
+package com.priacc.hrsystem.security;
+
+import com.priacc.hrsystem.exception.ServiceBusyException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder that runs hashing on a dedicated, size-limited pool instead of
+ * the calling request thread.
+ *
+ * The pool has a bounded queue. When it is full, callers fail fast with
+ * {@link ServiceBusyException} rather than tying up more request threads.
+ * The BCrypt cost is calibrated once at startup to the configured target
+ * latency, and {@link #upgradeEncoding(String)} reports any stored hash with a
+ * lower cost so it is rehashed on the next successful login. Hashes with a
+ * higher cost are left alone, so instances that calibrate to different costs
+ * do not keep rehashing each other's output.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(PooledPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+
+    private final int strength;
+
+    private final ThreadPoolExecutor executor;
+
+    private final long timeoutMs;
+
+    private final long retryAfterSeconds;
+
+    private final LongAdder hashCount = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+
+    public PooledPasswordEncoder(int poolSize, int queueCapacity, long timeoutMs, long retryAfterSeconds,
+                                 int fixedStrength, long targetHashMs, int minStrength, int maxStrength) {
+        this.strength = fixedStrength > 0 ? fixedStrength : calibrate(targetHashMs, minStrength, maxStrength);
+        this.delegate = new BCryptPasswordEncoder(strength);
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+
+        logger.info("Password hashing pool started with {} threads, queue capacity {}, BCrypt cost {}",
+                threads, queueCapacity, strength);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) < strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    public Map<String, Number> getStats() {
+        long count = hashCount.sum();
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("bcryptCost", strength);
+        stats.put("poolSize", executor.getPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("completed", count);
+        stats.put("rejected", rejected.sum());
+        stats.put("averageHashMs", count == 0 ? 0.0 : hashNanos.sum() / (double) count / 1_000_000.0);
+        stats.put("maxHashMs", maxHashNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timed(task));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many concurrent sign-in requests, please retry shortly", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ServiceBusyException("Password verification timed out, please retry shortly", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", cause);
+        }
+    }
+
+    private <T> T timed(Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            hashCount.increment();
+            hashNanos.add(elapsed);
+            maxHashNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    /**
+     * Pick the highest BCrypt cost whose hash time stays within the target.
+     * Each extra cost step doubles the work, so stop as soon as the next step
+     * would overshoot.
+     */
+    private static int calibrate(long targetHashMs, int minStrength, int maxStrength) {
+        // Warm up so the first measurement is not dominated by class loading and JIT
+        new BCryptPasswordEncoder(minStrength).encode("calibration");
+
+        int chosen = minStrength;
+        for (int cost = minStrength; cost <= maxStrength; cost++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(cost).encode("calibration");
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            if (elapsedMs > targetHashMs && cost > minStrength) {
+                break;
+            }
+            chosen = cost;
+            if (elapsedMs * 2 > targetHashMs) {
+                break;
+            }
+        }
+
+        logger.info("Calibrated BCrypt cost {} for a target of {} ms", chosen, targetHashMs);
+        return chosen;
+    }
+}
@@ -0,0 +1,168 @@
+package com.priacc.hrsystem.security;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token bucket limiter keyed by an arbitrary string.
+ *
+ * Each bucket is stored as a single "theoretical arrival time" (GCRA), so
+ * taking a token is one compare-and-set on an {@link AtomicLong}. Buckets are
+ * spread over independent stripes, each with its own key budget. A bucket
+ * that has refilled completely holds no state worth keeping, so
+ * {@link #purgeExpired()} drops it. When a stripe is full even after a sweep,
+ * new keys are rejected so memory stays bounded under a flood of distinct keys.
+ */
+public class TokenBucketLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong>[] stripes;
+    private final AtomicInteger[] stripeSizes;
+    private final int maxKeysPerStripe;
+    private final long emissionIntervalNanos;
+    private final long burstWindowNanos;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketLimiter(int stripeCount, int maxKeys, int burst, int refillPerMinute) {
+        if (burst <= 0 || refillPerMinute <= 0) {
+            throw new IllegalArgumentException("Burst and refill rate must be positive");
+        }
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1);
+        this.stripes = new ConcurrentHashMap[count];
+        this.stripeSizes = new AtomicInteger[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ConcurrentHashMap<>();
+            stripeSizes[i] = new AtomicInteger();
+        }
+        this.maxKeysPerStripe = Math.max(1, maxKeys / count);
+        this.emissionIntervalNanos = 60_000_000_000L / refillPerMinute;
+        this.burstWindowNanos = emissionIntervalNanos * burst;
+    }
+
+    /**
+     * Take one token for the key.
+     *
+     * @return 0 if the attempt is allowed, otherwise the number of milliseconds
+     *         until the next token is available
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = bucketFor(key, now);
+        if (bucket == null) {
+            overflows.increment();
+            rejected.increment();
+            return Math.max(1, emissionIntervalNanos / 1_000_000);
+        }
+
+        while (true) {
+            long tat = bucket.get();
+            long newTat = Math.max(tat, now) + emissionIntervalNanos;
+            long excess = newTat - now - burstWindowNanos;
+            if (excess > 0) {
+                rejected.increment();
+                return Math.max(1, excess / 1_000_000);
+            }
+            if (bucket.compareAndSet(tat, newTat)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Check whether the key has a token left without taking it.
+     *
+     * @return 0 if an attempt would be allowed, otherwise the number of
+     *         milliseconds until the next token is available
+     */
+    public long peek(String key) {
+        AtomicLong bucket = stripes[spread(key.hashCode()) & (stripes.length - 1)].get(key);
+        if (bucket == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        long excess = Math.max(bucket.get(), now) + emissionIntervalNanos - now - burstWindowNanos;
+        if (excess > 0) {
+            rejected.increment();
+            return Math.max(1, excess / 1_000_000);
+        }
+        return 0;
+    }
+
+    /**
+     * Drop buckets that have refilled completely. Returns the number removed.
+     */
+    public int purgeExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (int i = 0; i < stripes.length; i++) {
+            removed += purgeStripe(i, now);
+        }
+        return removed;
+    }
+
+    public int size() {
+        int size = 0;
+        for (AtomicInteger stripeSize : stripeSizes) {
+            size += stripeSize.get();
+        }
+        return size;
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("keys", (long) size());
+        stats.put("maxKeys", (long) maxKeysPerStripe * stripes.length);
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("overflows", overflows.sum());
+        return stats;
+    }
+
+    private AtomicLong bucketFor(String key, long now) {
+        int index = spread(key.hashCode()) & (stripes.length - 1);
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[index];
+
+        AtomicLong bucket = stripe.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+
+        if (stripeSizes[index].get() >= maxKeysPerStripe && purgeStripe(index, now) == 0) {
+            return null;
+        }
+
+        // A fresh bucket starts full: its arrival time is already in the past
+        AtomicLong created = new AtomicLong(now - burstWindowNanos);
+        AtomicLong existing = stripe.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        stripeSizes[index].incrementAndGet();
+        return created;
+    }
+
+    private int purgeStripe(int index, long now) {
+        int removed = 0;
+        ConcurrentHashMap<String, AtomicLong> stripe = stripes[index];
+        for (Map.Entry<String, AtomicLong> entry : stripe.entrySet()) {
+            AtomicLong bucket = entry.getValue();
+            if (bucket.get() <= now && stripe.remove(entry.getKey(), bucket)) {
+                removed++;
+            }
+        }
+        stripeSizes[index].addAndGet(-removed);
+        return removed;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,35 @@
+package com.priacc.hrsystem.security;
+
+import com.priacc.hrsystem.model.Role;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Spring Security principal that also carries the application user id and role,
+ * so callers holding an Authentication do not need to look the user up again.
+ */
+public class UserPrincipal extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+
+    private final Role role;
+
+    public UserPrincipal(Long id, Role role, String email, String password, boolean enabled,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, enabled, true, true, true, authorities);
+        this.id = id;
+        this.role = role;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+}
@@ -1,5 +1,9 @@
 package com.priacc.hrsystem.security;
 
+import com.priacc.hrsystem.repository.AttendanceRepository;
+import com.priacc.hrsystem.repository.LeaveRepository;
+import com.priacc.hrsystem.service.OrgHierarchyIndex;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -7,50 +11,99 @@ import org.springframework.stereotype.Component;
 @Component("userSecurity")
 public class UserSecurity {
 
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private LeaveRepository leaveRepository;
+
     /**
      * Check if the current authenticated user is the user with the given ID
-     * 
+     *
      * @param userId The ID of the user to check against
      * @return true if the current user is the user with the given ID, false otherwise
      */
     public boolean isCurrentUser(Long userId) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            return false;
-        }
-        
-        // Get the user ID from the principal
-        Object principal = authentication.getPrincipal();
-        if (principal instanceof org.springframework.security.core.userdetails.User) {
-            // The username is the email, so we need to get the user ID from the database
-            // This is handled by the @PreAuthorize annotation in the controller
-            return true;
-        }
-        
-        return false;
+        UserPrincipal principal = getCurrentPrincipal();
+        return principal != null && userId != null && userId.equals(principal.getId());
+    }
+
+    /**
+     * Check if the current authenticated user is linked to the employee with the given ID
+     *
+     * @param employeeId The ID of the employee to check against
+     * @return true if the employee record belongs to the current user, false otherwise
+     */
+    public boolean isCurrentEmployee(Long employeeId) {
+        Long currentEmployeeId = getCurrentEmployeeId();
+        return currentEmployeeId != null && currentEmployeeId.equals(employeeId);
     }
-    
+
     /**
      * Check if the current authenticated user is a manager of the employee with the given ID
-     * 
+     *
      * @param employeeId The ID of the employee to check against
-     * @return true if the current user is a manager of the employee, false otherwise
+     * @return true if the current user is anywhere in the employee's reporting chain, false otherwise
      */
     public boolean isManager(Long employeeId) {
-        // This would require a service call to check if the current user is a manager of the employee
-        // For simplicity, we'll just return false here
-        return false;
+        return orgHierarchyIndex.isInReportingChain(getCurrentEmployeeId(), employeeId);
     }
-    
+
     /**
      * Check if the current authenticated user is in the same department as the employee with the given ID
-     * 
+     *
      * @param employeeId The ID of the employee to check against
      * @return true if the current user is in the same department as the employee, false otherwise
      */
     public boolean isInSameDepartment(Long employeeId) {
-        // This would require a service call to check if the current user is in the same department as the employee
-        // For simplicity, we'll just return false here
-        return false;
+        return orgHierarchyIndex.isSameDepartment(getCurrentEmployeeId(), employeeId);
+    }
+
+    /**
+     * Check if the attendance record with the given ID belongs to the current user
+     */
+    public boolean ownsAttendance(Long attendanceId) {
+        Long currentEmployeeId = getCurrentEmployeeId();
+        return currentEmployeeId != null && attendanceRepository.findEmployeeIdById(attendanceId)
+                .map(currentEmployeeId::equals)
+                .orElse(false);
+    }
+
+    /**
+     * Check if the leave request with the given ID belongs to the current user
+     */
+    public boolean ownsLeave(Long leaveId) {
+        Long currentEmployeeId = getCurrentEmployeeId();
+        return currentEmployeeId != null && leaveRepository.findEmployeeIdById(leaveId)
+                .map(currentEmployeeId::equals)
+                .orElse(false);
+    }
+
+    /**
+     * Check if the current user is in the reporting chain of the employee who requested the given leave
+     */
+    public boolean managesLeave(Long leaveId) {
+        Long currentEmployeeId = getCurrentEmployeeId();
+        return currentEmployeeId != null && leaveRepository.findEmployeeIdById(leaveId)
+                .map(employeeId -> orgHierarchyIndex.isInReportingChain(currentEmployeeId, employeeId))
+                .orElse(false);
+    }
+
+    private Long getCurrentEmployeeId() {
+        UserPrincipal principal = getCurrentPrincipal();
+        return principal != null ? orgHierarchyIndex.getEmployeeIdForUser(principal.getId()) : null;
+    }
+
+    private UserPrincipal getCurrentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+
+        Object principal = authentication.getPrincipal();
+        return principal instanceof UserPrincipal userPrincipal ? userPrincipal : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,239 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.AttendanceCloseOutDto;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.exception.ServiceBusyException;
+import com.priacc.hrsystem.model.AttendanceCloseOut;
+import com.priacc.hrsystem.repository.AttendanceCloseOutRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Nightly close-out of a day's attendance.
+ *
+ * For every employee active on the day it closes check-ins nobody checked
+ * out of, recomputes work hours, and creates the missing rows: HOLIDAY or
+ * WEEKEND by the work calendar of the employee's department, LEAVE for
+ * approved leave, otherwise ABSENT. Existing rows are
+ * never overwritten, so running a day twice changes nothing.
+ *
+ * Employees are split into id ranges that are closed one after another, each
+ * range with three set-based statements in its own transaction. Ranges are
+ * not run in parallel: every range updates the same department rollup rows
+ * through the attendances trigger, and concurrent ranges deadlock on them.
+ * The checkpoint records the highest id below which every range is done; an
+ * interrupted run resumes from there.
+ */
+@Service
+public class AttendanceCloseOutService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceCloseOutService.class);
+
+    private static final String AUTO_CLOSED_NOTE = "Check-out closed automatically";
+
+    // Upper ids of consecutive ranges of the given size
+    private static final String CHUNK_BOUNDS_SQL = "SELECT id FROM (SELECT id, row_number() OVER (ORDER BY id) AS rn "
+            + "FROM employees WHERE id > ?) t WHERE rn % ? = 0 ORDER BY id";
+
+    // Someone still on a break is taken to have left when the break started
+    private static final String CLOSE_OPEN_SQL = "UPDATE attendances SET "
+            + "check_out_time = CASE WHEN break_start_time IS NOT NULL AND break_end_time IS NULL "
+            + "THEN break_start_time ELSE GREATEST(check_in_time, CAST(? AS time)) END, "
+            + "break_end_time = CASE WHEN break_start_time IS NOT NULL AND break_end_time IS NULL "
+            + "THEN break_start_time ELSE break_end_time END, "
+            + "notes = LEFT(CONCAT_WS('; ', NULLIF(notes, ''), '" + AUTO_CLOSED_NOTE + "'), 500), "
+            + "updated_at = now() "
+            + "WHERE date = ? AND employee_id > ? AND employee_id <= ? "
+            + "AND check_in_time IS NOT NULL AND check_out_time IS NULL";
+
+    // Whole minutes, the same as the check-out endpoints
+    private static final String WORK_HOURS_EXPR = "FLOOR(EXTRACT(EPOCH FROM (check_out_time - check_in_time) "
+            + "- COALESCE(break_end_time - break_start_time, INTERVAL '0')) / 60) / 60.0";
+
+    private static final String RECOMPUTE_HOURS_SQL = "UPDATE attendances SET work_hours = " + WORK_HOURS_EXPR + ", "
+            + "updated_at = now() "
+            + "WHERE date = ? AND employee_id > ? AND employee_id <= ? "
+            + "AND check_in_time IS NOT NULL AND check_out_time IS NOT NULL "
+            + "AND work_hours IS DISTINCT FROM " + WORK_HOURS_EXPR;
+
+    private static final String CALENDAR_OF_EMPLOYEE = "COALESCE(d.work_calendar_id, :defaultCalendarId)";
+
+    private static final String FILL_MISSING_SQL = "INSERT INTO attendances (employee_id, date, status, work_hours, "
+            + "created_at, updated_at) "
+            + "SELECT e.id, :date, CASE WHEN " + CALENDAR_OF_EMPLOYEE + " IN (:holidayCalendarIds) THEN 'HOLIDAY' "
+            + "WHEN " + CALENDAR_OF_EMPLOYEE + " IN (:weekendCalendarIds) THEN 'WEEKEND' "
+            + "WHEN EXISTS (SELECT 1 FROM leaves l WHERE l.employee_id = e.id AND l.status IN ('APPROVED', 'TAKEN') "
+            + "AND :date BETWEEN l.start_date AND l.end_date) THEN 'LEAVE' ELSE 'ABSENT' END, 0, now(), now() "
+            + "FROM employees e LEFT JOIN departments d ON d.id = e.department_id "
+            + "WHERE e.id > :fromId AND e.id <= :toId AND e.status = 'ACTIVE' AND e.join_date <= :date "
+            + "AND (e.termination_date IS NULL OR e.termination_date >= :date) "
+            + "ON CONFLICT (employee_id, date) DO NOTHING";
+
+    // Stands in for an empty id list, which IN () does not accept
+    private static final List<Long> NO_CALENDARS = List.of(-1L);
+
+    @Autowired
+    private AttendanceCloseOutRepository attendanceCloseOutRepository;
+
+    @Autowired
+    private AttendanceCube attendanceCube;
+
+    @Autowired
+    private WorkingCalendar workingCalendar;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.attendance.close-out.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.attendance.close-out.chunk-size:2000}")
+    private int chunkSize;
+
+    @Value("${app.attendance.close-out.max-catch-up-days:7}")
+    private int maxCatchUpDays;
+
+    @Value("${app.attendance.close-out.default-check-out:18:00}")
+    private String defaultCheckOut;
+
+    private final ReentrantLock running = new ReentrantLock();
+
+    private LocalTime defaultCheckOutTime;
+
+    @PostConstruct
+    public void init() {
+        defaultCheckOutTime = LocalTime.parse(defaultCheckOut);
+    }
+
+    /**
+     * Close out every day since the last completed one, up to yesterday.
+     */
+    @Scheduled(cron = "${app.attendance.close-out.cron:0 15 0 * * *}")
+    public void closeOutPendingDays() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate from = attendanceCloseOutRepository.findFirstByCompletedTrueOrderByDateDesc()
+                .map(last -> last.getDate().plusDays(1))
+                .orElse(yesterday);
+        if (from.isBefore(yesterday.minusDays(maxCatchUpDays - 1))) {
+            logger.warn("Attendance close-out is behind since {}; only the last {} days are closed", from, maxCatchUpDays);
+            from = yesterday.minusDays(maxCatchUpDays - 1);
+        }
+        for (LocalDate date = from; !date.isAfter(yesterday); date = date.plusDays(1)) {
+            try {
+                closeOut(date);
+            } catch (RuntimeException e) {
+                logger.error("Attendance close-out for {} failed; it resumes on the next run", date, e);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Close out one past day, resuming from its checkpoint. A completed day
+     * is run again from the start, which only picks up what changed since.
+     */
+    public AttendanceCloseOutDto closeOut(LocalDate date) {
+        if (!date.isBefore(LocalDate.now())) {
+            throw new BadRequestException("Only past days can be closed out");
+        }
+        if (!running.tryLock()) {
+            throw new ServiceBusyException("An attendance close-out is already running", 60);
+        }
+        try {
+            return AttendanceCloseOutDto.fromEntity(run(date));
+        } finally {
+            running.unlock();
+        }
+    }
+
+    public List<AttendanceCloseOutDto> getRecentCloseOuts() {
+        return attendanceCloseOutRepository.findTop31ByOrderByDateDesc().stream()
+                .map(AttendanceCloseOutDto::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private AttendanceCloseOut run(LocalDate date) {
+        AttendanceCloseOut checkpoint = attendanceCloseOutRepository.findById(date)
+                .filter(existing -> !existing.isCompleted())
+                .orElseGet(() -> new AttendanceCloseOut(date, 0L, false, 0, 0, LocalDateTime.now(), null));
+        checkpoint = attendanceCloseOutRepository.save(checkpoint);
+        long started = System.currentTimeMillis();
+
+        MapSqlParameterSource calendars = new MapSqlParameterSource()
+                .addValue("defaultCalendarId", workingCalendar.getDefaultCalendarId())
+                .addValue("holidayCalendarIds", orNone(workingCalendar.getCalendarIds(date, WorkingCalendar.DayKind.HOLIDAY)))
+                .addValue("weekendCalendarIds", orNone(workingCalendar.getCalendarIds(date, WorkingCalendar.DayKind.WEEKEND)));
+
+        List<Long> bounds = new ArrayList<>(jdbcTemplate.queryForList(CHUNK_BOUNDS_SQL, Long.class,
+                checkpoint.getLastEmployeeId(), chunkSize));
+        bounds.add(Long.MAX_VALUE);
+
+        // Advance the checkpoint as each range finishes
+        long lower = checkpoint.getLastEmployeeId();
+        for (int i = 0; i < bounds.size(); i++) {
+            long upper = bounds.get(i);
+            long[] counts = closeOutChunk(date, lower, upper, calendars);
+            checkpoint.setInsertedCount(checkpoint.getInsertedCount() + counts[0]);
+            checkpoint.setClosedCount(checkpoint.getClosedCount() + counts[1]);
+            if (i < bounds.size() - 1) {
+                checkpoint.setLastEmployeeId(upper);
+                checkpoint = attendanceCloseOutRepository.save(checkpoint);
+            }
+            lower = upper;
+        }
+
+        attendanceCube.reload(date, date);
+
+        checkpoint.setCompleted(true);
+        checkpoint.setCompletedAt(LocalDateTime.now());
+        checkpoint = attendanceCloseOutRepository.save(checkpoint);
+        logger.info("Closed out attendance for {} in {} ms: {} rows added, {} check-outs closed", date,
+                System.currentTimeMillis() - started, checkpoint.getInsertedCount(), checkpoint.getClosedCount());
+        return checkpoint;
+    }
+
+    // Employees with fromId < id <= toId; returns {rows inserted, check-outs closed}
+    private long[] closeOutChunk(LocalDate date, long fromId, long toId, MapSqlParameterSource calendars) {
+        Date day = Date.valueOf(date);
+        MapSqlParameterSource params = new MapSqlParameterSource(calendars.getValues())
+                .addValue("date", day)
+                .addValue("fromId", fromId)
+                .addValue("toId", toId);
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            int closed = jdbcTemplate.update(CLOSE_OPEN_SQL, Time.valueOf(defaultCheckOutTime), day, fromId, toId);
+            jdbcTemplate.update(RECOMPUTE_HOURS_SQL, day, fromId, toId);
+            int inserted = new NamedParameterJdbcTemplate(jdbcTemplate).update(FILL_MISSING_SQL, params);
+            return new long[]{inserted, closed};
+        });
+    }
+
+    private static List<Long> orNone(List<Long> calendarIds) {
+        return calendarIds.isEmpty() ? NO_CALENDARS : calendarIds;
+    }
+}
@@ -0,0 +1,569 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.AttendanceCubeRow;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.model.Attendance;
+import com.priacc.hrsystem.model.Employee;
+import com.priacc.hrsystem.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar in-memory copy of attendance for analytics.
+ *
+ * Each employee gets a dense slot holding one status byte and one work-hours
+ * float per day since the start of the history window, plus the employee's
+ * department and position. A range aggregation is a scan over primitive
+ * arrays, split across slots with a parallel stream. Grouping uses the
+ * employee's current department and position.
+ *
+ * The cube is loaded at startup and reloaded weekly, which also moves the
+ * history window forward. In between it follows today's changes through
+ * {@link AttendanceDayState} events, edits and deletes through
+ * {@link #onSaved(Attendance)} and {@link #onDeleted(Attendance)}, and bulk
+ * writers through {@link #reload(LocalDate, LocalDate)}. Loads and reloads
+ * read the database without holding the lock, so queries keep running; the
+ * result is swapped in under a brief write lock, and changes made during the
+ * read are replayed onto it first.
+ */
+@Component
+public class AttendanceCube {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceCube.class);
+
+    public enum Dimension {
+        DEPARTMENT,
+        POSITION,
+        STATUS,
+        MONTH
+    }
+
+    private static final Attendance.AttendanceStatus[] STATUSES = Attendance.AttendanceStatus.values();
+    // Status byte for a day without an attendance row; otherwise the status ordinal + 1
+    private static final byte NO_RECORD = 0;
+    private static final long NONE = 0L;
+
+    private static final String ROWS_SQL = "SELECT employee_id, date, status, work_hours FROM attendances "
+            + "WHERE date >= ? AND date <= ?";
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.attendance.history-days:730}")
+    private int historyDays;
+
+    // Days allocated past today, and added when a write lands beyond them; the weekly reload
+    // moves the window forward, so a few weeks are enough
+    @Value("${app.analytics.attendance.spare-days:28}")
+    private int spareDays;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    // Cells are written under the read lock; swapping or restructuring them takes the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Cells cells = new Cells(LocalDate.now(), 0, 0, 0);
+
+    // Non-null while a scan runs outside the lock; changes made meanwhile are replayed onto its result
+    private volatile Queue<Consumer<Cells>> changesDuringScan;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.analytics.attendance.reload-cron:0 30 3 * * SUN}")
+    public synchronized void load() {
+        long started = System.currentTimeMillis();
+        Queue<Consumer<Cells>> changes = startScan();
+        Cells loaded;
+        long rows;
+        try {
+            List<Object[]> employees = employeeRepository.findAnalyticsRows();
+            loaded = new Cells(LocalDate.now().minusDays(historyDays - 1L), historyDays + spareDays, spareDays,
+                    employees.size());
+            for (Object[] row : employees) {
+                loaded.applyEmployee((Long) row[0], (Long) row[1], (Long) row[2]);
+            }
+            rows = scan(loaded.origin, loaded.origin.plusDays(loaded.days - 1L), loaded::put);
+        } catch (RuntimeException e) {
+            changesDuringScan = null;
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            finishScan(changes, loaded);
+            cells = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Attendance cube loaded {} rows for {} employees since {} in {} ms", rows, loaded.slotCount,
+                loaded.origin, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Re-read every row between the two dates, for writers that changed
+     * attendance in bulk.
+     */
+    public synchronized void reload(LocalDate from, LocalDate to) {
+        Queue<Consumer<Cells>> changes = startScan();
+        RowBuffer buffer = new RowBuffer();
+        try {
+            scan(from, to, buffer::add);
+        } catch (RuntimeException e) {
+            changesDuringScan = null;
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            cells.clear(from, to);
+            buffer.applyTo(cells);
+            finishScan(changes, cells);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Record a changed attendance row once the surrounding transaction commits.
+     */
+    public void onSaved(Attendance attendance) {
+        Long employeeId = attendance.getEmployee().getId();
+        LocalDate date = attendance.getDate();
+        Attendance.AttendanceStatus status = attendance.getStatus();
+        float workHours = (float) attendance.getWorkHours();
+        AfterCommit.run(() -> set(employeeId, date, statusByte(status), workHours));
+    }
+
+    public void onDeleted(Attendance attendance) {
+        Long employeeId = attendance.getEmployee().getId();
+        LocalDate date = attendance.getDate();
+        AfterCommit.run(() -> set(employeeId, date, NO_RECORD, 0f));
+    }
+
+    @EventListener
+    public void onEntryChanged(AttendanceDayState.EntryChanged event) {
+        AttendanceDayState.Entry entry = event.entry();
+        if (entry == null) {
+            set(event.employeeId(), event.date(), NO_RECORD, 0f);
+        } else {
+            set(event.employeeId(), event.date(), statusByte(entry.status()), (float) entry.workHours());
+        }
+    }
+
+    /**
+     * Record the current department and position of an employee once the
+     * surrounding transaction commits.
+     */
+    public void onEmployeeSaved(Employee employee) {
+        Long employeeId = employee.getId();
+        Long departmentId = employee.getDepartment() != null ? employee.getDepartment().getId() : null;
+        Long positionId = employee.getPosition() != null ? employee.getPosition().getId() : null;
+        AfterCommit.run(() -> structural(target -> target.applyEmployee(employeeId, departmentId, positionId)));
+    }
+
+    public void onEmployeeDeleted(Long employeeId) {
+        AfterCommit.run(() -> structural(target -> target.removeEmployee(employeeId)));
+    }
+
+    /**
+     * Re-read department and position of every employee, for bulk employee writers.
+     */
+    public void refreshEmployees() {
+        List<Object[]> employees = employeeRepository.findAnalyticsRows();
+        structural(target -> {
+            for (Object[] row : employees) {
+                target.applyEmployee((Long) row[0], (Long) row[1], (Long) row[2]);
+            }
+        });
+    }
+
+    /**
+     * Count attendance days and sum work hours between two dates, grouped by
+     * the given dimensions. Filters are optional.
+     */
+    public List<AttendanceCubeRow> query(LocalDate startDate, LocalDate endDate, Set<Dimension> groupBy,
+                                         Set<Attendance.AttendanceStatus> statusFilter, Long departmentId,
+                                         Long positionId) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new BadRequestException("endDate must not be before startDate");
+        }
+        boolean byDepartment = groupBy.contains(Dimension.DEPARTMENT);
+        boolean byPosition = groupBy.contains(Dimension.POSITION);
+        boolean byStatus = groupBy.contains(Dimension.STATUS);
+        boolean byMonth = groupBy.contains(Dimension.MONTH);
+
+        boolean[] included = new boolean[STATUSES.length + 1];
+        for (Attendance.AttendanceStatus status : STATUSES) {
+            included[statusByte(status)] = statusFilter == null || statusFilter.isEmpty() || statusFilter.contains(status);
+        }
+
+        lock.readLock().lock();
+        try {
+            Cells c = cells;
+            if (startDate.isBefore(c.origin)) {
+                throw new BadRequestException("Attendance analytics cover dates from " + c.origin);
+            }
+            int start = c.dayIndex(startDate);
+            int end = Math.min(c.days - 1, c.dayIndex(endDate));
+            if (start > end) {
+                return new ArrayList<>();
+            }
+
+            YearMonth firstMonth = YearMonth.from(startDate);
+            int[] monthOfDay = new int[end - start + 1];
+            for (int i = 0; i < monthOfDay.length; i++) {
+                monthOfDay[i] = byMonth ? (int) ChronoUnit.MONTHS.between(firstMonth, YearMonth.from(startDate.plusDays(i))) : 0;
+            }
+            int months = monthOfDay[monthOfDay.length - 1] + 1;
+            int cells = months * included.length;
+
+            Map<Key, double[]> groups = IntStream.range(0, c.slotCount).parallel().collect(HashMap::new, (map, slot) -> {
+                byte[] slotStatuses = c.statuses[slot];
+                if (slotStatuses == null
+                        || (departmentId != null && c.departmentIds[slot] != departmentId)
+                        || (positionId != null && c.positionIds[slot] != positionId)) {
+                    return;
+                }
+                float[] slotHours = c.hours[slot];
+
+                // Tally this employee into month x status cells, then fold the cells into the groups
+                long[] counts = new long[cells];
+                double[] sums = new double[cells];
+                boolean any = false;
+                for (int day = start; day <= end; day++) {
+                    int status = slotStatuses[day];
+                    if (status != NO_RECORD && included[status]) {
+                        int cell = monthOfDay[day - start] * included.length + status;
+                        counts[cell]++;
+                        sums[cell] += slotHours[day];
+                        any = true;
+                    }
+                }
+                if (!any) {
+                    return;
+                }
+                for (int cell = 0; cell < cells; cell++) {
+                    if (counts[cell] == 0) {
+                        continue;
+                    }
+                    Key key = new Key(byDepartment ? c.departmentIds[slot] : -1, byPosition ? c.positionIds[slot] : -1,
+                            byStatus ? cell % included.length : -1, byMonth ? cell / included.length : -1);
+                    double[] totals = map.computeIfAbsent(key, k -> new double[2]);
+                    totals[0] += counts[cell];
+                    totals[1] += sums[cell];
+                }
+            }, (left, right) -> right.forEach((key, totals) -> left.merge(key, totals, (a, b) -> {
+                a[0] += b[0];
+                a[1] += b[1];
+                return a;
+            })));
+
+            List<AttendanceCubeRow> rows = new ArrayList<>(groups.size());
+            groups.forEach((key, totals) -> rows.add(new AttendanceCubeRow(
+                    key.department > 0 ? key.department : null,
+                    key.position > 0 ? key.position : null,
+                    key.status > 0 ? STATUSES[key.status - 1] : null,
+                    key.month >= 0 ? firstMonth.plusMonths(key.month).toString() : null,
+                    (long) totals[0], totals[1])));
+            rows.sort(Comparator.comparing(AttendanceCubeRow::getMonth, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(AttendanceCubeRow::getDepartmentId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(AttendanceCubeRow::getPositionId, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(AttendanceCubeRow::getStatus, Comparator.nullsFirst(Comparator.naturalOrder())));
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Cells c = cells;
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("employees", c.slotsByEmployeeId.size());
+            stats.put("from", c.origin.toString());
+            stats.put("to", c.origin.plusDays(c.days - 1L).toString());
+            stats.put("bytes", (long) c.slotsByEmployeeId.size() * c.days * (Byte.BYTES + Float.BYTES));
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void set(Long employeeId, LocalDate date, byte status, float workHours) {
+        if (date == null) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            Cells c = cells;
+            int day = c.dayIndex(date);
+            if (day < 0) {
+                return;
+            }
+            Integer slot = c.slotsByEmployeeId.get(employeeId);
+            if (slot != null && day < c.days) {
+                c.statuses[slot][day] = status;
+                c.hours[slot][day] = workHours;
+                recordForScan(target -> target.put(employeeId, date, status, workHours));
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // New employee or a date past the window: needs the write lock
+        structural(target -> target.put(employeeId, date, status, workHours));
+    }
+
+    private void structural(Consumer<Cells> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(cells);
+            recordForScan(change);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller must hold the read or write lock
+    private void recordForScan(Consumer<Cells> change) {
+        Queue<Consumer<Cells>> changes = changesDuringScan;
+        if (changes != null) {
+            changes.add(change);
+        }
+    }
+
+    private Queue<Consumer<Cells>> startScan() {
+        Queue<Consumer<Cells>> changes = new ConcurrentLinkedQueue<>();
+        lock.writeLock().lock();
+        try {
+            changesDuringScan = changes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return changes;
+    }
+
+    // Caller must hold the write lock, so no change is in flight
+    private void finishScan(Queue<Consumer<Cells>> changes, Cells target) {
+        changesDuringScan = null;
+        for (Consumer<Cells> change : changes) {
+            change.accept(target);
+        }
+    }
+
+    // Streams the rows in a read-only transaction so the driver uses a cursor; runs without the lock
+    private long scan(LocalDate from, LocalDate to, RowHandler handler) {
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(fetchSize);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        long[] count = {0};
+        transaction.executeWithoutResult(status -> cursor.query(ROWS_SQL, (ResultSet rs) -> {
+            String rowStatus = rs.getString(3);
+            handler.accept(rs.getLong(1), rs.getObject(2, LocalDate.class),
+                    rowStatus != null ? statusByte(Attendance.AttendanceStatus.valueOf(rowStatus)) : NO_RECORD,
+                    rs.getFloat(4));
+            count[0]++;
+        }, Date.valueOf(from), Date.valueOf(to)));
+        return count[0];
+    }
+
+    private static byte statusByte(Attendance.AttendanceStatus status) {
+        return status != null ? (byte) (status.ordinal() + 1) : NO_RECORD;
+    }
+
+    private record Key(long department, long position, int status, int month) {
+    }
+
+    @FunctionalInterface
+    private interface RowHandler {
+        void accept(long employeeId, LocalDate date, byte status, float workHours);
+    }
+
+    /**
+     * One status byte and one work-hours float per employee slot and day since {@code origin}.
+     */
+    private static final class Cells {
+
+        final LocalDate origin;
+        final int spareDays;
+        int days;
+        final Map<Long, Integer> slotsByEmployeeId = new HashMap<>();
+        final Deque<Integer> freeSlots = new ArrayDeque<>();
+        long[] employeeIds;
+        long[] departmentIds;
+        long[] positionIds;
+        byte[][] statuses;
+        float[][] hours;
+        int slotCount;
+
+        Cells(LocalDate origin, int days, int spareDays, int expectedEmployees) {
+            this.origin = origin;
+            this.days = days;
+            this.spareDays = spareDays;
+            int capacity = Math.max(16, expectedEmployees + expectedEmployees / 4);
+            employeeIds = new long[capacity];
+            departmentIds = new long[capacity];
+            positionIds = new long[capacity];
+            statuses = new byte[capacity][];
+            hours = new float[capacity][];
+        }
+
+        int dayIndex(LocalDate date) {
+            return (int) ChronoUnit.DAYS.between(origin, date);
+        }
+
+        void put(long employeeId, LocalDate date, byte status, float workHours) {
+            int day = dayIndex(date);
+            if (day < 0) {
+                return;
+            }
+            if (day >= days) {
+                growDays(day + 1);
+            }
+            Integer slot = slotsByEmployeeId.get(employeeId);
+            int target = slot != null ? slot : applyEmployee(employeeId, null, null);
+            statuses[target][day] = status;
+            hours[target][day] = workHours;
+        }
+
+        void clear(LocalDate from, LocalDate to) {
+            int start = Math.max(0, dayIndex(from));
+            int end = Math.min(days - 1, dayIndex(to));
+            if (start > end) {
+                return;
+            }
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (statuses[slot] != null) {
+                    Arrays.fill(statuses[slot], start, end + 1, NO_RECORD);
+                    Arrays.fill(hours[slot], start, end + 1, 0f);
+                }
+            }
+        }
+
+        int applyEmployee(Long employeeId, Long departmentId, Long positionId) {
+            Integer existing = slotsByEmployeeId.get(employeeId);
+            int slot;
+            if (existing != null) {
+                slot = existing;
+            } else {
+                if (!freeSlots.isEmpty()) {
+                    slot = freeSlots.pop();
+                } else {
+                    if (slotCount == employeeIds.length) {
+                        growSlots();
+                    }
+                    slot = slotCount++;
+                }
+                employeeIds[slot] = employeeId;
+                statuses[slot] = new byte[days];
+                hours[slot] = new float[days];
+                slotsByEmployeeId.put(employeeId, slot);
+            }
+            departmentIds[slot] = departmentId != null ? departmentId : NONE;
+            positionIds[slot] = positionId != null ? positionId : NONE;
+            return slot;
+        }
+
+        void removeEmployee(Long employeeId) {
+            Integer slot = slotsByEmployeeId.remove(employeeId);
+            if (slot != null) {
+                employeeIds[slot] = NONE;
+                statuses[slot] = null;
+                hours[slot] = null;
+                freeSlots.push(slot);
+            }
+        }
+
+        private void growSlots() {
+            int capacity = Math.max(16, employeeIds.length * 2);
+            employeeIds = Arrays.copyOf(employeeIds, capacity);
+            departmentIds = Arrays.copyOf(departmentIds, capacity);
+            positionIds = Arrays.copyOf(positionIds, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            hours = Arrays.copyOf(hours, capacity);
+        }
+
+        private void growDays(int minDays) {
+            days = minDays + spareDays;
+            for (int slot = 0; slot < slotCount; slot++) {
+                if (statuses[slot] != null) {
+                    statuses[slot] = Arrays.copyOf(statuses[slot], days);
+                    hours[slot] = Arrays.copyOf(hours[slot], days);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows read by a range reload, held until they can be applied under the lock.
+     */
+    private static final class RowBuffer {
+
+        long[] employeeIds = new long[1024];
+        LocalDate[] dates = new LocalDate[1024];
+        byte[] statuses = new byte[1024];
+        float[] hours = new float[1024];
+        int size;
+
+        void add(long employeeId, LocalDate date, byte status, float workHours) {
+            if (size == employeeIds.length) {
+                int capacity = size * 2;
+                employeeIds = Arrays.copyOf(employeeIds, capacity);
+                dates = Arrays.copyOf(dates, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                hours = Arrays.copyOf(hours, capacity);
+            }
+            employeeIds[size] = employeeId;
+            dates[size] = date;
+            statuses[size] = status;
+            hours[size] = workHours;
+            size++;
+        }
+
+        void applyTo(Cells cells) {
+            for (int i = 0; i < size; i++) {
+                cells.put(employeeIds[i], dates[i], statuses[i], hours[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.AttendanceDto;
+import com.priacc.hrsystem.model.Attendance;
+import com.priacc.hrsystem.repository.AttendanceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Today's attendance rows, keyed by employee.
+ *
+ * Break and check-out requests validate the transition against this state
+ * instead of reloading the row, and "who is in right now" is answered from
+ * it. The state is loaded at startup, replaced at midnight and reloaded
+ * lazily if a request sees that the date has rolled over. Writers update it
+ * after their transaction commits; a writer that loses a race on the
+ * database's guarded update reloads the affected employee instead.
+ *
+ * Every change is published as an {@link EntryChanged} event, and every new
+ * day as a {@link DayLoaded} event, for in-memory views derived from it.
+ */
+@Component
+public class AttendanceDayState {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceDayState.class);
+
+    public enum Phase {
+        NOT_CHECKED_IN,
+        CHECKED_IN,
+        ON_BREAK,
+        CHECKED_OUT
+    }
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Held for reading while applying committed changes, and for writing while a new day is loaded
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private volatile Day current = new Day(LocalDate.MIN);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        load(LocalDate.now(), true);
+    }
+
+    @Scheduled(cron = "${app.attendance.day-state.rollover-cron:0 0 0 * * *}")
+    public void rollOver() {
+        load(LocalDate.now(), false);
+    }
+
+    /**
+     * Today's state for an employee, or null when there is no attendance row for today.
+     */
+    public Entry get(Long employeeId) {
+        return today().byEmployee.get(employeeId);
+    }
+
+    /**
+     * Like {@link #get(Long)}, but a miss is checked against the database and
+     * a row found there is added to the state. Covers rows written by paths
+     * that bypass the state, such as direct database changes.
+     */
+    public Entry getOrLoad(Long employeeId) {
+        Entry entry = get(employeeId);
+        if (entry != null) {
+            return entry;
+        }
+        lock.readLock().lock();
+        try {
+            Day day = current;
+            List<Object[]> rows = attendanceRepository.findDayStateRowsForEmployees(day.date, List.of(employeeId));
+            if (rows.isEmpty()) {
+                return null;
+            }
+            Entry loaded = Entry.fromRow(rows.get(0));
+            Entry existing = day.byEmployee.putIfAbsent(employeeId, loaded);
+            if (existing != null) {
+                return existing;
+            }
+            day.employeeByAttendance.put(loaded.attendanceId(), employeeId);
+            eventPublisher.publishEvent(new EntryChanged(day.date, employeeId, loaded));
+            return loaded;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The employee owning the given attendance row, if that row is for today.
+     */
+    public Long getEmployeeIdForAttendance(Long attendanceId) {
+        return today().employeeByAttendance.get(attendanceId);
+    }
+
+    /**
+     * Employees currently checked in (including those on a break), earliest check-in first.
+     */
+    public List<Entry> getPresent() {
+        List<Entry> present = new ArrayList<>();
+        for (Entry entry : today().byEmployee.values()) {
+            Phase phase = entry.phase();
+            if (phase == Phase.CHECKED_IN || phase == Phase.ON_BREAK) {
+                present.add(entry);
+            }
+        }
+        present.sort(Comparator.comparing(Entry::checkInTime));
+        return present;
+    }
+
+    public int size() {
+        return today().byEmployee.size();
+    }
+
+    /**
+     * Record a changed attendance row once the surrounding transaction commits.
+     * Rows for other days are ignored.
+     */
+    public void onSaved(LocalDate date, Entry entry) {
+        AfterCommit.run(() -> {
+            lock.readLock().lock();
+            try {
+                Day day = current;
+                if (day.date.equals(date)) {
+                    day.put(entry);
+                    eventPublisher.publishEvent(new EntryChanged(date, entry.employeeId(), entry));
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    public void onSaved(Attendance attendance) {
+        onSaved(attendance.getDate(), Entry.fromEntity(attendance));
+    }
+
+    public void onDeleted(Attendance attendance) {
+        Long attendanceId = attendance.getId();
+        LocalDate date = attendance.getDate();
+        AfterCommit.run(() -> {
+            lock.readLock().lock();
+            try {
+                Day day = current;
+                if (day.date.equals(date)) {
+                    Long employeeId = day.employeeByAttendance.remove(attendanceId);
+                    if (employeeId != null) {
+                        day.byEmployee.remove(employeeId);
+                        eventPublisher.publishEvent(new EntryChanged(date, employeeId, null));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Re-read today's rows for the given employees, for writers that do not
+     * know the outcome of each change.
+     */
+    public void reload(Collection<Long> employeeIds) {
+        if (employeeIds.isEmpty()) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            Day day = current;
+            List<Object[]> rows = attendanceRepository.findDayStateRowsForEmployees(day.date, employeeIds);
+            for (Long employeeId : employeeIds) {
+                Entry previous = day.byEmployee.remove(employeeId);
+                if (previous != null) {
+                    day.employeeByAttendance.remove(previous.attendanceId());
+                }
+            }
+            for (Object[] row : rows) {
+                day.put(Entry.fromRow(row));
+            }
+            for (Long employeeId : employeeIds) {
+                eventPublisher.publishEvent(new EntryChanged(day.date, employeeId, day.byEmployee.get(employeeId)));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Day today() {
+        Day day = current;
+        LocalDate now = LocalDate.now();
+        if (!day.date.equals(now)) {
+            load(now, false);
+            day = current;
+        }
+        return day;
+    }
+
+    private void load(LocalDate date, boolean force) {
+        lock.writeLock().lock();
+        try {
+            if (!force && current.date.equals(date)) {
+                return;
+            }
+            Day day = new Day(date);
+            for (Object[] row : attendanceRepository.findDayStateRows(date)) {
+                day.put(Entry.fromRow(row));
+            }
+            current = day;
+            eventPublisher.publishEvent(new DayLoaded(date, List.copyOf(day.byEmployee.values())));
+            logger.info("Attendance day state loaded for {} with {} rows", date, day.byEmployee.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static final class Day {
+
+        final LocalDate date;
+        final ConcurrentHashMap<Long, Entry> byEmployee = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Long, Long> employeeByAttendance = new ConcurrentHashMap<>();
+
+        Day(LocalDate date) {
+            this.date = date;
+        }
+
+        void put(Entry entry) {
+            byEmployee.put(entry.employeeId(), entry);
+            employeeByAttendance.put(entry.attendanceId(), entry.employeeId());
+        }
+    }
+
+    /**
+     * An employee's row for the current day changed; entry is null when the row was deleted.
+     */
+    public record EntryChanged(LocalDate date, Long employeeId, Entry entry) {
+    }
+
+    /**
+     * The state was replaced with the rows of a new day.
+     */
+    public record DayLoaded(LocalDate date, List<Entry> entries) {
+    }
+
+    /**
+     * Snapshot of one attendance row for today.
+     */
+    public record Entry(Long attendanceId, Long employeeId, LocalTime checkInTime, LocalTime breakStartTime,
+                        LocalTime breakEndTime, LocalTime checkOutTime, double workHours,
+                        Attendance.AttendanceStatus status, String notes, String ipAddress, String location) {
+
+        public Phase phase() {
+            if (checkInTime == null) {
+                return Phase.NOT_CHECKED_IN;
+            }
+            if (checkOutTime != null) {
+                return Phase.CHECKED_OUT;
+            }
+            if (breakStartTime != null && breakEndTime == null) {
+                return Phase.ON_BREAK;
+            }
+            return Phase.CHECKED_IN;
+        }
+
+        public Entry withBreakStart(LocalTime time) {
+            return new Entry(attendanceId, employeeId, checkInTime, time, breakEndTime, checkOutTime, workHours,
+                    status, notes, ipAddress, location);
+        }
+
+        public Entry withBreakEnd(LocalTime time) {
+            return new Entry(attendanceId, employeeId, checkInTime, breakStartTime, time, checkOutTime, workHours,
+                    status, notes, ipAddress, location);
+        }
+
+        public Entry withCheckOut(LocalTime time, double hours, String newIpAddress, String newLocation) {
+            return new Entry(attendanceId, employeeId, checkInTime, breakStartTime, breakEndTime, time, hours,
+                    status, notes, newIpAddress != null ? newIpAddress : ipAddress,
+                    newLocation != null ? newLocation : location);
+        }
+
+        static Entry fromEntity(Attendance attendance) {
+            return new Entry(attendance.getId(), attendance.getEmployee().getId(), attendance.getCheckInTime(),
+                    attendance.getBreakStartTime(), attendance.getBreakEndTime(), attendance.getCheckOutTime(),
+                    attendance.getWorkHours(), attendance.getStatus(), attendance.getNotes(),
+                    attendance.getIpAddress(), attendance.getLocation());
+        }
+
+        static Entry fromDto(AttendanceDto dto) {
+            return new Entry(dto.getId(), dto.getEmployeeId(), dto.getCheckInTime(), dto.getBreakStartTime(),
+                    dto.getBreakEndTime(), dto.getCheckOutTime(), dto.getWorkHours() != null ? dto.getWorkHours() : 0,
+                    dto.getStatus(), dto.getNotes(), dto.getIpAddress(), dto.getLocation());
+        }
+
+        static Entry fromRow(Object[] row) {
+            return new Entry((Long) row[0], (Long) row[1], (LocalTime) row[2], (LocalTime) row[3],
+                    (LocalTime) row[4], (LocalTime) row[5], (Double) row[6],
+                    (Attendance.AttendanceStatus) row[7], (String) row[8], (String) row[9], (String) row[10]);
+        }
+    }
+}
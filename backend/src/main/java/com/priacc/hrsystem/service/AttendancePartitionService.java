@@ -0,0 +1,422 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.AttendanceArchiveDto;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Monthly partitions of the attendances table.
+ *
+ * Partitions are created a few months ahead so inserts never fall into the
+ * default partition. The retention job detaches partitions older than the
+ * configured age, writes their rows to a gzip-compressed, tab-separated file
+ * in the archive directory and drops them. {@link #restore(YearMonth)} loads
+ * an archive back into a fresh partition and attaches it.
+ *
+ * Detaching and attaching do not fire row triggers, so the attendance
+ * rollups keep counting archived months.
+ */
+@Service
+public class AttendancePartitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendancePartitionService.class);
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("^attendances_y(\\d{4})m(\\d{2})$");
+    private static final String ARCHIVE_SUFFIX = ".tsv.gz";
+    private static final String NULL_VALUE = "\\N";
+
+    private static final String[] COLUMNS = {
+            "id", "employee_id", "date", "check_in_time", "check_out_time", "break_start_time", "break_end_time",
+            "work_hours", "status", "notes", "ip_address", "location", "created_at", "updated_at"
+    };
+    private static final String[] COLUMN_TYPES = {
+            "bigint", "bigint", "date", "time", "time", "time", "time",
+            "double precision", "varchar", "varchar", "varchar", "varchar", "timestamp", "timestamp"
+    };
+
+    private static final String IS_PARTITIONED_SQL = "SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass('attendances')";
+
+    // Attached monthly partitions, plus detached ones an interrupted archive run left behind
+    private static final String MONTHLY_TABLES_SQL = "SELECT c.relname, i.inhrelid IS NOT NULL FROM pg_class c "
+            + "LEFT JOIN pg_inherits i ON i.inhrelid = c.oid AND i.inhparent = to_regclass('attendances') "
+            + "WHERE c.relkind = 'r' AND c.relname ~ '^attendances_y[0-9]{4}m[0-9]{2}$' "
+            + "AND c.relnamespace = to_regnamespace(current_schema())";
+
+    @Autowired
+    private AttendanceCube attendanceCube;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.attendance.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${app.attendance.retention.enabled:false}")
+    private boolean retentionEnabled;
+
+    @Value("${app.attendance.retention.months:24}")
+    private int retentionMonths;
+
+    @Value("${app.attendance.retention.archive-dir:./data/attendance-archive}")
+    private String archiveDir;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Create the partitions for the current month and the configured number
+     * of months ahead. Safe to call repeatedly.
+     */
+    @Scheduled(cron = "${app.attendance.partitions.cron:0 0 1 * * *}")
+    public void ensurePartitions() {
+        if (!isPartitioned()) {
+            return;
+        }
+        YearMonth month = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            createPartition(month.plusMonths(i));
+        }
+    }
+
+    /**
+     * Archive and drop every monthly partition older than the retention age.
+     * Months that already have an archive file (for example because they were
+     * restored) are left alone.
+     */
+    @Scheduled(cron = "${app.attendance.retention.cron:0 30 2 * * *}")
+    public void applyRetention() {
+        if (retentionEnabled) {
+            archiveOlderThan(getRetentionCutoff());
+        }
+    }
+
+    public YearMonth getRetentionCutoff() {
+        return YearMonth.now().minusMonths(retentionMonths);
+    }
+
+    /**
+     * @return the months that were archived
+     */
+    public List<YearMonth> archiveOlderThan(YearMonth cutoff) {
+        List<YearMonth> archived = new ArrayList<>();
+        if (!isPartitioned()) {
+            return archived;
+        }
+
+        for (Object[] table : listMonthlyTables()) {
+            String name = (String) table[0];
+            boolean attached = (Boolean) table[1];
+            YearMonth month = monthOf(name);
+            if (!month.isBefore(cutoff) || (attached && Files.exists(archivePath(month)))) {
+                continue;
+            }
+            try {
+                archive(name, month, attached);
+                archived.add(month);
+            } catch (IOException | DataAccessException e) {
+                logger.error("Could not archive attendance partition {}", name, e);
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Load an archived month back into the attendances table.
+     */
+    public void restore(YearMonth month) {
+        Path archive = archivePath(month);
+        if (!Files.exists(archive)) {
+            throw new ResourceNotFoundException("No attendance archive for " + month);
+        }
+        String name = partitionName(month);
+        if (tableExists(name)) {
+            throw new BadRequestException("Attendance for " + month + " is already present");
+        }
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int rows = transaction.execute(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE attendances INCLUDING DEFAULTS)");
+            int loaded = load(archive, name);
+            jdbcTemplate.execute("ALTER TABLE attendances ATTACH PARTITION " + name + bounds(month));
+            return loaded;
+        });
+        attendanceCube.reload(month.atDay(1), month.atEndOfMonth());
+        logger.info("Restored {} attendance rows for {} from {}", rows, month, archive);
+    }
+
+    /**
+     * Detach and drop a restored month again. Its archive file is kept.
+     */
+    public void release(YearMonth month) {
+        if (!Files.exists(archivePath(month))) {
+            throw new BadRequestException("Attendance for " + month + " has not been archived");
+        }
+        String name = partitionName(month);
+        if (!tableExists(name)) {
+            throw new ResourceNotFoundException("Attendance for " + month + " is not restored");
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.execute("ALTER TABLE attendances DETACH PARTITION " + name);
+            jdbcTemplate.execute("DROP TABLE " + name);
+        });
+        attendanceCube.reload(month.atDay(1), month.atEndOfMonth());
+    }
+
+    public List<AttendanceArchiveDto> listArchives() {
+        List<AttendanceArchiveDto> archives = new ArrayList<>();
+        Path directory = Paths.get(archiveDir);
+        if (!Files.isDirectory(directory)) {
+            return archives;
+        }
+
+        TreeSet<String> files = new TreeSet<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.map(path -> path.getFileName().toString())
+                    .filter(file -> file.endsWith(ARCHIVE_SUFFIX))
+                    .forEach(files::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list attendance archives", e);
+        }
+
+        for (String file : files) {
+            Matcher matcher = PARTITION_NAME.matcher(file.substring(0, file.length() - ARCHIVE_SUFFIX.length()));
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            Path path = directory.resolve(file);
+            long size;
+            try {
+                size = Files.size(path);
+            } catch (IOException e) {
+                size = -1;
+            }
+            archives.add(new AttendanceArchiveDto(month.toString(), file, size, tableExists(partitionName(month))));
+        }
+        return archives;
+    }
+
+    private void createPartition(YearMonth month) {
+        String name = partitionName(month);
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF attendances" + bounds(month));
+        } catch (DataAccessException e) {
+            // Usually rows for this month already sit in the default partition
+            logger.warn("Could not create attendance partition {}", name, e);
+        }
+    }
+
+    private void archive(String name, YearMonth month, boolean attached) throws IOException {
+        if (attached) {
+            jdbcTemplate.execute("ALTER TABLE attendances DETACH PARTITION " + name);
+        }
+
+        Path target = archivePath(month);
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long rows = export(name, temp);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        jdbcTemplate.execute("DROP TABLE " + name);
+        attendanceCube.reload(month.atDay(1), month.atEndOfMonth());
+        logger.info("Archived {} attendance rows for {} to {}", rows, month, target);
+    }
+
+    private long export(String table, Path file) throws IOException {
+        StringBuilder select = new StringBuilder("SELECT ");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            select.append(i > 0 ? ", " : "").append("CAST(").append(COLUMNS[i]).append(" AS text)");
+        }
+        select.append(" FROM ").append(table).append(" ORDER BY id");
+
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(fetchSize);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        try (FileOutputStream out = new FileOutputStream(file.toFile());
+             Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(out), StandardCharsets.UTF_8))) {
+            long rows = transaction.execute(status -> {
+                long[] count = {0};
+                cursor.query(select.toString(), rs -> {
+                    try {
+                        for (int i = 1; i <= COLUMNS.length; i++) {
+                            if (i > 1) {
+                                writer.write('\t');
+                            }
+                            writer.write(escape(rs.getString(i)));
+                        }
+                        writer.write('\n');
+                        count[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return count[0];
+            });
+            writer.flush();
+            out.getFD().sync();
+            return rows;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private int load(Path archive, String table) {
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(table).append(" (")
+                .append(String.join(", ", COLUMNS)).append(") VALUES (");
+        for (int i = 0; i < COLUMNS.length; i++) {
+            insert.append(i > 0 ? ", " : "").append("CAST(? AS ").append(COLUMN_TYPES[i]).append(")");
+        }
+        insert.append(")");
+
+        int total = 0;
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archive)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length != COLUMNS.length) {
+                    throw new BadRequestException("Malformed attendance archive " + archive.getFileName());
+                }
+                Object[] row = new Object[fields.length];
+                for (int i = 0; i < fields.length; i++) {
+                    row[i] = unescape(fields[i]);
+                }
+                batch.add(row);
+                if (batch.size() == batchSize) {
+                    jdbcTemplate.batchUpdate(insert.toString(), batch);
+                    total += batch.size();
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read attendance archive " + archive, e);
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(insert.toString(), batch);
+            total += batch.size();
+        }
+        return total;
+    }
+
+    private boolean isPartitioned() {
+        List<Boolean> result = jdbcTemplate.queryForList(IS_PARTITIONED_SQL, Boolean.class);
+        return !result.isEmpty() && Boolean.TRUE.equals(result.get(0));
+    }
+
+    private List<Object[]> listMonthlyTables() {
+        return jdbcTemplate.query(MONTHLY_TABLES_SQL, (rs, rowNum) -> new Object[]{rs.getString(1), rs.getBoolean(2)});
+    }
+
+    private boolean tableExists(String name) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, name));
+    }
+
+    private Path archivePath(YearMonth month) {
+        return Paths.get(archiveDir).resolve(partitionName(month) + ARCHIVE_SUFFIX);
+    }
+
+    private static String partitionName(YearMonth month) {
+        return String.format("attendances_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static YearMonth monthOf(String partitionName) {
+        Matcher matcher = PARTITION_NAME.matcher(partitionName);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Not a monthly attendance partition: " + partitionName);
+        }
+        return YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+    }
+
+    private static String bounds(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        return " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+    }
+
+    // Same escaping as PostgreSQL's COPY text format
+    private static String escape(String value) {
+        if (value == null) {
+            return NULL_VALUE;
+        }
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\' -> escaped.append("\\\\");
+                case '\t' -> escaped.append("\\t");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static String unescape(String field) {
+        if (NULL_VALUE.equals(field)) {
+            return null;
+        }
+        if (field.indexOf('\\') < 0) {
+            return field;
+        }
+        StringBuilder value = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '\\' && i + 1 < field.length()) {
+                char next = field.charAt(++i);
+                switch (next) {
+                    case 't' -> value.append('\t');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    default -> value.append(next);
+                }
+            } else {
+                value.append(c);
+            }
+        }
+        return value.toString();
+    }
+}
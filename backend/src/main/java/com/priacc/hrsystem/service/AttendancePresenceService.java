@@ -0,0 +1,286 @@
+package com.priacc.hrsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.priacc.hrsystem.dto.DepartmentPresenceDto;
+import com.priacc.hrsystem.exception.ServiceBusyException;
+import com.priacc.hrsystem.service.AttendanceDayState.Entry;
+import com.priacc.hrsystem.service.AttendanceDayState.Phase;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Live presence counters per department, pushed to dashboards as
+ * server-sent events.
+ *
+ * The counters are derived from {@link AttendanceDayState} change events, so
+ * keeping them current costs no queries. Changes are collected and sent at
+ * most once per flush interval, and only for departments whose counters
+ * changed; each payload is serialized once and shared by all subscribers.
+ * A subscriber receives a "snapshot" event when it connects and when a new
+ * day starts, then "delta" events. An employee is counted under the
+ * department they had at their latest attendance change.
+ *
+ * Flushes run on their own thread rather than Spring's shared scheduler, so
+ * a long close-out or accrual job cannot hold up deltas and keep-alives.
+ */
+@Service
+public class AttendancePresenceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendancePresenceService.class);
+
+    private static final long NO_DEPARTMENT = 0L;
+
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.attendance.presence.max-subscribers:1000}")
+    private int maxSubscribers;
+
+    @Value("${app.attendance.presence.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    @Value("${app.attendance.presence.heartbeat-ms:15000}")
+    private long heartbeatMs;
+
+    @Value("${app.attendance.presence.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    private ScheduledExecutorService flusher;
+
+    // Guarded by this
+    private LocalDate date = LocalDate.MIN;
+    private final Map<Long, Counted> countedByEmployee = new HashMap<>();
+    private final Map<Long, int[]> countsByDepartment = new HashMap<>();
+    private final Set<Long> changedDepartments = new LinkedHashSet<>();
+    private boolean dayChanged;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private volatile long lastSentAt = System.currentTimeMillis();
+
+    @PostConstruct
+    public void start() {
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "attendance-presence-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            // An exception would cancel every later run
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("Presence flush failed", e);
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flusher.shutdownNow();
+    }
+
+    @EventListener
+    public synchronized void onDayLoaded(AttendanceDayState.DayLoaded event) {
+        date = event.date();
+        countedByEmployee.clear();
+        countsByDepartment.clear();
+        changedDepartments.clear();
+        for (Entry entry : event.entries()) {
+            count(entry.employeeId(), entry);
+        }
+        changedDepartments.clear();
+        dayChanged = true;
+    }
+
+    @EventListener
+    public synchronized void onEntryChanged(AttendanceDayState.EntryChanged event) {
+        if (event.date().equals(date)) {
+            count(event.employeeId(), event.entry());
+        }
+    }
+
+    public synchronized List<DepartmentPresenceDto> getPresence() {
+        List<DepartmentPresenceDto> presence = new ArrayList<>(countsByDepartment.size());
+        for (Long departmentId : countsByDepartment.keySet()) {
+            presence.add(toDto(departmentId));
+        }
+        return presence;
+    }
+
+    /**
+     * Open an event stream, optionally for a single department.
+     */
+    public SseEmitter subscribe(Long departmentId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceBusyException("Too many open presence streams", 30);
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, departmentId);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        // Registered before the snapshot is taken so no delta in between is lost
+        subscribers.add(subscriber);
+        send(subscriber, "snapshot", serialize(filter(getPresence(), departmentId)));
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public void flush() {
+        boolean snapshot;
+        List<DepartmentPresenceDto> changed = new ArrayList<>();
+        synchronized (this) {
+            snapshot = dayChanged;
+            dayChanged = false;
+            if (snapshot) {
+                changedDepartments.clear();
+                changed.addAll(getPresence());
+            } else {
+                for (Long departmentId : changedDepartments) {
+                    changed.add(toDto(departmentId));
+                }
+                changedDepartments.clear();
+            }
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        if (!changed.isEmpty() || snapshot) {
+            String eventName = snapshot ? "snapshot" : "delta";
+            String all = serialize(changed);
+            Map<Long, String> byDepartment = new HashMap<>();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.departmentId == null) {
+                    send(subscriber, eventName, all);
+                    continue;
+                }
+                String payload = byDepartment.computeIfAbsent(subscriber.departmentId,
+                        id -> {
+                            List<DepartmentPresenceDto> own = filter(changed, id);
+                            return own.isEmpty() && !snapshot ? null : serialize(own);
+                        });
+                if (payload != null) {
+                    send(subscriber, eventName, payload);
+                }
+            }
+            lastSentAt = System.currentTimeMillis();
+        } else if (System.currentTimeMillis() - lastSentAt >= heartbeatMs) {
+            // Keeps proxies from closing idle streams
+            for (Subscriber subscriber : subscribers) {
+                try {
+                    subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber);
+                }
+            }
+            lastSentAt = System.currentTimeMillis();
+        }
+    }
+
+    // Caller must hold the monitor
+    private void count(Long employeeId, Entry entry) {
+        Counted previous = countedByEmployee.remove(employeeId);
+        if (previous != null) {
+            adjust(previous, -1);
+        }
+        int index = entry != null ? indexOf(entry.phase()) : -1;
+        if (index < 0) {
+            return;
+        }
+        Long departmentId = orgHierarchyIndex.getDepartmentId(employeeId);
+        Counted current = new Counted(departmentId != null ? departmentId : NO_DEPARTMENT, index);
+        countedByEmployee.put(employeeId, current);
+        adjust(current, 1);
+    }
+
+    private void adjust(Counted counted, int delta) {
+        int[] counts = countsByDepartment.computeIfAbsent(counted.departmentId, id -> new int[3]);
+        counts[counted.index] += delta;
+        if (counts[0] == 0 && counts[1] == 0 && counts[2] == 0) {
+            countsByDepartment.remove(counted.departmentId);
+        }
+        changedDepartments.add(counted.departmentId);
+    }
+
+    // Caller must hold the monitor
+    private DepartmentPresenceDto toDto(Long departmentId) {
+        int[] counts = countsByDepartment.getOrDefault(departmentId, new int[3]);
+        return new DepartmentPresenceDto(departmentId == NO_DEPARTMENT ? null : departmentId, date,
+                counts[0], counts[1], counts[2]);
+    }
+
+    private static int indexOf(Phase phase) {
+        return switch (phase) {
+            case CHECKED_IN -> 0;
+            case ON_BREAK -> 1;
+            case CHECKED_OUT -> 2;
+            case NOT_CHECKED_IN -> -1;
+        };
+    }
+
+    private static List<DepartmentPresenceDto> filter(List<DepartmentPresenceDto> presence, Long departmentId) {
+        if (departmentId == null) {
+            return presence;
+        }
+        List<DepartmentPresenceDto> filtered = new ArrayList<>(1);
+        for (DepartmentPresenceDto dto : presence) {
+            if (departmentId.equals(dto.getDepartmentId())) {
+                filtered.add(dto);
+            }
+        }
+        return filtered;
+    }
+
+    private String serialize(List<DepartmentPresenceDto> presence) {
+        try {
+            return objectMapper.writeValueAsString(presence);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize presence counters", e);
+        }
+    }
+
+    private void send(Subscriber subscriber, String eventName, String json) {
+        try {
+            subscriber.emitter.send(SseEmitter.event().name(eventName).data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping presence subscriber: {}", e.getMessage());
+            subscribers.remove(subscriber);
+        }
+    }
+
+    private record Counted(long departmentId, int index) {
+    }
+
+    private record Subscriber(SseEmitter emitter, Long departmentId) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.AttendanceSummaryDto;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.model.Attendance;
+import com.priacc.hrsystem.model.AttendanceRollup;
+import com.priacc.hrsystem.model.AttendanceRollup.Period;
+import com.priacc.hrsystem.model.AttendanceRollup.Scope;
+import com.priacc.hrsystem.repository.AttendanceRepository;
+import com.priacc.hrsystem.repository.AttendanceRollupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Attendance counts answered from the attendance_rollups table.
+ *
+ * A trigger on attendances keeps one row per employee per month and one row
+ * per department per day and per month, updated in the same transaction as
+ * the attendance write. A date range is answered from the monthly rows for
+ * the whole months it covers, plus the daily department rows or the raw
+ * attendance rows for the partial months at either end. A per-employee
+ * daily rollup is not kept: with one attendance row per employee per day,
+ * the raw row already is that rollup.
+ *
+ * Department rows are attributed to the employee's department at the time
+ * of the write. {@link #rebuild()} recomputes everything from attendances,
+ * for example after employees moved between departments.
+ */
+@Service
+public class AttendanceRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttendanceRollupService.class);
+
+    private static final String COUNT_COLUMNS = "COUNT(*), "
+            + "COUNT(*) FILTER (WHERE a.status = 'PRESENT'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'ABSENT'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'HALF_DAY'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'LATE'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'LEAVE'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'HOLIDAY'), "
+            + "COUNT(*) FILTER (WHERE a.status = 'WEEKEND'), "
+            + "COALESCE(SUM(a.work_hours), 0) ";
+
+    private static final String REBUILD_SQL = "INSERT INTO attendance_rollups (scope, scope_id, period, period_start, "
+            + "record_count, present_count, absent_count, half_day_count, late_count, leave_count, holiday_count, "
+            + "weekend_count, total_work_hours) "
+            + "SELECT 'EMPLOYEE', a.employee_id, 'MONTH', CAST(date_trunc('month', a.date) AS date), " + COUNT_COLUMNS
+            + "FROM attendances a WHERE a.date IS NOT NULL "
+            + "GROUP BY a.employee_id, CAST(date_trunc('month', a.date) AS date) "
+            + "UNION ALL "
+            + "SELECT 'DEPARTMENT', e.department_id, 'DAY', a.date, " + COUNT_COLUMNS
+            + "FROM attendances a JOIN employees e ON e.id = a.employee_id "
+            + "WHERE a.date IS NOT NULL AND e.department_id IS NOT NULL "
+            + "GROUP BY e.department_id, a.date "
+            + "UNION ALL "
+            + "SELECT 'DEPARTMENT', e.department_id, 'MONTH', CAST(date_trunc('month', a.date) AS date), " + COUNT_COLUMNS
+            + "FROM attendances a JOIN employees e ON e.id = a.employee_id "
+            + "WHERE a.date IS NOT NULL AND e.department_id IS NOT NULL "
+            + "GROUP BY e.department_id, CAST(date_trunc('month', a.date) AS date)";
+
+    @Autowired
+    private AttendanceRollupRepository attendanceRollupRepository;
+
+    @Autowired
+    private AttendanceRepository attendanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WorkingCalendar workingCalendar;
+
+    public AttendanceSummaryDto getEmployeeSummary(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        return summarize(Scope.EMPLOYEE, employeeId, startDate, endDate);
+    }
+
+    public AttendanceSummaryDto getDepartmentSummary(Long departmentId, LocalDate startDate, LocalDate endDate) {
+        return summarize(Scope.DEPARTMENT, departmentId, startDate, endDate);
+    }
+
+    public long countByEmployeeAndStatus(Long employeeId, Attendance.AttendanceStatus status,
+                                         LocalDate startDate, LocalDate endDate) {
+        return getEmployeeSummary(employeeId, startDate, endDate).getCount(status);
+    }
+
+    /**
+     * One summary per month of the year, for months that have any attendance.
+     */
+    public List<AttendanceSummaryDto> getMonthlySummaries(Scope scope, Long scopeId, int year) {
+        List<AttendanceSummaryDto> months = new ArrayList<>();
+        for (AttendanceRollup rollup : attendanceRollupRepository.findByScopeAndScopeIdAndPeriodAndPeriodStartBetweenOrderByPeriodStart(
+                scope, scopeId, Period.MONTH, LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 1))) {
+            LocalDate start = rollup.getPeriodStart();
+            AttendanceSummaryDto summary = new AttendanceSummaryDto(scope, scopeId, start, YearMonth.from(start).atEndOfMonth());
+            summary.setWorkingDays(countWorkingDays(scope, scopeId, start, summary.getEndDate()));
+            summary.add(rollup);
+            months.add(summary);
+        }
+        return months;
+    }
+
+    /**
+     * Recompute all rollups from attendances. Attendance writes are blocked
+     * while this runs so no change is counted twice or missed. Rollups for
+     * months before the oldest attendance row are kept, since those months
+     * have been archived rather than deleted.
+     */
+    @Transactional
+    public void rebuild() {
+        jdbcTemplate.execute("LOCK TABLE attendances IN SHARE MODE");
+        jdbcTemplate.update("DELETE FROM attendance_rollups WHERE period_start >= "
+                + "(SELECT COALESCE(CAST(date_trunc('month', MIN(date)) AS date), CURRENT_DATE) FROM attendances)");
+        int rows = jdbcTemplate.update(REBUILD_SQL);
+        logger.info("Rebuilt attendance rollups: {} rows", rows);
+    }
+
+    /**
+     * Backfill the rollups when attendance rows exist that were written
+     * before the trigger was installed.
+     */
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (attendanceRollupRepository.count() == 0 && attendanceRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    private AttendanceSummaryDto summarize(Scope scope, Long scopeId, LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new BadRequestException("endDate must not be before startDate");
+        }
+        AttendanceSummaryDto summary = new AttendanceSummaryDto(scope, scopeId, startDate, endDate);
+        summary.setWorkingDays(countWorkingDays(scope, scopeId, startDate, endDate));
+
+        LocalDate firstFullMonth = startDate.getDayOfMonth() == 1 ? startDate : YearMonth.from(startDate).plusMonths(1).atDay(1);
+        LocalDate lastFullMonthEnd = endDate.equals(YearMonth.from(endDate).atEndOfMonth())
+                ? endDate : YearMonth.from(endDate).minusMonths(1).atEndOfMonth();
+
+        if (firstFullMonth.isAfter(lastFullMonthEnd)) {
+            addPartial(summary, scope, scopeId, startDate, endDate);
+            return summary;
+        }
+
+        for (AttendanceRollup rollup : attendanceRollupRepository.findByScopeAndScopeIdAndPeriodAndPeriodStartBetweenOrderByPeriodStart(
+                scope, scopeId, Period.MONTH, firstFullMonth, lastFullMonthEnd.withDayOfMonth(1))) {
+            summary.add(rollup);
+        }
+        if (startDate.isBefore(firstFullMonth)) {
+            addPartial(summary, scope, scopeId, startDate, firstFullMonth.minusDays(1));
+        }
+        if (endDate.isAfter(lastFullMonthEnd)) {
+            addPartial(summary, scope, scopeId, lastFullMonthEnd.plusDays(1), endDate);
+        }
+        return summary;
+    }
+
+    private long countWorkingDays(Scope scope, Long scopeId, LocalDate startDate, LocalDate endDate) {
+        return scope == Scope.DEPARTMENT
+                ? workingCalendar.countWorkingDaysForDepartment(scopeId, startDate, endDate)
+                : workingCalendar.countWorkingDaysForEmployee(scopeId, startDate, endDate);
+    }
+
+    // Less than a month: daily rollups for departments, the attendance rows themselves for an employee
+    private void addPartial(AttendanceSummaryDto summary, Scope scope, Long scopeId, LocalDate from, LocalDate to) {
+        if (scope == Scope.DEPARTMENT) {
+            for (AttendanceRollup rollup : attendanceRollupRepository.findByScopeAndScopeIdAndPeriodAndPeriodStartBetweenOrderByPeriodStart(
+                    scope, scopeId, Period.DAY, from, to)) {
+                summary.add(rollup);
+            }
+            return;
+        }
+        for (Object[] row : attendanceRepository.summarizeByEmployeeAndDateBetween(scopeId, from, to)) {
+            summary.add((Attendance.AttendanceStatus) row[0], (Long) row[1], ((Number) row[2]).doubleValue());
+        }
+    }
+}
@@ -1,31 +1,69 @@
 package com.priacc.hrsystem.service;
 
 import com.priacc.hrsystem.dto.AttendanceDto;
+import com.priacc.hrsystem.dto.CursorPage;
+import com.priacc.hrsystem.dto.EmployeeSummary;
+import com.priacc.hrsystem.dto.PageCursor;
 import com.priacc.hrsystem.exception.ResourceNotFoundException;
 import com.priacc.hrsystem.model.Attendance;
 import com.priacc.hrsystem.model.Employee;
 import com.priacc.hrsystem.repository.AttendanceRepository;
-import com.priacc.hrsystem.repository.EmployeeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 @Service
 public class AttendanceService {
 
+    private static final String CHECK_IN_SQL = "WITH upserted AS ("
+            + "INSERT INTO attendances (employee_id, date, check_in_time, status, ip_address, location, work_hours, "
+            + "created_at, updated_at) "
+            + "SELECT e.id, ?, ?, ?, ?, ?, 0, ?, ? FROM employees e WHERE e.id = ? "
+            + "ON CONFLICT (employee_id, date) DO UPDATE SET check_in_time = EXCLUDED.check_in_time, "
+            + "status = EXCLUDED.status, ip_address = EXCLUDED.ip_address, location = EXCLUDED.location, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "WHERE attendances.check_in_time IS NULL "
+            + "RETURNING *) "
+            + "SELECT u.*, e.first_name, e.last_name, d.name AS department_name "
+            + "FROM upserted u "
+            + "JOIN employees e ON e.id = u.employee_id "
+            + "LEFT JOIN departments d ON d.id = e.department_id";
+
     @Autowired
     private AttendanceRepository attendanceRepository;
 
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private EmployeeService employeeService;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AttendanceDayState attendanceDayState;
+
+    @Autowired
+    private AttendanceCube attendanceCube;
+
+    @Autowired
+    private AttendanceRollupService attendanceRollupService;
 
     public List<Attendance> getAllAttendances() {
         return attendanceRepository.findAll();
@@ -41,6 +79,22 @@ public class AttendanceService {
         return attendanceRepository.findAll(pageable);
     }
 
+    /**
+     * Keyset page of attendance records, newest date first.
+     *
+     * @param cursor token from the previous page, or null for the first page
+     * @param size maximum number of rows to return
+     * @param countMode whether to include a total and how to compute it
+     */
+    public CursorPage<AttendanceDto> getAttendancePage(String cursor, int size, CursorPage.CountMode countMode) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<AttendanceDto> rows = after == null
+                ? attendanceRepository.findDtosFirstPage(PageCursor.limit(size))
+                : attendanceRepository.findDtosBefore(after.getSortKeyAsDate(), after.getId(), PageCursor.limit(size));
+        Long total = rowCountService.count("attendances", countMode, attendanceRepository::count);
+        return CursorPage.of(rows, size, dto -> PageCursor.encode(dto.getDate(), dto.getId()), total, countMode);
+    }
+
     public Page<Attendance> getAllAttendances(Pageable pageable) {
         return attendanceRepository.findAll(pageable);
     }
@@ -51,22 +105,19 @@ public class AttendanceService {
     }
 
     public List<Attendance> getAttendancesByEmployee(Long employeeId) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         
         return attendanceRepository.findByEmployee(employee);
     }
 
     public Page<Attendance> getAttendancesByEmployee(Long employeeId, Pageable pageable) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         
         return attendanceRepository.findByEmployee(employee, pageable);
     }
 
     public List<Attendance> getAttendancesByEmployeeAndDateRange(Long employeeId, LocalDate startDate, LocalDate endDate) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         
         return attendanceRepository.findByEmployeeAndDateBetween(employee, startDate, endDate);
     }
@@ -85,8 +136,7 @@ public class AttendanceService {
     
     // Alternative method names for controller compatibility
     public List<Attendance> getAttendanceByEmployee(Long employeeId) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         return attendanceRepository.findByEmployee(employee);
     }
     
@@ -107,98 +157,67 @@ public class AttendanceService {
     }
     
     public long countAttendanceByEmployeeAndStatusAndDateRange(Long employeeId, String status, LocalDate startDate, LocalDate endDate) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
-        return attendanceRepository.countByEmployeeAndStatusAndDateBetween(employee, Attendance.AttendanceStatus.valueOf(status.toUpperCase()), startDate, endDate);
+        employeeService.getEmployeeReference(employeeId);
+        return attendanceRollupService.countByEmployeeAndStatus(employeeId, Attendance.AttendanceStatus.valueOf(status.toUpperCase()), startDate, endDate);
     }
     
     public Attendance getAttendanceByEmployeeAndDate(Long employeeId, LocalDate date) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         return attendanceRepository.findByEmployeeAndDate(employee, date)
                 .orElseThrow(() -> new ResourceNotFoundException("Attendance not found for employee " + employeeId + " on date " + date));
     }
 
+    /**
+     * Record today's check-in with a single upsert.
+     *
+     * A new row is inserted, or an existing row for today without a check-in
+     * (for example one pre-filled by HR) is updated. The unique index on
+     * (employee_id, date) makes concurrent duplicate check-ins collapse into
+     * one row, and the response is built from the statement's RETURNING row.
+     */
     @Transactional
-    public Attendance checkIn(AttendanceDto attendanceDto) {
-        Employee employee = employeeRepository.findById(attendanceDto.getEmployeeId())
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + attendanceDto.getEmployeeId()));
-        
-        LocalDate today = LocalDate.now();
-        
-        // Check if attendance record already exists for today
-        Optional<Attendance> existingAttendance = attendanceRepository.findByEmployeeAndDate(employee, today);
-        
-        if (existingAttendance.isPresent()) {
-            Attendance attendance = existingAttendance.get();
-            
-            // If already checked in, throw exception
-            if (attendance.getCheckInTime() != null) {
-                throw new IllegalStateException("Employee has already checked in today");
-            }
-            
-            // Update existing record with check-in information
-            attendance.setCheckInTime(LocalTime.now());
-            attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-            attendance.setIpAddress(attendanceDto.getIpAddress());
-            attendance.setLocation(attendanceDto.getLocation());
-            
-            return attendanceRepository.save(attendance);
-        } else {
-            // Create new attendance record
-            Attendance attendance = new Attendance();
-            attendance.setEmployee(employee);
-            attendance.setDate(today);
-            attendance.setCheckInTime(LocalTime.now());
-            attendance.setStatus(Attendance.AttendanceStatus.PRESENT);
-            attendance.setIpAddress(attendanceDto.getIpAddress());
-            attendance.setLocation(attendanceDto.getLocation());
-            
-            return attendanceRepository.save(attendance);
+    public AttendanceDto checkIn(AttendanceDto attendanceDto) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+
+        List<AttendanceDto> rows = jdbcTemplate.query(CHECK_IN_SQL, this::mapAttendance,
+                Date.valueOf(now.toLocalDate()),
+                Time.valueOf(now.toLocalTime()),
+                Attendance.AttendanceStatus.PRESENT.name(),
+                attendanceDto.getIpAddress(),
+                attendanceDto.getLocation(),
+                timestamp,
+                timestamp,
+                attendanceDto.getEmployeeId());
+
+        if (rows.isEmpty()) {
+            // Nothing inserted or updated: either the employee does not exist or today's check-in is already recorded
+            employeeService.getEmployeeReference(attendanceDto.getEmployeeId());
+            throw new IllegalStateException("Employee has already checked in today");
         }
+
+        AttendanceDto attendance = rows.get(0);
+        attendanceDayState.onSaved(attendance.getDate(), AttendanceDayState.Entry.fromDto(attendance));
+        return attendance;
     }
 
     @Transactional
-    public Attendance checkOut(AttendanceDto attendanceDto) {
-        Employee employee = employeeRepository.findById(attendanceDto.getEmployeeId())
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + attendanceDto.getEmployeeId()));
-        
-        LocalDate today = LocalDate.now();
-        
-        // Find today's attendance record
-        Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, today)
-                .orElseThrow(() -> new IllegalStateException("No check-in record found for today"));
-        
-        // If already checked out, throw exception
-        if (attendance.getCheckOutTime() != null) {
-            throw new IllegalStateException("Employee has already checked out today");
-        }
-        
-        // If not checked in, throw exception
-        if (attendance.getCheckInTime() == null) {
-            throw new IllegalStateException("Employee has not checked in today");
-        }
-        
-        // Update attendance record with check-out information
-        attendance.setCheckOutTime(LocalTime.now());
-        attendance.setIpAddress(attendanceDto.getIpAddress());
-        attendance.setLocation(attendanceDto.getLocation());
-        
-        // Calculate work hours
-        long workMinutes = Duration.between(attendance.getCheckInTime(), attendance.getCheckOutTime()).toMinutes();
-        if (attendance.getBreakStartTime() != null && attendance.getBreakEndTime() != null) {
-            long breakMinutes = Duration.between(attendance.getBreakStartTime(), attendance.getBreakEndTime()).toMinutes();
-            workMinutes -= breakMinutes;
-        }
-        double workHours = workMinutes / 60.0;
-        attendance.setWorkHours(workHours);
-        
-        return attendanceRepository.save(attendance);
+    public AttendanceDto checkOut(AttendanceDto attendanceDto) {
+        return checkOut(requireTodayState(attendanceDto.getEmployeeId()), attendanceDto);
     }
-    
+
     // Overloaded method for controller compatibility
     @Transactional
-    public Attendance checkOut(Long attendanceId, AttendanceDto attendanceDto) {
+    public AttendanceDto checkOut(Long attendanceId, AttendanceDto attendanceDto) {
+        Long employeeId = attendanceDayState.getEmployeeIdForAttendance(attendanceId);
+        if (employeeId == null) {
+            return AttendanceDto.fromEntity(checkOutStoredRecord(attendanceId, attendanceDto));
+        }
+        return checkOut(requireTodayState(employeeId), attendanceDto);
+    }
+
+    // Check-out against a row that is not in today's state, e.g. a forgotten check-out from an earlier day
+    private Attendance checkOutStoredRecord(Long attendanceId, AttendanceDto attendanceDto) {
         Attendance attendance = attendanceRepository.findById(attendanceId)
                 .orElseThrow(() -> new ResourceNotFoundException("Attendance not found with id: " + attendanceId));
         
@@ -234,57 +253,52 @@ public class AttendanceService {
     }
 
     @Transactional
-    public Attendance startBreak(Long employeeId) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
-        
-        LocalDate today = LocalDate.now();
-        
-        // Find today's attendance record
-        Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, today)
-                .orElseThrow(() -> new IllegalStateException("No check-in record found for today"));
-        
-        // If not checked in, throw exception
-        if (attendance.getCheckInTime() == null) {
-            throw new IllegalStateException("Employee has not checked in today");
+    public AttendanceDto startBreak(Long employeeId) {
+        AttendanceDayState.Entry state = requireTodayState(employeeId);
+
+        switch (state.phase()) {
+            case NOT_CHECKED_IN -> throw new IllegalStateException("Employee has not checked in today");
+            case ON_BREAK -> throw new IllegalStateException("Employee is already on break");
+            case CHECKED_OUT -> throw new IllegalStateException("Employee has already checked out today");
+            default -> { }
         }
-        
-        // If already on break, throw exception
-        if (attendance.getBreakStartTime() != null && attendance.getBreakEndTime() == null) {
-            throw new IllegalStateException("Employee is already on break");
+
+        LocalDateTime now = LocalDateTime.now();
+        if (attendanceRepository.startBreak(state.attendanceId(), now.toLocalTime(), now) == 0) {
+            throw concurrentChange(employeeId);
         }
-        
-        // Update record with break start time
-        attendance.setBreakStartTime(LocalTime.now());
-        
-        return attendanceRepository.save(attendance);
+        return saveTodayState(now.toLocalDate(), state.withBreakStart(now.toLocalTime()));
     }
 
     @Transactional
-    public Attendance endBreak(Long employeeId) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
-        
-        LocalDate today = LocalDate.now();
-        
-        // Find today's attendance record
-        Attendance attendance = attendanceRepository.findByEmployeeAndDate(employee, today)
-                .orElseThrow(() -> new IllegalStateException("No check-in record found for today"));
-        
-        // If not on break, throw exception
-        if (attendance.getBreakStartTime() == null) {
+    public AttendanceDto endBreak(Long employeeId) {
+        AttendanceDayState.Entry state = requireTodayState(employeeId);
+
+        if (state.breakStartTime() == null) {
             throw new IllegalStateException("Employee has not started a break");
         }
-        
-        // If break already ended, throw exception
-        if (attendance.getBreakEndTime() != null) {
+        if (state.breakEndTime() != null) {
             throw new IllegalStateException("Employee's break has already ended");
         }
-        
-        // Update record with break end time
-        attendance.setBreakEndTime(LocalTime.now());
-        
-        return attendanceRepository.save(attendance);
+
+        LocalDateTime now = LocalDateTime.now();
+        if (attendanceRepository.endBreak(state.attendanceId(), now.toLocalTime(), now) == 0) {
+            throw concurrentChange(employeeId);
+        }
+        return saveTodayState(now.toLocalDate(), state.withBreakEnd(now.toLocalTime()));
+    }
+
+    /**
+     * Employees checked in right now, including those on a break, answered
+     * from today's in-memory state.
+     */
+    public List<AttendanceDto> getPresentAttendance() {
+        LocalDate today = LocalDate.now();
+        List<AttendanceDto> present = new ArrayList<>();
+        for (AttendanceDayState.Entry entry : attendanceDayState.getPresent()) {
+            present.add(toDto(today, entry));
+        }
+        return present;
     }
 
     @Transactional
@@ -334,19 +348,96 @@ public class AttendanceService {
             attendance.setNotes(attendanceDto.getNotes());
         }
         
-        return attendanceRepository.save(attendance);
+        Attendance saved = attendanceRepository.save(attendance);
+        attendanceDayState.onSaved(saved);
+        attendanceCube.onSaved(saved);
+        return saved;
     }
 
     @Transactional
     public void deleteAttendance(Long id) {
         Attendance attendance = getAttendanceById(id);
         attendanceRepository.delete(attendance);
+        attendanceDayState.onDeleted(attendance);
+        attendanceCube.onDeleted(attendance);
     }
 
     public Long countAttendancesByEmployeeAndStatusAndDateRange(Long employeeId, Attendance.AttendanceStatus status, LocalDate startDate, LocalDate endDate) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        employeeService.getEmployeeReference(employeeId);
         
-        return attendanceRepository.countByEmployeeAndStatusAndDateBetween(employee, status, startDate, endDate);
+        return attendanceRollupService.countByEmployeeAndStatus(employeeId, status, startDate, endDate);
+    }
+
+    private AttendanceDto checkOut(AttendanceDayState.Entry state, AttendanceDto attendanceDto) {
+        switch (state.phase()) {
+            case NOT_CHECKED_IN -> throw new IllegalStateException("Employee has not checked in today");
+            case CHECKED_OUT -> throw new IllegalStateException("Employee has already checked out today");
+            default -> { }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalTime checkOutTime = now.toLocalTime();
+
+        // Calculate work hours
+        long workMinutes = Duration.between(state.checkInTime(), checkOutTime).toMinutes();
+        if (state.breakStartTime() != null && state.breakEndTime() != null) {
+            workMinutes -= Duration.between(state.breakStartTime(), state.breakEndTime()).toMinutes();
+        }
+        double workHours = workMinutes / 60.0;
+
+        int updated = attendanceRepository.checkOut(state.attendanceId(), checkOutTime, workHours,
+                attendanceDto.getIpAddress(), attendanceDto.getLocation(), now);
+        if (updated == 0) {
+            throw concurrentChange(state.employeeId());
+        }
+        return saveTodayState(now.toLocalDate(), state.withCheckOut(checkOutTime, workHours,
+                attendanceDto.getIpAddress(), attendanceDto.getLocation()));
+    }
+
+    private AttendanceDayState.Entry requireTodayState(Long employeeId) {
+        AttendanceDayState.Entry state = attendanceDayState.getOrLoad(employeeId);
+        if (state == null) {
+            throw new IllegalStateException("No check-in record found for today");
+        }
+        return state;
+    }
+
+    private AttendanceDto saveTodayState(LocalDate date, AttendanceDayState.Entry state) {
+        attendanceDayState.onSaved(date, state);
+        return toDto(date, state);
+    }
+
+    // The guarded update matched nothing, so the in-memory state was stale
+    private IllegalStateException concurrentChange(Long employeeId) {
+        attendanceDayState.reload(List.of(employeeId));
+        return new IllegalStateException("Today's attendance was changed by another request, please retry");
+    }
+
+    private AttendanceDto toDto(LocalDate date, AttendanceDayState.Entry state) {
+        EmployeeSummary employee = employeeService.getEmployeeSummary(state.employeeId());
+        return new AttendanceDto(state.attendanceId(), state.employeeId(), employee.getFullName(), date,
+                state.checkInTime(), state.checkOutTime(), state.breakStartTime(), state.breakEndTime(),
+                state.workHours(), state.status(), state.notes(), state.ipAddress(), state.location(),
+                employee.getDepartmentName());
+    }
+
+    private AttendanceDto mapAttendance(ResultSet rs, int rowNum) throws SQLException {
+        AttendanceDto dto = new AttendanceDto();
+        dto.setId(rs.getLong("id"));
+        dto.setEmployeeId(rs.getLong("employee_id"));
+        dto.setEmployeeName(rs.getString("first_name") + " " + rs.getString("last_name"));
+        dto.setDepartmentName(rs.getString("department_name"));
+        dto.setDate(rs.getObject("date", LocalDate.class));
+        dto.setCheckInTime(rs.getObject("check_in_time", LocalTime.class));
+        dto.setCheckOutTime(rs.getObject("check_out_time", LocalTime.class));
+        dto.setBreakStartTime(rs.getObject("break_start_time", LocalTime.class));
+        dto.setBreakEndTime(rs.getObject("break_end_time", LocalTime.class));
+        dto.setWorkHours(rs.getDouble("work_hours"));
+        String status = rs.getString("status");
+        dto.setStatus(status != null ? Attendance.AttendanceStatus.valueOf(status) : null);
+        dto.setNotes(rs.getString("notes"));
+        dto.setIpAddress(rs.getString("ip_address"));
+        dto.setLocation(rs.getString("location"));
+        return dto;
     }
-}
\ No newline at end of file
+}
@@ -3,12 +3,16 @@ package com.priacc.hrsystem.service;
 import com.priacc.hrsystem.dto.AuthResponse;
 import com.priacc.hrsystem.dto.LoginRequest;
 import com.priacc.hrsystem.dto.SignupRequest;
+import com.priacc.hrsystem.exception.RateLimitExceededException;
 import com.priacc.hrsystem.model.Role;
 import com.priacc.hrsystem.model.User;
 import com.priacc.hrsystem.repository.UserRepository;
 import com.priacc.hrsystem.security.JwtTokenProvider;
+import com.priacc.hrsystem.security.LoginRateLimiter;
+import com.priacc.hrsystem.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -32,24 +36,41 @@ public class AuthService {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private LastLoginBuffer lastLoginBuffer;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
     public AuthResponse authenticateUser(LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        loginRequest.getEmail(),
-                        loginRequest.getPassword()
-                )
-        );
+        // Checked before authenticate so a throttled attempt never reaches BCrypt,
+        // but only failed attempts are charged to the account
+        long retryAfterSeconds = loginRateLimiter.checkEmail(loginRequest.getEmail());
+        if (retryAfterSeconds > 0) {
+            throw new RateLimitExceededException("Too many login attempts for this account, try again later", retryAfterSeconds);
+        }
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            loginRequest.getEmail(),
+                            loginRequest.getPassword()
+                    )
+            );
+        } catch (BadCredentialsException e) {
+            loginRateLimiter.recordEmailFailure(loginRequest.getEmail());
+            throw e;
+        }
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         String jwt = tokenProvider.generateToken(authentication);
         
-        // Update last login time
-        User user = userRepository.findByEmail(loginRequest.getEmail())
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        // Last login time is written behind, off the login path
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        lastLoginBuffer.record(principal.getId(), LocalDateTime.now());
 
-        return new AuthResponse(jwt, user.getId(), user.getEmail(), user.getRole().name());
+        return new AuthResponse(jwt, principal.getId(), principal.getUsername(), principal.getRole().name());
     }
 
     public User registerUser(SignupRequest signupRequest) {
@@ -6,6 +6,7 @@ import com.priacc.hrsystem.model.Department;
 import com.priacc.hrsystem.model.Employee;
 import com.priacc.hrsystem.repository.DepartmentRepository;
 import com.priacc.hrsystem.repository.EmployeeRepository;
+import com.priacc.hrsystem.repository.WorkCalendarRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,6 +24,18 @@ public class DepartmentService {
     @Autowired
     private EmployeeRepository employeeRepository;
 
+    @Autowired
+    private WorkCalendarRepository workCalendarRepository;
+
+    @Autowired
+    private WorkingCalendar workingCalendar;
+
+    @Autowired
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Autowired
+    private IdentityCache identityCache;
+
     public List<Department> getAllDepartments() {
         return departmentRepository.findAll();
     }
@@ -58,7 +71,11 @@ public class DepartmentService {
             department.setDepartmentHead(departmentHead);
         }
 
-        return departmentRepository.save(department);
+        setWorkCalendar(department, departmentDto.getWorkCalendarId());
+
+        Department saved = departmentRepository.save(department);
+        workingCalendar.onDepartmentCalendarChanged(saved.getId(), departmentDto.getWorkCalendarId());
+        return saved;
     }
 
     @Transactional
@@ -70,6 +87,7 @@ public class DepartmentService {
             throw new RuntimeException("Department with name " + departmentDto.getName() + " already exists");
         }
 
+        boolean renamed = !department.getName().equals(departmentDto.getName());
         department.setName(departmentDto.getName());
         department.setDescription(departmentDto.getDescription());
 
@@ -83,7 +101,19 @@ public class DepartmentService {
             department.setDepartmentHead(null);
         }
 
-        return departmentRepository.save(department);
+        setWorkCalendar(department, departmentDto.getWorkCalendarId());
+
+        Department saved = departmentRepository.save(department);
+        workingCalendar.onDepartmentCalendarChanged(saved.getId(), departmentDto.getWorkCalendarId());
+
+        // Search documents and cached employee summaries carry the department name
+        if (renamed) {
+            for (Employee employee : saved.getEmployees()) {
+                employeeSearchIndex.onEmployeeSaved(employee);
+                identityCache.invalidateEmployee(employee.getId());
+            }
+        }
+        return saved;
     }
 
     @Transactional
@@ -96,5 +126,12 @@ public class DepartmentService {
         }
 
         departmentRepository.delete(department);
+        workingCalendar.onDepartmentDeleted(id);
+    }
+
+    // Null selects the default calendar
+    private void setWorkCalendar(Department department, Long workCalendarId) {
+        department.setWorkCalendar(workCalendarId == null ? null : workCalendarRepository.findById(workCalendarId)
+                .orElseThrow(() -> new ResourceNotFoundException("Work calendar not found with id: " + workCalendarId)));
     }
 }
\ No newline at end of file
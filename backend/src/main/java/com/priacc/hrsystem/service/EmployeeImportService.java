@@ -0,0 +1,547 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.EmployeeDto;
+import com.priacc.hrsystem.dto.EmployeeImportResult;
+import com.priacc.hrsystem.dto.EmployeeImportResult.RowError;
+import com.priacc.hrsystem.model.Address;
+import com.priacc.hrsystem.model.BankDetails;
+import com.priacc.hrsystem.model.Role;
+import com.priacc.hrsystem.model.Salary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk employee import.
+ *
+ * The pipeline validates every row up front, resolves all referenced
+ * departments, positions, managers and users with a handful of set queries,
+ * takes ids for the whole batch from the table sequences in one round trip per
+ * table, and then writes addresses, salaries, bank details, users and
+ * employees with JDBC batch inserts in a single transaction. Rows that fail
+ * validation are reported and skipped; the rest are imported.
+ *
+ * Rows without a userId get a new inactive EMPLOYEE account with an unusable
+ * password, so the employee can be invited later.
+ */
+@Service
+public class EmployeeImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeImportService.class);
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+    private static final String DEFAULT_STATUS = "ACTIVE";
+    private static final String DEFAULT_EMPLOYMENT_TYPE = "FULL_TIME";
+
+    private static final String INSERT_ADDRESS = "INSERT INTO addresses (id, street, city, state, zip_code, country) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final int[] ADDRESS_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR
+    };
+
+    private static final String INSERT_SALARY = "INSERT INTO salaries (id, amount, currency, effective_date, basic, hra, bonus) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] SALARY_TYPES = {
+            Types.BIGINT, Types.NUMERIC, Types.VARCHAR, Types.DATE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE
+    };
+
+    private static final String INSERT_BANK_DETAILS = "INSERT INTO bank_details (id, account_number, bank_name, ifsc_code) "
+            + "VALUES (?, ?, ?, ?)";
+    private static final int[] BANK_DETAILS_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR
+    };
+
+    private static final String INSERT_USER = "INSERT INTO users (id, first_name, last_name, email, password, role, active, created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] USER_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BOOLEAN,
+            Types.TIMESTAMP, Types.TIMESTAMP
+    };
+
+    private static final String INSERT_EMPLOYEE = "INSERT INTO employees (id, employee_id, user_id, first_name, last_name, "
+            + "email, phone, mobile_phone, date_of_birth, gender, marital_status, nationality, address_id, department_id, "
+            + "position_id, manager_id, employment_type, employee_type, join_date, status, salary_id, bank_details_id, "
+            + "created_at, updated_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int[] EMPLOYEE_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+            Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.BIGINT, Types.BIGINT,
+            Types.BIGINT, Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.DATE, Types.VARCHAR, Types.BIGINT,
+            Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    @Autowired
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Autowired
+    private AttendanceCube attendanceCube;
+
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private LeaveBalanceService leaveBalanceService;
+
+    @Value("${app.import.batch-size:1000}")
+    private int batchSize;
+
+    public EmployeeImportResult importEmployees(List<EmployeeDto> rows) {
+        return importRows(rows, new ArrayList<>());
+    }
+
+    /**
+     * Import from CSV with a header row. Columns are matched by name and unknown
+     * columns are ignored. Recognised columns: firstName, lastName, dateOfBirth,
+     * gender, maritalStatus, nationality, email, phone, mobilePhone, street, city,
+     * state, zipCode, country, departmentId, positionId, managerId, employeeType,
+     * joinDate, status, salaryAmount, salaryCurrency, bankName, accountNumber,
+     * ifscCode and userId.
+     */
+    public EmployeeImportResult importCsv(BufferedReader reader) throws IOException {
+        List<EmployeeDto> rows = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            return new EmployeeImportResult(0, 0, 0, errors);
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim(), i);
+        }
+
+        List<String> record;
+        int rowNumber = 0;
+        while ((record = readCsvRecord(reader)) != null) {
+            rowNumber++;
+            if (record.size() == 1 && record.get(0).isBlank()) {
+                rowNumber--;
+                continue;
+            }
+            try {
+                rows.add(toEmployeeDto(record, columns));
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                rows.add(null);
+                errors.add(new RowError(rowNumber, null, "Unparseable value: " + e.getMessage()));
+            }
+        }
+
+        return importRows(rows, errors);
+    }
+
+    private EmployeeImportResult importRows(List<EmployeeDto> rows, List<RowError> errors) {
+        ReferenceData references = resolveReferences(rows);
+
+        List<Integer> accepted = new ArrayList<>();
+        Set<Long> claimedUserIds = new HashSet<>();
+        Set<String> claimedEmails = new HashSet<>();
+        for (int i = 0; i < rows.size(); i++) {
+            EmployeeDto row = rows.get(i);
+            if (row != null && validate(i + 1, row, references, claimedUserIds, claimedEmails, errors)) {
+                accepted.add(i);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            transaction.executeWithoutResult(status -> {
+                write(rows, accepted);
+                // One set-based statement per leave type, instead of one per imported employee
+                leaveBalanceService.accrueCurrentYear();
+            });
+
+            // Existing users picked up an employee link
+            for (int index : accepted) {
+                Long userId = rows.get(index).getUserId();
+                if (userId != null) {
+                    identityCache.invalidateUser(null, userId);
+                }
+            }
+            orgHierarchyIndex.rebuild();
+            employeeSearchIndex.rebuild();
+            attendanceCube.refreshEmployees();
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.getRow(), b.getRow()));
+        int failedRows = rows.size() - accepted.size();
+        logger.info("Employee import finished: {} imported, {} rejected", accepted.size(), failedRows);
+        return new EmployeeImportResult(rows.size(), accepted.size(), failedRows, errors);
+    }
+
+    private ReferenceData resolveReferences(List<EmployeeDto> rows) {
+        Set<Long> departmentIds = new HashSet<>();
+        Set<Long> positionIds = new HashSet<>();
+        Set<Long> managerIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (EmployeeDto row : rows) {
+            if (row == null) {
+                continue;
+            }
+            addIfPresent(departmentIds, row.getDepartmentId());
+            addIfPresent(positionIds, row.getPositionId());
+            addIfPresent(managerIds, row.getManagerId());
+            addIfPresent(userIds, row.getUserId());
+            if (row.getUserId() == null && row.getEmail() != null) {
+                emails.add(row.getEmail().trim().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        ReferenceData references = new ReferenceData();
+        references.departmentIds = queryInChunks("SELECT id FROM departments WHERE id IN (:values)", departmentIds, Long.class);
+        references.positionIds = queryInChunks("SELECT id FROM positions WHERE id IN (:values)", positionIds, Long.class);
+        references.managerIds = queryInChunks("SELECT id FROM employees WHERE id IN (:values)", managerIds, Long.class);
+        references.userIds = queryInChunks("SELECT id FROM users WHERE id IN (:values)", userIds, Long.class);
+        references.linkedUserIds = queryInChunks("SELECT user_id FROM employees WHERE user_id IN (:values)", userIds, Long.class);
+        references.takenEmails = queryInChunks("SELECT LOWER(email) FROM users WHERE LOWER(email) IN (:values)", emails, String.class);
+        return references;
+    }
+
+    private <T> Set<T> queryInChunks(String sql, Collection<T> values, Class<T> type) {
+        Set<T> found = new HashSet<>();
+        if (values.isEmpty()) {
+            return found;
+        }
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        List<T> all = new ArrayList<>(values);
+        for (int from = 0; from < all.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<T> chunk = all.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, all.size()));
+            found.addAll(namedJdbcTemplate.queryForList(sql, new MapSqlParameterSource("values", chunk), type));
+        }
+        return found;
+    }
+
+    private boolean validate(int rowNumber, EmployeeDto row, ReferenceData references, Set<Long> claimedUserIds,
+                             Set<String> claimedEmails, List<RowError> errors) {
+        int errorsBefore = errors.size();
+
+        requireText(rowNumber, "firstName", row.getFirstName(), 50, errors);
+        requireText(rowNumber, "lastName", row.getLastName(), 50, errors);
+        requireText(rowNumber, "email", row.getEmail(), 100, errors);
+        requireText(rowNumber, "phone", row.getPhone(), 50, errors);
+        requireText(rowNumber, "gender", row.getGender(), 10, errors);
+        limitText(rowNumber, "mobilePhone", row.getMobilePhone(), 20, errors);
+        limitText(rowNumber, "maritalStatus", row.getMaritalStatus(), 20, errors);
+        limitText(rowNumber, "nationality", row.getNationality(), 50, errors);
+        limitText(rowNumber, "employeeType", row.getEmployeeType(), 20, errors);
+        limitText(rowNumber, "status", row.getStatus(), 20, errors);
+
+        if (row.getEmail() != null && !EMAIL.matcher(row.getEmail().trim()).matches()) {
+            errors.add(new RowError(rowNumber, "email", "Email should be valid"));
+        }
+        if (row.getDateOfBirth() == null) {
+            errors.add(new RowError(rowNumber, "dateOfBirth", "Date of birth is required"));
+        } else if (!row.getDateOfBirth().isBefore(LocalDate.now())) {
+            errors.add(new RowError(rowNumber, "dateOfBirth", "Date of birth must be in the past"));
+        }
+        if (row.getJoinDate() == null) {
+            errors.add(new RowError(rowNumber, "joinDate", "Join date is required"));
+        }
+
+        if (row.getDepartmentId() != null && !references.departmentIds.contains(row.getDepartmentId())) {
+            errors.add(new RowError(rowNumber, "departmentId", "Department not found with id: " + row.getDepartmentId()));
+        }
+        if (row.getPositionId() != null && !references.positionIds.contains(row.getPositionId())) {
+            errors.add(new RowError(rowNumber, "positionId", "Position not found with id: " + row.getPositionId()));
+        }
+        if (row.getManagerId() != null && !references.managerIds.contains(row.getManagerId())) {
+            errors.add(new RowError(rowNumber, "managerId", "Manager not found with id: " + row.getManagerId()));
+        }
+
+        if (row.getUserId() != null) {
+            if (!references.userIds.contains(row.getUserId())) {
+                errors.add(new RowError(rowNumber, "userId", "User not found with id: " + row.getUserId()));
+            } else if (references.linkedUserIds.contains(row.getUserId()) || claimedUserIds.contains(row.getUserId())) {
+                errors.add(new RowError(rowNumber, "userId", "User is already linked to an employee: " + row.getUserId()));
+            }
+        } else if (row.getEmail() != null) {
+            String email = row.getEmail().trim().toLowerCase(Locale.ROOT);
+            if (references.takenEmails.contains(email) || claimedEmails.contains(email)) {
+                errors.add(new RowError(rowNumber, "email", "Email is already taken"));
+            }
+        }
+
+        if (errors.size() > errorsBefore) {
+            return false;
+        }
+
+        if (row.getUserId() != null) {
+            claimedUserIds.add(row.getUserId());
+        } else {
+            claimedEmails.add(row.getEmail().trim().toLowerCase(Locale.ROOT));
+        }
+        return true;
+    }
+
+    private void write(List<EmployeeDto> rows, List<Integer> accepted) {
+        int addressCount = 0;
+        int salaryCount = 0;
+        int bankDetailsCount = 0;
+        int userCount = 0;
+        for (int index : accepted) {
+            EmployeeDto row = rows.get(index);
+            addressCount += row.getAddress() != null ? 1 : 0;
+            salaryCount += row.getSalary() != null ? 1 : 0;
+            bankDetailsCount += row.getBankDetails() != null ? 1 : 0;
+            userCount += row.getUserId() == null ? 1 : 0;
+        }
+
+        IdAllocator addressIds = new IdAllocator(allocateIds("addresses", addressCount));
+        IdAllocator salaryIds = new IdAllocator(allocateIds("salaries", salaryCount));
+        IdAllocator bankDetailsIds = new IdAllocator(allocateIds("bank_details", bankDetailsCount));
+        IdAllocator userIds = new IdAllocator(allocateIds("users", userCount));
+        IdAllocator employeeIds = new IdAllocator(allocateIds("employees", accepted.size()));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> addresses = new ArrayList<>(addressCount);
+        List<Object[]> salaries = new ArrayList<>(salaryCount);
+        List<Object[]> bankDetails = new ArrayList<>(bankDetailsCount);
+        List<Object[]> users = new ArrayList<>(userCount);
+        List<Object[]> employees = new ArrayList<>(accepted.size());
+
+        for (int index : accepted) {
+            EmployeeDto row = rows.get(index);
+
+            Long addressId = null;
+            if (row.getAddress() != null) {
+                Address address = row.getAddress();
+                addressId = addressIds.next();
+                addresses.add(new Object[]{addressId, address.getStreet(), address.getCity(), address.getState(),
+                        address.getZipCode(), address.getCountry()});
+            }
+
+            Long salaryId = null;
+            if (row.getSalary() != null) {
+                Salary salary = row.getSalary();
+                salaryId = salaryIds.next();
+                salaries.add(new Object[]{salaryId, salary.getAmount(), salary.getCurrency(), salary.getEffectiveDate(),
+                        salary.getBasic(), salary.getHra(), salary.getBonus()});
+            }
+
+            Long bankDetailsId = null;
+            if (row.getBankDetails() != null) {
+                BankDetails details = row.getBankDetails();
+                bankDetailsId = bankDetailsIds.next();
+                bankDetails.add(new Object[]{bankDetailsId, details.getAccountNumber(), details.getBankName(),
+                        details.getIfscCode()});
+            }
+
+            Long userId = row.getUserId();
+            if (userId == null) {
+                userId = userIds.next();
+                // Not a BCrypt hash, so no password matches until the account is set up
+                users.add(new Object[]{userId, row.getFirstName().trim(), row.getLastName().trim(),
+                        row.getEmail().trim(), "!imported:" + UUID.randomUUID(), Role.EMPLOYEE.name(), false, now, now});
+            }
+
+            Long employeeId = employeeIds.next();
+            String employmentType = row.getEmployeeType() != null && !row.getEmployeeType().isBlank()
+                    ? row.getEmployeeType() : DEFAULT_EMPLOYMENT_TYPE;
+            String status = row.getStatus() != null && !row.getStatus().isBlank() ? row.getStatus() : DEFAULT_STATUS;
+            employees.add(new Object[]{employeeId, String.format("EMP%06d", employeeId), userId,
+                    row.getFirstName().trim(), row.getLastName().trim(), row.getEmail().trim(), row.getPhone().trim(),
+                    row.getMobilePhone(), row.getDateOfBirth(), row.getGender(), row.getMaritalStatus(),
+                    row.getNationality(), addressId, row.getDepartmentId(), row.getPositionId(), row.getManagerId(),
+                    employmentType, row.getEmployeeType(), row.getJoinDate(), status, salaryId, bankDetailsId,
+                    now, now});
+        }
+
+        batchInsert(INSERT_ADDRESS, addresses, ADDRESS_TYPES);
+        batchInsert(INSERT_SALARY, salaries, SALARY_TYPES);
+        batchInsert(INSERT_BANK_DETAILS, bankDetails, BANK_DETAILS_TYPES);
+        batchInsert(INSERT_USER, users, USER_TYPES);
+        batchInsert(INSERT_EMPLOYEE, employees, EMPLOYEE_TYPES);
+    }
+
+    /**
+     * Take {@code count} ids from the sequence behind the table's id column in one round trip.
+     */
+    private List<Long> allocateIds(String table, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)",
+                Long.class, table, count);
+    }
+
+    private void batchInsert(String sql, List<Object[]> rows, int[] types) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + batchSize, rows.size())), types);
+        }
+    }
+
+    private static EmployeeDto toEmployeeDto(List<String> record, Map<String, Integer> columns) {
+        EmployeeDto dto = new EmployeeDto();
+        dto.setFirstName(text(record, columns, "firstName"));
+        dto.setLastName(text(record, columns, "lastName"));
+        dto.setDateOfBirth(date(record, columns, "dateOfBirth"));
+        dto.setGender(text(record, columns, "gender"));
+        dto.setMaritalStatus(text(record, columns, "maritalStatus"));
+        dto.setNationality(text(record, columns, "nationality"));
+        dto.setEmail(text(record, columns, "email"));
+        dto.setPhone(text(record, columns, "phone"));
+        dto.setMobilePhone(text(record, columns, "mobilePhone"));
+        dto.setDepartmentId(number(record, columns, "departmentId"));
+        dto.setPositionId(number(record, columns, "positionId"));
+        dto.setManagerId(number(record, columns, "managerId"));
+        dto.setEmployeeType(text(record, columns, "employeeType"));
+        dto.setJoinDate(date(record, columns, "joinDate"));
+        dto.setStatus(text(record, columns, "status"));
+        dto.setUserId(number(record, columns, "userId"));
+
+        String street = text(record, columns, "street");
+        String city = text(record, columns, "city");
+        String state = text(record, columns, "state");
+        String zipCode = text(record, columns, "zipCode");
+        String country = text(record, columns, "country");
+        if (street != null || city != null || state != null || zipCode != null || country != null) {
+            dto.setAddress(new Address(null, street, city, state, zipCode, country));
+        }
+
+        String amount = text(record, columns, "salaryAmount");
+        if (amount != null) {
+            Salary salary = new Salary();
+            salary.setAmount(new BigDecimal(amount));
+            salary.setCurrency(text(record, columns, "salaryCurrency"));
+            salary.setEffectiveDate(dto.getJoinDate());
+            dto.setSalary(salary);
+        }
+
+        String accountNumber = text(record, columns, "accountNumber");
+        if (accountNumber != null) {
+            dto.setBankDetails(new BankDetails(null, accountNumber, text(record, columns, "bankName"),
+                    text(record, columns, "ifscCode")));
+        }
+        return dto;
+    }
+
+    private static String text(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    private static LocalDate date(List<String> record, Map<String, Integer> columns, String name) {
+        String value = text(record, columns, name);
+        return value != null ? LocalDate.parse(value) : null;
+    }
+
+    private static Long number(List<String> record, Map<String, Integer> columns, String name) {
+        String value = text(record, columns, name);
+        return value != null ? Long.valueOf(value) : null;
+    }
+
+    /**
+     * Read one RFC 4180 record. Returns null at end of input.
+     */
+    private static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean readAny = false;
+
+        int c;
+        while ((c = reader.read()) != -1) {
+            readAny = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+
+        if (!readAny) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static <T> void addIfPresent(Set<T> values, T value) {
+        if (value != null) {
+            values.add(value);
+        }
+    }
+
+    private static final class ReferenceData {
+        Set<Long> departmentIds;
+        Set<Long> positionIds;
+        Set<Long> managerIds;
+        Set<Long> userIds;
+        Set<Long> linkedUserIds;
+        Set<String> takenEmails;
+    }
+
+    private static final class IdAllocator {
+
+        private final List<Long> ids;
+        private int next;
+
+        IdAllocator(List<Long> ids) {
+            this.ids = ids;
+        }
+
+        Long next() {
+            return ids.get(next++);
+        }
+    }
+}
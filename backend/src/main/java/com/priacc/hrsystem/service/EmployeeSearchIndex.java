@@ -0,0 +1,388 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.EmployeeSearchResult;
+import com.priacc.hrsystem.model.Employee;
+import com.priacc.hrsystem.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory search index over employee names, employee codes and email
+ * addresses.
+ *
+ * Every token is indexed two ways: in a sorted token map for prefix lookups
+ * (used for one and two character terms) and as trigrams for fuzzy matching
+ * of longer terms. A document matches when every query term matches one of
+ * its tokens; results are ranked by trigram similarity with a bonus for
+ * prefix and exact token matches.
+ *
+ * Updated documents get a new slot and the old one is tombstoned, so posting
+ * lists stay append-only. The index compacts itself once tombstones outnumber
+ * live documents.
+ */
+@Component
+public class EmployeeSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmployeeSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final char WORD_START = '^';
+    private static final int MIN_COMPACT_TOMBSTONES = 1000;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    // Share of a term's trigrams a document must contain to count as a fuzzy match
+    @Value("${app.search.min-similarity:0.5}")
+    private double minSimilarity;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, IntList> trigramPostings = new HashMap<>();
+    private final TreeMap<String, IntList> tokenPostings = new TreeMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<Long, Integer> slotsByEmployeeId = new HashMap<>();
+    private int tombstones;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Document> loaded = new ArrayList<>();
+        for (Object[] row : employeeRepository.findSearchIndexRows()) {
+            loaded.add(new Document((Long) row[0], (String) row[1], (String) row[2], (String) row[3],
+                    (String) row[4], (String) row[5], (String) row[6]));
+        }
+
+        lock.writeLock().lock();
+        try {
+            reindex(loaded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Employee search index built with {} employees", loaded.size());
+    }
+
+    /**
+     * Top matches for a free-text query, best first.
+     *
+     * @param query one or more terms; every term must match
+     * @param limit maximum number of results
+     */
+    public List<EmployeeSearchResult> search(String query, int limit) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int slotCount = documents.size();
+            float[] scores = new float[slotCount];
+            int[] matchedTerms = new int[slotCount];
+            float[] termScores = new float[slotCount];
+            int[] gramHits = new int[slotCount];
+            IntList touched = new IntList();
+
+            for (int t = 0; t < terms.size(); t++) {
+                String term = terms.get(t);
+                touched.clear();
+
+                if (term.length() < 3) {
+                    collectPrefixMatches(term, t, matchedTerms, termScores, touched);
+                } else {
+                    collectTrigramMatches(term, t, matchedTerms, termScores, gramHits, touched);
+                }
+
+                for (int i = 0; i < touched.size; i++) {
+                    int slot = touched.values[i];
+                    if (termScores[slot] > 0) {
+                        scores[slot] += termScores[slot];
+                        matchedTerms[slot] = t + 1;
+                    }
+                    termScores[slot] = 0;
+                    gramHits[slot] = 0;
+                }
+            }
+
+            return topResults(scores, matchedTerms, terms.size(), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Record an employee's searchable fields once the surrounding transaction commits.
+     */
+    public void onEmployeeSaved(Employee employee) {
+        Document document = new Document(
+                employee.getId(),
+                employee.getEmployeeId(),
+                employee.getFirstName(),
+                employee.getLastName(),
+                employee.getEmail(),
+                employee.getDepartment() != null ? employee.getDepartment().getName() : null,
+                employee.getStatus()
+        );
+
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(document.id);
+                add(document);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void onEmployeeDeleted(Long employeeId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(employeeId);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsByEmployeeId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void collectPrefixMatches(String term, int termIndex, int[] matchedTerms, float[] termScores, IntList touched) {
+        for (Map.Entry<String, IntList> entry : tokenPostings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+            float score = entry.getKey().equals(term) ? 2.0f : 1.5f;
+            IntList postings = entry.getValue();
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.values[i];
+                if (matchedTerms[slot] != termIndex || documents.get(slot) == null) {
+                    continue;
+                }
+                if (termScores[slot] == 0) {
+                    touched.add(slot);
+                }
+                termScores[slot] = Math.max(termScores[slot], score);
+            }
+        }
+    }
+
+    private void collectTrigramMatches(String term, int termIndex, int[] matchedTerms, float[] termScores,
+                                       int[] gramHits, IntList touched) {
+        Set<String> grams = trigrams(term);
+        for (String gram : grams) {
+            IntList postings = trigramPostings.get(gram);
+            if (postings == null) {
+                continue;
+            }
+            for (int i = 0; i < postings.size; i++) {
+                int slot = postings.values[i];
+                if (matchedTerms[slot] != termIndex || documents.get(slot) == null) {
+                    continue;
+                }
+                if (gramHits[slot]++ == 0) {
+                    touched.add(slot);
+                }
+            }
+        }
+
+        for (int i = 0; i < touched.size; i++) {
+            int slot = touched.values[i];
+            float similarity = (float) gramHits[slot] / grams.size();
+            if (similarity < minSimilarity) {
+                continue;
+            }
+            float score = similarity;
+            for (String token : documents.get(slot).tokens) {
+                if (token.equals(term)) {
+                    score = similarity + 1.0f;
+                    break;
+                }
+                if (token.startsWith(term)) {
+                    score = similarity + 0.5f;
+                }
+            }
+            termScores[slot] = score;
+        }
+    }
+
+    private List<EmployeeSearchResult> topResults(float[] scores, int[] matchedTerms, int termCount, int limit) {
+        Comparator<Integer> byScore = Comparator.<Integer>comparingDouble(slot -> scores[slot])
+                .thenComparing(slot -> documents.get(slot).fullName, Comparator.reverseOrder());
+        PriorityQueue<Integer> best = new PriorityQueue<>(limit + 1, byScore);
+
+        for (int slot = 0; slot < scores.length; slot++) {
+            if (matchedTerms[slot] != termCount) {
+                continue;
+            }
+            best.offer(slot);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        EmployeeSearchResult[] results = new EmployeeSearchResult[best.size()];
+        for (int i = results.length - 1; i >= 0; i--) {
+            int slot = best.poll();
+            Document document = documents.get(slot);
+            results[i] = new EmployeeSearchResult(document.id, document.employeeCode, document.fullName,
+                    document.email, document.departmentName, document.status, scores[slot]);
+        }
+        return Arrays.asList(results);
+    }
+
+    // Caller must hold the write lock
+    private void reindex(List<Document> live) {
+        trigramPostings.clear();
+        tokenPostings.clear();
+        documents.clear();
+        slotsByEmployeeId.clear();
+        tombstones = 0;
+        for (Document document : live) {
+            add(document);
+        }
+    }
+
+    // Caller must hold the write lock
+    private void add(Document document) {
+        int slot = documents.size();
+        documents.add(document);
+        slotsByEmployeeId.put(document.id, slot);
+
+        Set<String> grams = new LinkedHashSet<>();
+        for (String token : document.tokens) {
+            tokenPostings.computeIfAbsent(token, key -> new IntList()).add(slot);
+            grams.addAll(trigrams(token));
+        }
+        for (String gram : grams) {
+            trigramPostings.computeIfAbsent(gram, key -> new IntList()).add(slot);
+        }
+    }
+
+    // Caller must hold the write lock
+    private void remove(Long employeeId) {
+        Integer slot = slotsByEmployeeId.remove(employeeId);
+        if (slot != null) {
+            documents.set(slot, null);
+            tombstones++;
+        }
+    }
+
+    // Caller must hold the write lock
+    private void compactIfNeeded() {
+        if (tombstones >= MIN_COMPACT_TOMBSTONES && tombstones > slotsByEmployeeId.size()) {
+            List<Document> live = new ArrayList<>(slotsByEmployeeId.size());
+            for (Document document : documents) {
+                if (document != null) {
+                    live.add(document);
+                }
+            }
+            reindex(live);
+        }
+    }
+
+    private static Set<String> trigrams(String token) {
+        String padded = WORD_START + token;
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        if (grams.isEmpty()) {
+            grams.add(padded);
+        }
+        return grams;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static final class Document {
+
+        final Long id;
+        final String employeeCode;
+        final String fullName;
+        final String email;
+        final String departmentName;
+        final String status;
+        final String[] tokens;
+
+        Document(Long id, String employeeCode, String firstName, String lastName, String email,
+                 String departmentName, String status) {
+            this.id = id;
+            this.employeeCode = employeeCode;
+            this.fullName = (firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "");
+            this.email = email;
+            this.departmentName = departmentName;
+            this.status = status;
+
+            Set<String> terms = new LinkedHashSet<>();
+            terms.addAll(tokenize(firstName));
+            terms.addAll(tokenize(lastName));
+            if (employeeCode != null) {
+                // "EMP-00123" is searchable as "emp", "00123" and "emp00123"
+                List<String> codeTokens = tokenize(employeeCode);
+                terms.addAll(codeTokens);
+                terms.add(String.join("", codeTokens));
+            }
+            if (email != null) {
+                int at = email.indexOf('@');
+                terms.addAll(tokenize(at > 0 ? email.substring(0, at) : email));
+            }
+            terms.remove("");
+            this.tokens = terms.toArray(new String[0]);
+        }
+    }
+
+    private static final class IntList {
+
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+}
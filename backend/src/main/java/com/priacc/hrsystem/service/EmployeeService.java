@@ -1,6 +1,10 @@
 package com.priacc.hrsystem.service;
 
+import com.priacc.hrsystem.dto.CursorPage;
 import com.priacc.hrsystem.dto.EmployeeDto;
+import com.priacc.hrsystem.dto.EmployeeSearchResult;
+import com.priacc.hrsystem.dto.EmployeeSummary;
+import com.priacc.hrsystem.dto.PageCursor;
 import com.priacc.hrsystem.exception.ResourceNotFoundException;
 import com.priacc.hrsystem.model.Department;
 import com.priacc.hrsystem.model.Employee;
@@ -11,6 +15,7 @@ import com.priacc.hrsystem.repository.EmployeeRepository;
 import com.priacc.hrsystem.repository.PositionRepository;
 import com.priacc.hrsystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -18,6 +23,10 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class EmployeeService {
@@ -34,36 +43,130 @@ public class EmployeeService {
     @Autowired
     private PositionRepository positionRepository;
 
-    public List<Employee> getAllEmployees() {
-        return employeeRepository.findAll();
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    @Autowired
+    private RowCountService rowCountService;
+
+    @Autowired
+    private EmployeeSearchIndex employeeSearchIndex;
+
+    @Autowired
+    private AttendanceCube attendanceCube;
+
+    @Autowired
+    private LeaveBalanceService leaveBalanceService;
+
+    @Value("${app.search.max-results:100}")
+    private int searchMaxResults;
+
+    public List<EmployeeDto> getAllEmployees() {
+        return employeeRepository.findAllDtos();
     }
 
     public Page<Employee> getAllEmployees(Pageable pageable) {
         return employeeRepository.findAll(pageable);
     }
 
+    /**
+     * Keyset page of employees ordered by last name, then id.
+     *
+     * @param cursor token from the previous page, or null for the first page
+     * @param size maximum number of rows to return
+     * @param countMode whether to include a total and how to compute it
+     */
+    public CursorPage<EmployeeDto> getEmployeesPage(String cursor, int size, CursorPage.CountMode countMode) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<EmployeeDto> rows = after == null
+                ? employeeRepository.findDtosFirstPage(PageCursor.limit(size))
+                : employeeRepository.findDtosAfter(after.getSortKey(), after.getId(), PageCursor.limit(size));
+        Long total = rowCountService.count("employees", countMode, employeeRepository::count);
+        return CursorPage.of(rows, size, dto -> PageCursor.encode(dto.getLastName(), dto.getId()), total, countMode);
+    }
+
     public Employee getEmployeeById(Long id) {
-        return employeeRepository.findById(id)
+        Employee employee = employeeRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + id));
+        identityCache.putEmployeeSummary(EmployeeSummary.fromEntity(employee));
+        return employee;
+    }
+
+    /**
+     * Resolve an employee for use as a query parameter or association.
+     * When the employee is known to the identity cache this returns an
+     * uninitialized reference and does not touch the database.
+     *
+     * @param id The ID of the employee
+     * @return a reference to the employee
+     */
+    public Employee getEmployeeReference(Long id) {
+        if (identityCache.getEmployeeSummary(id) != null) {
+            return employeeRepository.getReferenceById(id);
+        }
+        return getEmployeeById(id);
+    }
+
+    public EmployeeSummary getEmployeeSummary(Long id) {
+        EmployeeSummary summary = identityCache.getEmployeeSummary(id);
+        if (summary == null) {
+            summary = EmployeeSummary.fromEntity(getEmployeeById(id));
+        }
+        return summary;
     }
 
     public Employee getEmployeeByUserId(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-        
-        return employeeRepository.findByUser(user)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found for user with id: " + userId));
+        Long employeeId = identityCache.getEmployeeIdForUser(userId);
+        if (employeeId != null) {
+            return getEmployeeById(employeeId);
+        }
+
+        Employee employee = employeeRepository.findByUserId(userId).orElse(null);
+        if (employee == null) {
+            if (!userRepository.existsById(userId)) {
+                throw new ResourceNotFoundException("User not found with id: " + userId);
+            }
+            throw new ResourceNotFoundException("Employee not found for user with id: " + userId);
+        }
+
+        identityCache.putEmployeeSummary(EmployeeSummary.fromEntity(employee));
+        return employee;
     }
 
-    public List<Employee> getEmployeesByDepartment(Long departmentId) {
-        Department department = departmentRepository.findById(departmentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Department not found with id: " + departmentId));
+    public List<EmployeeDto> getEmployeesByDepartment(Long departmentId) {
+        if (!departmentRepository.existsById(departmentId)) {
+            throw new ResourceNotFoundException("Department not found with id: " + departmentId);
+        }
         
-        return employeeRepository.findByDepartment(department);
+        return employeeRepository.findDtosByDepartmentId(departmentId);
+    }
+
+    /**
+     * Ranked search over names, employee codes and emails. Matching runs
+     * against the in-memory index; only the top hits are loaded from the database.
+     */
+    public List<EmployeeDto> searchEmployees(String keyword) {
+        List<EmployeeSearchResult> matches = employeeSearchIndex.search(keyword, searchMaxResults);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, EmployeeDto> dtosById = employeeRepository.findDtosByIdIn(
+                        matches.stream().map(EmployeeSearchResult::getId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(EmployeeDto::getId, Function.identity()));
+
+        return matches.stream()
+                .map(match -> dtosById.get(match.getId()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
-    public List<Employee> searchEmployees(String keyword) {
-        return employeeRepository.searchByKeyword(keyword);
+    public List<EmployeeSearchResult> typeahead(String query, int limit) {
+        return employeeSearchIndex.search(query, Math.min(limit, searchMaxResults));
     }
 
     @Transactional
@@ -128,9 +231,15 @@ public class EmployeeService {
             employee.setUser(user);
             user.setEmployee(employee);
             userRepository.save(user);
+            identityCache.invalidateUser(null, user.getId());
         }
         
-        return employeeRepository.save(employee);
+        Employee saved = employeeRepository.save(employee);
+        leaveBalanceService.accrueEmployee(saved.getId());
+        orgHierarchyIndex.onEmployeeSaved(saved);
+        employeeSearchIndex.onEmployeeSaved(saved);
+        attendanceCube.onEmployeeSaved(saved);
+        return saved;
     }
 
     @Transactional
@@ -222,35 +331,47 @@ public class EmployeeService {
                 User oldUser = employee.getUser();
                 oldUser.setEmployee(null);
                 userRepository.save(oldUser);
+                identityCache.invalidateUser(null, oldUser.getId());
             }
             
             employee.setUser(user);
             user.setEmployee(employee);
             userRepository.save(user);
+            identityCache.invalidateUser(null, user.getId());
         }
         
-        return employeeRepository.save(employee);
+        Employee saved = employeeRepository.save(employee);
+        identityCache.invalidateEmployee(id);
+        orgHierarchyIndex.onEmployeeSaved(saved);
+        employeeSearchIndex.onEmployeeSaved(saved);
+        attendanceCube.onEmployeeSaved(saved);
+        return saved;
     }
 
     @Transactional
     public void deleteEmployee(Long id) {
         Employee employee = getEmployeeById(id);
+        identityCache.invalidateEmployee(id);
         
         // If employee has a user, unlink it
         if (employee.getUser() != null) {
             User user = employee.getUser();
             user.setEmployee(null);
             userRepository.save(user);
+            identityCache.invalidateUser(null, user.getId());
         }
         
         employeeRepository.delete(employee);
+        orgHierarchyIndex.onEmployeeDeleted(id);
+        employeeSearchIndex.onEmployeeDeleted(id);
+        attendanceCube.onEmployeeDeleted(id);
     }
 
-    public List<Employee> getEmployeesByJoinDateRange(LocalDate startDate, LocalDate endDate) {
-        return employeeRepository.findByJoinDateBetween(startDate, endDate);
+    public List<EmployeeDto> getEmployeesByJoinDateRange(LocalDate startDate, LocalDate endDate) {
+        return employeeRepository.findDtosByJoinDateBetween(startDate, endDate);
     }
 
-    public List<Employee> getEmployeesByStatus(String status) {
-        return employeeRepository.findByStatus(status);
+    public List<EmployeeDto> getEmployeesByStatus(String status) {
+        return employeeRepository.findDtosByStatus(status);
     }
 }
\ No newline at end of file
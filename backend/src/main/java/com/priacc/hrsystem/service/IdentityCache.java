@@ -0,0 +1,128 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.cache.BoundedCache;
+import com.priacc.hrsystem.dto.EmployeeSummary;
+import com.priacc.hrsystem.model.Role;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the identity lookups that run on almost every request:
+ * email to user, user to employee, and a lightweight employee summary.
+ *
+ * Entries expire after a TTL and are also invalidated explicitly by
+ * UserService and EmployeeService whenever the underlying rows change.
+ * Invalidation waits for the surrounding transaction to commit, so a
+ * concurrent reader cannot re-cache the row as it was before the change.
+ */
+@Component
+public class IdentityCache {
+
+    @Value("${app.identity-cache.max-size:20000}")
+    private int maxSize;
+
+    @Value("${app.identity-cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    private BoundedCache<String, UserIdentity> usersByEmail;
+
+    private BoundedCache<Long, Long> employeeIdsByUserId;
+
+    private BoundedCache<Long, EmployeeSummary> employeeSummaries;
+
+    @PostConstruct
+    public void init() {
+        usersByEmail = new BoundedCache<>(maxSize, ttlMs);
+        employeeIdsByUserId = new BoundedCache<>(maxSize, ttlMs);
+        employeeSummaries = new BoundedCache<>(maxSize, ttlMs);
+    }
+
+    public UserIdentity getUser(String email) {
+        return usersByEmail.get(email);
+    }
+
+    public void putUser(UserIdentity identity) {
+        usersByEmail.put(identity.getEmail(), identity);
+    }
+
+    public Long getEmployeeIdForUser(Long userId) {
+        return employeeIdsByUserId.get(userId);
+    }
+
+    public EmployeeSummary getEmployeeSummary(Long employeeId) {
+        return employeeSummaries.get(employeeId);
+    }
+
+    public void putEmployeeSummary(EmployeeSummary summary) {
+        employeeSummaries.put(summary.getId(), summary);
+        if (summary.getUserId() != null) {
+            employeeIdsByUserId.put(summary.getUserId(), summary.getId());
+        }
+    }
+
+    public void invalidateUser(String email, Long userId) {
+        AfterCommit.run(() -> {
+            if (email != null) {
+                usersByEmail.invalidate(email);
+            }
+            if (userId != null) {
+                employeeIdsByUserId.invalidate(userId);
+            }
+        });
+    }
+
+    public void invalidateEmployee(Long employeeId) {
+        AfterCommit.run(() -> {
+            EmployeeSummary summary = employeeSummaries.get(employeeId);
+            if (summary != null && summary.getUserId() != null) {
+                employeeIdsByUserId.invalidate(summary.getUserId());
+            }
+            employeeSummaries.invalidate(employeeId);
+        });
+    }
+
+    public Map<String, Map<String, Long>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        stats.put("usersByEmail", usersByEmail.getStats());
+        stats.put("employeeIdsByUserId", employeeIdsByUserId.getStats());
+        stats.put("employeeSummaries", employeeSummaries.getStats());
+        return stats;
+    }
+
+    /**
+     * The parts of a user needed to authorize a request, without the password hash.
+     */
+    public static class UserIdentity {
+        private final Long id;
+        private final String email;
+        private final Role role;
+        private final boolean active;
+
+        public UserIdentity(Long id, String email, Role role, boolean active) {
+            this.id = id;
+            this.email = email;
+            this.role = role;
+            this.active = active;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public Role getRole() {
+            return role;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
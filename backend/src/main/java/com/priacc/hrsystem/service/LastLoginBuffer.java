@@ -0,0 +1,80 @@
+package com.priacc.hrsystem.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for users.last_login_at.
+ *
+ * Logins only record the timestamp in memory, coalesced per user. A scheduled
+ * flush writes the latest timestamp per user in one batched JDBC update, and
+ * whatever is still pending is flushed on shutdown.
+ */
+@Component
+public class LastLoginBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LastLoginBuffer.class);
+
+    private static final String UPDATE_SQL = "UPDATE users SET last_login_at = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.last-login.batch-size:500}")
+    private int batchSize;
+
+    private final ConcurrentHashMap<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    public void record(Long userId, LocalDateTime loginAt) {
+        pending.merge(userId, loginAt, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.last-login.flush-interval-ms:5000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // Remove entries one by one so logins recorded during the flush are kept for the next round
+        List<Object[]> batch = new ArrayList<>();
+        for (Long userId : pending.keySet()) {
+            LocalDateTime loginAt = pending.remove(userId);
+            if (loginAt != null) {
+                batch.add(new Object[]{Timestamp.valueOf(loginAt), userId});
+            }
+        }
+
+        for (int from = 0; from < batch.size(); from += batchSize) {
+            List<Object[]> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, chunk);
+            } catch (RuntimeException e) {
+                logger.warn("Could not flush {} last-login timestamps, will retry", chunk.size(), e);
+                for (Object[] row : chunk) {
+                    record((Long) row[1], ((Timestamp) row[0]).toLocalDateTime());
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
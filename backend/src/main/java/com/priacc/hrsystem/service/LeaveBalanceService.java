@@ -0,0 +1,394 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.LeaveAdjustmentRequest;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.model.Leave;
+import com.priacc.hrsystem.model.LeaveBalance;
+import com.priacc.hrsystem.model.LeaveLedgerEntry;
+import com.priacc.hrsystem.model.LeaveLedgerEntry.EntryType;
+import com.priacc.hrsystem.repository.LeaveBalanceRepository;
+import com.priacc.hrsystem.repository.LeaveLedgerEntryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Leave balances kept as an append-only ledger plus one running balance row
+ * per employee, leave type and year.
+ *
+ * Every movement (yearly accrual, consumption when leave is approved,
+ * reversal when approved leave is cancelled or deleted, manual adjustment)
+ * appends a ledger entry and updates the balance row in the same
+ * transaction, so reading a balance or checking that it covers a request is
+ * a single keyed row read. Leave is charged in working days of the
+ * employee's work calendar, split by year when it spans New Year; a
+ * reversal gives back exactly what the ledger shows was charged.
+ *
+ * Only leave types with a configured yearly entitlement are tracked against
+ * a balance; other types are recorded in the ledger without a limit.
+ */
+@Service
+public class LeaveBalanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveBalanceService.class);
+
+    // Accrues the entitlement to every active employee with fromId <= id <= toId that has not received it
+    // for the year. NOT EXISTS skips the settled employees; the conflict clause on uk_leave_ledger_accrual
+    // (db/leave-ledger.sql) settles concurrent runs, and only inserted entries reach the balance.
+    private static final String ACCRUE_SQL = "WITH accrued AS ("
+            + "INSERT INTO leave_ledger_entries (employee_id, leave_type, year, entry_type, days, note, created_at) "
+            + "SELECT e.id, ?, ?, 'ACCRUAL', ?, 'Yearly entitlement', now() FROM employees e "
+            + "WHERE e.status = 'ACTIVE' AND e.id BETWEEN ? AND ? AND NOT EXISTS (SELECT 1 FROM leave_ledger_entries x "
+            + "WHERE x.employee_id = e.id AND x.leave_type = ? AND x.year = ? AND x.entry_type = 'ACCRUAL') "
+            + "ON CONFLICT (employee_id, leave_type, year) WHERE entry_type = 'ACCRUAL' DO NOTHING "
+            + "RETURNING employee_id, leave_type, year, days) "
+            + "INSERT INTO leave_balances (employee_id, leave_type, year, accrued, used, adjusted, balance, updated_at) "
+            + "SELECT employee_id, leave_type, year, days, 0, 0, days, now() FROM accrued "
+            + "ON CONFLICT (employee_id, leave_type, year) DO UPDATE SET "
+            + "accrued = leave_balances.accrued + EXCLUDED.accrued, "
+            + "balance = leave_balances.balance + EXCLUDED.balance, "
+            + "updated_at = now()";
+
+    private static final String INSERT_CONSUMPTION_SQL = "INSERT INTO leave_ledger_entries "
+            + "(employee_id, leave_type, year, entry_type, days, leave_id, created_at) "
+            + "VALUES (?, ?, ?, 'CONSUMPTION', ?, ?, now())";
+
+    // Granted leave reaching into the given year that was never charged, i.e. approved before the ledger existed
+    private static final String UNCHARGED_LEAVES_SQL = "SELECT l.id, l.employee_id, l.leave_type, l.start_date, l.end_date "
+            + "FROM leaves l WHERE l.status IN ('APPROVED', 'TAKEN') AND l.end_date >= ? "
+            + "AND NOT EXISTS (SELECT 1 FROM leave_ledger_entries x WHERE x.leave_id = l.id) ORDER BY l.id";
+
+    // Same lock as the approve and cancel paths take
+    private static final String LOCK_LEAVE_SQL = "SELECT status FROM leaves WHERE id = ? FOR UPDATE";
+
+    private static final String ROLLOUT_NOTE = "Approved before the leave ledger";
+
+    @Autowired
+    private LeaveLedgerEntryRepository leaveLedgerEntryRepository;
+
+    @Autowired
+    private LeaveBalanceRepository leaveBalanceRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WorkingCalendar workingCalendar;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.leave.entitlements:ANNUAL:20,SICK:10,PERSONAL:3}")
+    private String entitlementsProperty;
+
+    private final Map<Leave.LeaveType, Double> entitlements = new EnumMap<>(Leave.LeaveType.class);
+
+    @PostConstruct
+    public void init() {
+        for (String pair : entitlementsProperty.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.split(":");
+            entitlements.put(Leave.LeaveType.valueOf(parts[0].trim().toUpperCase()), Double.parseDouble(parts[1].trim()));
+        }
+    }
+
+    /**
+     * Grant this year's entitlement to every active employee that does not
+     * have it yet, including employees who joined since the last run.
+     * Later years are accrued on demand, the first time leave reaching into
+     * them is checked or charged.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.leave.accrual-cron:0 5 0 * * *}")
+    @Transactional
+    public void accrueCurrentYear() {
+        accrue(LocalDate.now().getYear());
+    }
+
+    @Transactional
+    public int accrue(int year) {
+        int total = 0;
+        for (Leave.LeaveType leaveType : entitlements.keySet()) {
+            total += accrue(leaveType, year, 0, Long.MAX_VALUE);
+        }
+        if (total > 0) {
+            logger.info("Accrued {} leave balances for {}", total, year);
+        }
+        return total;
+    }
+
+    /**
+     * Grant this year's entitlement to a newly created employee, so the
+     * balance exists before the next scheduled accrual.
+     */
+    @Transactional
+    public void accrueEmployee(Long employeeId) {
+        int year = LocalDate.now().getYear();
+        for (Leave.LeaveType leaveType : entitlements.keySet()) {
+            accrue(leaveType, year, employeeId, employeeId);
+        }
+    }
+
+    /**
+     * Charge approved leave that has no ledger entries because it was
+     * approved before the ledger existed. Otherwise its days would never
+     * leave the balance, and cancelling it would give nothing back, since
+     * reversals follow the ledger. Only the current year onwards is charged;
+     * the charge is taken even if the balance goes negative, because the
+     * leave has already been granted. Leaves are locked and rechecked one at
+     * a time, so a concurrent run or cancellation cannot double-count.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public int chargeLeavesApprovedBeforeLedger() {
+        int firstYear = LocalDate.now().getYear();
+        List<Charge> uncharged = jdbcTemplate.query(UNCHARGED_LEAVES_SQL, (rs, rowNum) -> new Charge(rs.getLong(1),
+                rs.getLong(2), Leave.LeaveType.valueOf(rs.getString(3)), rs.getObject(4, LocalDate.class),
+                rs.getObject(5, LocalDate.class)), Date.valueOf(LocalDate.of(firstYear, 1, 1)));
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int charged = 0;
+        for (Charge charge : uncharged) {
+            Boolean done = transaction.execute(status -> {
+                List<String> current = jdbcTemplate.queryForList(LOCK_LEAVE_SQL, String.class, charge.leaveId());
+                boolean granted = !current.isEmpty() && ("APPROVED".equals(current.get(0)) || "TAKEN".equals(current.get(0)));
+                if (!granted || leaveLedgerEntryRepository.existsByLeaveId(charge.leaveId())) {
+                    return false;
+                }
+                daysByYear(charge.employeeId(), charge.startDate(), charge.endDate()).forEach((year, days) -> {
+                    if (year >= firstYear) {
+                        leaveBalanceRepository.apply(charge.employeeId(), charge.leaveType().name(), year, 0, days, 0);
+                        append(charge.employeeId(), charge.leaveType(), year, EntryType.CONSUMPTION, -days,
+                                charge.leaveId(), ROLLOUT_NOTE);
+                    }
+                });
+                return true;
+            });
+            if (Boolean.TRUE.equals(done)) {
+                charged++;
+            }
+        }
+        if (charged > 0) {
+            logger.info("Charged {} leaves approved before the leave ledger", charged);
+        }
+        return charged;
+    }
+
+    public boolean isTracked(Leave.LeaveType leaveType) {
+        return entitlements.containsKey(leaveType);
+    }
+
+    /**
+     * Reject a request the employee's balance does not cover. One keyed read
+     * per calendar year the leave touches.
+     */
+    public void checkAvailable(Long employeeId, Leave.LeaveType leaveType, LocalDate startDate, LocalDate endDate) {
+        if (!isTracked(leaveType)) {
+            return;
+        }
+        daysByYear(employeeId, startDate, endDate).forEach((year, days) -> {
+            Optional<LeaveBalance> balance = leaveBalanceRepository.findByEmployeeIdAndLeaveTypeAndYear(employeeId, leaveType, year);
+            if (balance.isEmpty() && accrueIfDue(employeeId, leaveType, year)) {
+                balance = leaveBalanceRepository.findByEmployeeIdAndLeaveTypeAndYear(employeeId, leaveType, year);
+            }
+            double available = balance.map(LeaveBalance::getBalance).orElse(0.0);
+            if (available < days) {
+                throw new BadRequestException(String.format("Insufficient %s leave balance for %d: %s days available, %d requested",
+                        leaveType, year, formatDays(available), days));
+            }
+        });
+    }
+
+    /**
+     * Charge approved leave to the balance. Must run in the approving transaction.
+     */
+    @Transactional
+    public void consume(Leave leave) {
+        Long employeeId = leave.getEmployee().getId();
+        String type = leave.getLeaveType().name();
+        daysByYear(employeeId, leave.getStartDate(), leave.getEndDate()).forEach((year, days) -> {
+            if (isTracked(leave.getLeaveType())) {
+                if (leaveBalanceRepository.consumeIfAvailable(employeeId, type, year, days) == 0
+                        && (!accrueIfDue(employeeId, leave.getLeaveType(), year)
+                        || leaveBalanceRepository.consumeIfAvailable(employeeId, type, year, days) == 0)) {
+                    throw new BadRequestException(String.format("Insufficient %s leave balance for %d to approve %d days",
+                            leave.getLeaveType(), year, days));
+                }
+            } else {
+                leaveBalanceRepository.apply(employeeId, type, year, 0, days, 0);
+            }
+            append(employeeId, leave.getLeaveType(), year, EntryType.CONSUMPTION, -days, leave.getId(), null);
+        });
+    }
+
+    /**
+     * Charge many approved leaves at once, in list order, skipping those a
+     * tracked balance cannot cover. The balance rows are locked first, so
+     * what is checked is what gets charged.
+     *
+     * @return ids of the leaves that were not charged
+     */
+    @Transactional
+    public Set<Long> consumeAll(List<Charge> charges) {
+        if (charges.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> employeeIds = new HashSet<>();
+        Set<Integer> years = new HashSet<>();
+        List<Map<Integer, Long>> daysPerCharge = new ArrayList<>(charges.size());
+        for (Charge charge : charges) {
+            Map<Integer, Long> days = daysByYear(charge.employeeId(), charge.startDate(), charge.endDate());
+            daysPerCharge.add(days);
+            employeeIds.add(charge.employeeId());
+            years.addAll(days.keySet());
+        }
+
+        Map<BalanceKey, Double> available = lockBalances(employeeIds, years);
+        boolean accrued = false;
+        for (int i = 0; i < charges.size(); i++) {
+            Charge charge = charges.get(i);
+            for (Integer year : daysPerCharge.get(i).keySet()) {
+                if (!available.containsKey(new BalanceKey(charge.employeeId(), charge.leaveType(), year))) {
+                    accrued |= accrueIfDue(charge.employeeId(), charge.leaveType(), year);
+                }
+            }
+        }
+        if (accrued) {
+            available.putAll(lockBalances(employeeIds, years));
+        }
+
+        Set<Long> uncovered = new HashSet<>();
+        Map<BalanceKey, Double> used = new LinkedHashMap<>();
+        List<Object[]> entries = new ArrayList<>();
+        for (int i = 0; i < charges.size(); i++) {
+            Charge charge = charges.get(i);
+            Map<Integer, Long> days = daysPerCharge.get(i);
+            boolean covered = !isTracked(charge.leaveType()) || days.entrySet().stream().allMatch(year ->
+                    available.getOrDefault(new BalanceKey(charge.employeeId(), charge.leaveType(), year.getKey()), 0.0) >= year.getValue());
+            if (!covered) {
+                uncovered.add(charge.leaveId());
+                continue;
+            }
+            days.forEach((year, count) -> {
+                BalanceKey key = new BalanceKey(charge.employeeId(), charge.leaveType(), year);
+                available.merge(key, (double) -count, Double::sum);
+                used.merge(key, (double) count, Double::sum);
+                entries.add(new Object[]{charge.employeeId(), charge.leaveType().name(), year, (double) -count, charge.leaveId()});
+            });
+        }
+
+        // One upsert per balance and one batch of ledger rows
+        used.forEach((key, days) -> leaveBalanceRepository.apply(key.employeeId(), key.leaveType().name(), key.year(), 0, days, 0));
+        if (!entries.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_CONSUMPTION_SQL, entries);
+        }
+        return uncovered;
+    }
+
+    /**
+     * Give back the days of approved leave that is cancelled or deleted.
+     */
+    @Transactional
+    public void reverse(Leave leave, String note) {
+        Long employeeId = leave.getEmployee().getId();
+        for (Object[] row : leaveLedgerEntryRepository.sumDaysByLeaveId(leave.getId())) {
+            Leave.LeaveType leaveType = (Leave.LeaveType) row[0];
+            int year = (Integer) row[1];
+            double charged = -((Number) row[2]).doubleValue();
+            if (charged > 0) {
+                leaveBalanceRepository.apply(employeeId, leaveType.name(), year, 0, -charged, 0);
+                append(employeeId, leaveType, year, EntryType.REVERSAL, charged, leave.getId(), note);
+            }
+        }
+    }
+
+    @Transactional
+    public LeaveBalance adjust(LeaveAdjustmentRequest request) {
+        leaveBalanceRepository.apply(request.getEmployeeId(), request.getLeaveType().name(), request.getYear(),
+                0, 0, request.getDays());
+        append(request.getEmployeeId(), request.getLeaveType(), request.getYear(), EntryType.ADJUSTMENT,
+                request.getDays(), null, request.getNote());
+        return leaveBalanceRepository.findByEmployeeIdAndLeaveTypeAndYear(
+                request.getEmployeeId(), request.getLeaveType(), request.getYear()).orElseThrow();
+    }
+
+    public LeaveBalance getBalance(Long employeeId, Leave.LeaveType leaveType, int year) {
+        return leaveBalanceRepository.findByEmployeeIdAndLeaveTypeAndYear(employeeId, leaveType, year)
+                .orElseGet(() -> new LeaveBalance(null, employeeId, leaveType, year, 0, 0, 0, 0, null));
+    }
+
+    public List<LeaveBalance> getBalances(Long employeeId, int year) {
+        return leaveBalanceRepository.findByEmployeeIdAndYearOrderByLeaveType(employeeId, year);
+    }
+
+    public List<LeaveLedgerEntry> getLedger(Long employeeId, int year) {
+        return leaveLedgerEntryRepository.findByEmployeeIdAndYearOrderById(employeeId, year);
+    }
+
+    private Map<BalanceKey, Double> lockBalances(Set<Long> employeeIds, Set<Integer> years) {
+        Map<BalanceKey, Double> available = new HashMap<>();
+        for (LeaveBalance balance : leaveBalanceRepository.findForUpdate(employeeIds, years)) {
+            available.put(new BalanceKey(balance.getEmployeeId(), balance.getLeaveType(), balance.getYear()), balance.getBalance());
+        }
+        return available;
+    }
+
+    private int accrue(Leave.LeaveType leaveType, int year, long fromId, long toId) {
+        String type = leaveType.name();
+        return jdbcTemplate.update(ACCRUE_SQL, type, year, entitlements.get(leaveType), fromId, toId, type, year);
+    }
+
+    // Accrues a missing balance of the current or a later year, e.g. for leave requested in
+    // December for January; past years are never accrued after the fact
+    private boolean accrueIfDue(Long employeeId, Leave.LeaveType leaveType, int year) {
+        return isTracked(leaveType) && year >= LocalDate.now().getYear()
+                && accrue(leaveType, year, employeeId, employeeId) > 0;
+    }
+
+    private void append(Long employeeId, Leave.LeaveType leaveType, int year, EntryType entryType, double days,
+                        Long leaveId, String note) {
+        leaveLedgerEntryRepository.save(new LeaveLedgerEntry(null, employeeId, leaveType, year, entryType, days,
+                leaveId, note, null));
+    }
+
+    // Working days of the range per year, in year order
+    private Map<Integer, Long> daysByYear(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        return workingCalendar.countWorkingDaysByYear(employeeId, startDate, endDate);
+    }
+
+    private static String formatDays(double days) {
+        return days == Math.rint(days) ? String.valueOf((long) days) : String.valueOf(days);
+    }
+
+    /**
+     * A leave to be charged by {@link #consumeAll(List)}.
+     */
+    public record Charge(Long leaveId, Long employeeId, Leave.LeaveType leaveType, LocalDate startDate, LocalDate endDate) {
+    }
+
+    private record BalanceKey(Long employeeId, Leave.LeaveType leaveType, int year) {
+    }
+}
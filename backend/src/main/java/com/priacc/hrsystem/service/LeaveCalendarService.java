@@ -0,0 +1,168 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.cache.BoundedCache;
+import com.priacc.hrsystem.dto.LeaveCalendarDto;
+import com.priacc.hrsystem.model.Leave;
+import com.priacc.hrsystem.repository.LeaveRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Month view of a department's approved leave, one entry per day.
+ *
+ * The month is built with a sweep over the leave intervals sorted by start
+ * date: each day admits the leaves starting on it and retires those that
+ * ended the day before, so the work is proportional to the leaves plus the
+ * days rather than expanding every leave day by day.
+ *
+ * Calendars are cached per department and month. LeaveService drops the
+ * affected months when leave is approved, rejected, cancelled or deleted;
+ * the TTL covers employees moving between departments. Each invalidation
+ * bumps a generation counter for the key's stripe, and a calendar is only
+ * cached if its stripe did not move while it was being built, so a build
+ * that read the month before a change committed cannot put it back.
+ */
+@Service
+public class LeaveCalendarService {
+
+    static final List<Leave.LeaveStatus> CALENDAR_STATUSES = List.of(Leave.LeaveStatus.APPROVED, Leave.LeaveStatus.TAKEN);
+
+    private static final Comparator<Interval> BY_NAME = Comparator.comparing(Interval::employeeName)
+            .thenComparing(Interval::employeeId)
+            .thenComparing(Interval::leaveId);
+
+    @Autowired
+    private LeaveRepository leaveRepository;
+
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    @Value("${app.leave.calendar-cache.max-size:2000}")
+    private int maxSize;
+
+    @Value("${app.leave.calendar-cache.ttl-ms:600000}")
+    private long ttlMs;
+
+    private static final int GENERATION_STRIPES = 64;
+
+    private BoundedCache<CalendarKey, LeaveCalendarDto> calendars;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @PostConstruct
+    public void init() {
+        calendars = new BoundedCache<>(maxSize, ttlMs);
+    }
+
+    public LeaveCalendarDto getCalendar(Long departmentId, YearMonth month) {
+        CalendarKey key = new CalendarKey(departmentId, month);
+        LeaveCalendarDto calendar = calendars.get(key);
+        if (calendar == null) {
+            int stripe = stripe(key);
+            long generation = generations.get(stripe);
+            calendar = build(departmentId, month);
+            if (generations.get(stripe) == generation) {
+                calendars.put(key, calendar);
+            }
+        }
+        return calendar;
+    }
+
+    /**
+     * Drop the cached months the leave touches once the surrounding
+     * transaction commits.
+     */
+    public void onLeaveChanged(Leave leave) {
+        onLeaveChanged(leave.getEmployee().getId(), leave.getStartDate(), leave.getEndDate());
+    }
+
+    public void onLeaveChanged(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        Long departmentId = orgHierarchyIndex.getDepartmentId(employeeId);
+        if (departmentId == null) {
+            return;
+        }
+        YearMonth first = YearMonth.from(startDate);
+        YearMonth last = YearMonth.from(endDate);
+        AfterCommit.run(() -> {
+            for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+                CalendarKey key = new CalendarKey(departmentId, month);
+                generations.incrementAndGet(stripe(key));
+                calendars.invalidate(key);
+            }
+        });
+    }
+
+    public Map<String, Long> getStats() {
+        return calendars.getStats();
+    }
+
+    private static int stripe(CalendarKey key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    private LeaveCalendarDto build(Long departmentId, YearMonth month) {
+        LocalDate monthStart = month.atDay(1);
+        LocalDate monthEnd = month.atEndOfMonth();
+
+        List<Object[]> rows = leaveRepository.findCalendarRows(departmentId, monthStart, monthEnd, CALENDAR_STATUSES);
+        Interval[] intervals = new Interval[rows.size()];
+        for (int i = 0; i < intervals.length; i++) {
+            Object[] row = rows.get(i);
+            LocalDate start = (LocalDate) row[4];
+            LocalDate end = (LocalDate) row[5];
+            intervals[i] = new Interval((Long) row[0], (Long) row[1], (String) row[2], (Leave.LeaveType) row[3],
+                    start.isBefore(monthStart) ? 1 : start.getDayOfMonth(),
+                    end.isAfter(monthEnd) ? month.lengthOfMonth() : end.getDayOfMonth());
+        }
+        Arrays.sort(intervals, Comparator.comparingInt(Interval::firstDay));
+        Interval[] byEnd = intervals.clone();
+        Arrays.sort(byEnd, Comparator.comparingInt(Interval::lastDay));
+
+        TreeSet<Interval> active = new TreeSet<>(BY_NAME);
+        Map<Long, Integer> leavesPerEmployee = new HashMap<>();
+        List<LeaveCalendarDto.Day> days = new ArrayList<>(month.lengthOfMonth());
+        int next = 0;
+        int retired = 0;
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            while (retired < byEnd.length && byEnd[retired].lastDay() < day) {
+                Interval ended = byEnd[retired++];
+                active.remove(ended);
+                leavesPerEmployee.computeIfPresent(ended.employeeId(), (id, count) -> count > 1 ? count - 1 : null);
+            }
+            while (next < intervals.length && intervals[next].firstDay() == day) {
+                Interval started = intervals[next++];
+                active.add(started);
+                leavesPerEmployee.merge(started.employeeId(), 1, Integer::sum);
+            }
+
+            List<LeaveCalendarDto.Absence> absences = new ArrayList<>(active.size());
+            for (Interval interval : active) {
+                absences.add(new LeaveCalendarDto.Absence(interval.employeeId(), interval.employeeName(),
+                        interval.leaveId(), interval.leaveType()));
+            }
+            days.add(new LeaveCalendarDto.Day(month.atDay(day), leavesPerEmployee.size(), absences));
+        }
+        return new LeaveCalendarDto(departmentId, month.toString(), days);
+    }
+
+    private record CalendarKey(Long departmentId, YearMonth month) {
+    }
+
+    // Days are days of the month, already clipped to it
+    private record Interval(Long leaveId, Long employeeId, String employeeName, Leave.LeaveType leaveType,
+                            int firstDay, int lastDay) {
+    }
+}
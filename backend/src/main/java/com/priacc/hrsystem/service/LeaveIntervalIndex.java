@@ -0,0 +1,178 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.model.Leave;
+import com.priacc.hrsystem.repository.LeaveRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of every employee's PENDING and APPROVED leave, used to
+ * find overlaps without a query.
+ *
+ * Per employee the intervals are kept in an immutable array sorted by start
+ * date, together with the running maximum of the end dates. An overlap
+ * query binary-searches the last interval starting on or before the query's
+ * end and walks back only while the running maximum still reaches the
+ * query's start; since an employee's own leaves do not overlap, that walk
+ * touches little more than the matches. Changes replace the employee's
+ * array after the surrounding transaction commits, so reads take no lock.
+ *
+ * The exclusion constraint on leaves stays the source of truth; this index
+ * only saves the round trip for the common case.
+ */
+@Component
+public class LeaveIntervalIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaveIntervalIndex.class);
+
+    @Autowired
+    private LeaveRepository leaveRepository;
+
+    private final ConcurrentHashMap<Long, Intervals> byEmployee = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Long, List<Interval>> loaded = new HashMap<>();
+        List<Object[]> rows = leaveRepository.findIntervalRows(LeaveService.BLOCKING_STATUSES);
+        for (Object[] row : rows) {
+            loaded.computeIfAbsent((Long) row[1], id -> new ArrayList<>())
+                    .add(new Interval((Long) row[0], (LocalDate) row[2], (LocalDate) row[3]));
+        }
+
+        byEmployee.clear();
+        loaded.forEach((employeeId, intervals) -> byEmployee.put(employeeId, Intervals.of(intervals)));
+        logger.info("Leave interval index built with {} leaves for {} employees", rows.size(), loaded.size());
+    }
+
+    /**
+     * Ids of the employee's pending or approved leaves that share at least
+     * one day with the given range, ignoring {@code excludeLeaveId}.
+     */
+    public List<Long> findOverlapping(Long employeeId, LocalDate startDate, LocalDate endDate, Long excludeLeaveId) {
+        Intervals intervals = byEmployee.get(employeeId);
+        return intervals != null ? intervals.overlapping(startDate, endDate, excludeLeaveId) : List.of();
+    }
+
+    /**
+     * Record the leave's current dates and status once the surrounding
+     * transaction commits.
+     */
+    public void onSaved(Leave leave) {
+        Long leaveId = leave.getId();
+        Long employeeId = leave.getEmployee().getId();
+        Interval interval = LeaveService.BLOCKING_STATUSES.contains(leave.getStatus())
+                ? new Interval(leaveId, leave.getStartDate(), leave.getEndDate()) : null;
+        AfterCommit.run(() -> byEmployee.compute(employeeId, (id, current) -> {
+            List<Interval> intervals = current != null ? current.without(leaveId) : new ArrayList<>();
+            if (interval != null) {
+                intervals.add(interval);
+            }
+            return intervals.isEmpty() ? null : Intervals.of(intervals);
+        }));
+    }
+
+    public void onDeleted(Leave leave) {
+        onRemoved(leave.getEmployee().getId(), leave.getId());
+    }
+
+    /**
+     * Forget a leave that was deleted or stopped blocking, once the
+     * surrounding transaction commits.
+     */
+    public void onRemoved(Long employeeId, Long leaveId) {
+        AfterCommit.run(() -> byEmployee.computeIfPresent(employeeId, (id, current) -> {
+            List<Interval> intervals = current.without(leaveId);
+            return intervals.isEmpty() ? null : Intervals.of(intervals);
+        }));
+    }
+
+    public int size() {
+        return byEmployee.values().stream().mapToInt(intervals -> intervals.leaveIds.length).sum();
+    }
+
+    private record Interval(Long leaveId, LocalDate start, LocalDate end) {
+    }
+
+    /**
+     * One employee's intervals, sorted by start, with the running maximum end.
+     */
+    private static final class Intervals {
+
+        final long[] leaveIds;
+        final long[] starts;
+        final long[] ends;
+        final long[] maxEnds;
+
+        private Intervals(int size) {
+            leaveIds = new long[size];
+            starts = new long[size];
+            ends = new long[size];
+            maxEnds = new long[size];
+        }
+
+        static Intervals of(List<Interval> intervals) {
+            Interval[] sorted = intervals.toArray(new Interval[0]);
+            Arrays.sort(sorted, Comparator.comparing(Interval::start));
+            Intervals result = new Intervals(sorted.length);
+            long maxEnd = Long.MIN_VALUE;
+            for (int i = 0; i < sorted.length; i++) {
+                result.leaveIds[i] = sorted[i].leaveId();
+                result.starts[i] = sorted[i].start().toEpochDay();
+                result.ends[i] = sorted[i].end().toEpochDay();
+                maxEnd = Math.max(maxEnd, result.ends[i]);
+                result.maxEnds[i] = maxEnd;
+            }
+            return result;
+        }
+
+        List<Long> overlapping(LocalDate startDate, LocalDate endDate, Long excludeLeaveId) {
+            long start = startDate.toEpochDay();
+            long end = endDate.toEpochDay();
+
+            // Last interval that starts on or before the query's end
+            int low = 0;
+            int high = starts.length - 1;
+            int last = -1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (starts[mid] <= end) {
+                    last = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+
+            List<Long> overlapping = new ArrayList<>(2);
+            for (int i = last; i >= 0 && maxEnds[i] >= start; i--) {
+                if (ends[i] >= start && (excludeLeaveId == null || leaveIds[i] != excludeLeaveId)) {
+                    overlapping.add(leaveIds[i]);
+                }
+            }
+            return overlapping;
+        }
+
+        List<Interval> without(Long leaveId) {
+            List<Interval> remaining = new ArrayList<>(leaveIds.length);
+            for (int i = 0; i < leaveIds.length; i++) {
+                if (leaveIds[i] != leaveId) {
+                    remaining.add(new Interval(leaveIds[i], LocalDate.ofEpochDay(starts[i]), LocalDate.ofEpochDay(ends[i])));
+                }
+            }
+            return remaining;
+        }
+    }
+}
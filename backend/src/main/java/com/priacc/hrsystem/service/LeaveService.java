@@ -1,38 +1,92 @@
 package com.priacc.hrsystem.service;
 
+import com.priacc.hrsystem.dto.CursorPage;
+import com.priacc.hrsystem.dto.LeaveDecisionRequest;
+import com.priacc.hrsystem.dto.LeaveDecisionResult;
 import com.priacc.hrsystem.dto.LeaveDto;
+import com.priacc.hrsystem.dto.PageCursor;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.exception.LeaveConflictException;
 import com.priacc.hrsystem.exception.ResourceNotFoundException;
 import com.priacc.hrsystem.model.Employee;
 import com.priacc.hrsystem.model.Leave;
 import com.priacc.hrsystem.model.User;
-import com.priacc.hrsystem.repository.EmployeeRepository;
 import com.priacc.hrsystem.repository.LeaveRepository;
 import com.priacc.hrsystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class LeaveService {
 
+    private static final String OVERLAP_CONSTRAINT = "ex_leaves_employee_period";
+
+    static final List<Leave.LeaveStatus> BLOCKING_STATUSES = List.of(Leave.LeaveStatus.PENDING, Leave.LeaveStatus.APPROVED);
+
+    // Locks the rows so nothing changes between validation and the update. Rows are locked
+    // in id order, and leaves before balances, the same order as every other leave write.
+    private static final String LOCK_FOR_DECISION_SQL = "SELECT id, employee_id, status, leave_type, start_date, end_date "
+            + "FROM leaves WHERE id IN (:ids) ORDER BY id FOR UPDATE";
+
+    private static final String DECIDE_SQL = "UPDATE leaves SET status = :status, approved_by = :approverId, "
+            + "approved_at = :now, comments = :comments, updated_at = :now "
+            + "WHERE id IN (:ids) AND status = 'PENDING'";
+
     @Autowired
     private LeaveRepository leaveRepository;
 
     @Autowired
-    private EmployeeRepository employeeRepository;
+    private EmployeeService employeeService;
+
+    @Autowired
+    private RowCountService rowCountService;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private LeaveIntervalIndex leaveIntervalIndex;
+
+    @Autowired
+    private LeaveBalanceService leaveBalanceService;
+
+    @Autowired
+    private LeaveCalendarService leaveCalendarService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WorkingCalendar workingCalendar;
+
+    @Value("${app.leave.bulk-decision.max-size:500}")
+    private int bulkDecisionMaxSize;
+
     public List<Leave> getAllLeaves() {
         return leaveRepository.findAll();
     }
@@ -41,28 +95,47 @@ public class LeaveService {
         return leaveRepository.findAll(pageable);
     }
 
+    /**
+     * Keyset page of leaves, latest start date first.
+     *
+     * @param cursor token from the previous page, or null for the first page
+     * @param size maximum number of rows to return
+     * @param countMode whether to include a total and how to compute it
+     */
+    public CursorPage<LeaveDto> getLeavesPage(String cursor, int size, CursorPage.CountMode countMode) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<LeaveDto> rows = after == null
+                ? leaveRepository.findDtosFirstPage(PageCursor.limit(size))
+                : leaveRepository.findDtosBefore(after.getSortKeyAsDate(), after.getId(), PageCursor.limit(size));
+        Long total = rowCountService.count("leaves", countMode, leaveRepository::count);
+        return CursorPage.of(rows, size, dto -> PageCursor.encode(dto.getStartDate(), dto.getId()), total, countMode);
+    }
+
     public Leave getLeaveById(Long id) {
         return leaveRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Leave not found with id: " + id));
     }
 
+    // Status changes lock the leave first, so concurrent approvals and cancellations see each other's result
+    private Leave getLeaveForUpdate(Long id) {
+        return leaveRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Leave not found with id: " + id));
+    }
+
     public List<Leave> getLeavesByEmployee(Long employeeId) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         
         return leaveRepository.findByEmployee(employee);
     }
 
     public Page<Leave> getLeavesByEmployee(Long employeeId, Pageable pageable) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         
         return leaveRepository.findByEmployee(employee, pageable);
     }
 
     public List<Leave> getLeavesByEmployeeAndStatus(Long employeeId, Leave.LeaveStatus status) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         
         return leaveRepository.findByEmployeeAndStatus(employee, status);
     }
@@ -82,8 +155,7 @@ public class LeaveService {
     }
 
     public List<Leave> getLeavesByEmployeeAndDateRange(Long employeeId, LocalDate startDate, LocalDate endDate) {
-        Employee employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + employeeId));
+        Employee employee = employeeService.getEmployeeReference(employeeId);
         
         return leaveRepository.findByEmployeeAndDateRange(employee, startDate, endDate);
     }
@@ -100,8 +172,7 @@ public class LeaveService {
 
     @Transactional
     public Leave createLeave(LeaveDto leaveDto) {
-        Employee employee = employeeRepository.findById(leaveDto.getEmployeeId())
-                .orElseThrow(() -> new ResourceNotFoundException("Employee not found with id: " + leaveDto.getEmployeeId()));
+        Employee employee = employeeService.getEmployeeReference(leaveDto.getEmployeeId());
         
         // Validate leave dates
         if (leaveDto.getStartDate().isAfter(leaveDto.getEndDate())) {
@@ -109,15 +180,10 @@ public class LeaveService {
         }
         
         // Check for overlapping leaves
-        List<Leave> overlappingLeaves = leaveRepository.findByEmployeeAndDateRange(
-                employee, 
-                leaveDto.getStartDate(), 
-                leaveDto.getEndDate()
-        );
+        checkOverlap(employee.getId(), leaveDto.getStartDate(), leaveDto.getEndDate(), null);
         
-        if (!overlappingLeaves.isEmpty()) {
-            throw new IllegalArgumentException("Employee already has leave scheduled during this period");
-        }
+        leaveBalanceService.checkAvailable(employee.getId(), leaveDto.getLeaveType(),
+                leaveDto.getStartDate(), leaveDto.getEndDate());
         
         Leave leave = new Leave();
         leave.setEmployee(employee);
@@ -128,16 +194,14 @@ public class LeaveService {
         leave.setStatus(Leave.LeaveStatus.PENDING); // Default status is PENDING
         leave.setCreatedAt(LocalDateTime.now());
         
-        // Calculate number of days
-        long days = ChronoUnit.DAYS.between(leaveDto.getStartDate(), leaveDto.getEndDate()) + 1;
-        leave.setNumberOfDays((int) days);
+        leave.setNumberOfDays(countWorkingDays(employee.getId(), leaveDto.getStartDate(), leaveDto.getEndDate()));
         
-        return leaveRepository.save(leave);
+        return saveChecked(leave, null);
     }
 
     @Transactional
     public Leave updateLeave(Long id, LeaveDto leaveDto) {
-        Leave leave = getLeaveById(id);
+        Leave leave = getLeaveForUpdate(id);
         
         // Only allow updates if leave is still pending
         if (leave.getStatus() != Leave.LeaveStatus.PENDING) {
@@ -150,17 +214,10 @@ public class LeaveService {
         }
         
         // Check for overlapping leaves (excluding this leave)
-        List<Leave> overlappingLeaves = leaveRepository.findByEmployeeAndDateRange(
-                leave.getEmployee(), 
-                leaveDto.getStartDate(), 
-                leaveDto.getEndDate()
-        );
-        
-        overlappingLeaves.removeIf(l -> l.getId().equals(id)); // Remove this leave from the list
+        checkOverlap(leave.getEmployee().getId(), leaveDto.getStartDate(), leaveDto.getEndDate(), id);
         
-        if (!overlappingLeaves.isEmpty()) {
-            throw new IllegalArgumentException("Employee already has leave scheduled during this period");
-        }
+        leaveBalanceService.checkAvailable(leave.getEmployee().getId(), leaveDto.getLeaveType(),
+                leaveDto.getStartDate(), leaveDto.getEndDate());
         
         leave.setLeaveType(leaveDto.getLeaveType());
         leave.setStartDate(leaveDto.getStartDate());
@@ -168,16 +225,14 @@ public class LeaveService {
         leave.setReason(leaveDto.getReason());
         leave.setUpdatedAt(LocalDateTime.now());
         
-        // Recalculate number of days
-        long days = ChronoUnit.DAYS.between(leaveDto.getStartDate(), leaveDto.getEndDate()) + 1;
-        leave.setNumberOfDays((int) days);
+        leave.setNumberOfDays(countWorkingDays(leave.getEmployee().getId(), leaveDto.getStartDate(), leaveDto.getEndDate()));
         
-        return leaveRepository.save(leave);
+        return saveChecked(leave, id);
     }
 
     @Transactional
     public Leave approveLeave(Long id, Long approverId, String comments) {
-        Leave leave = getLeaveById(id);
+        Leave leave = getLeaveForUpdate(id);
         
         // Only allow approval if leave is pending
         if (leave.getStatus() != Leave.LeaveStatus.PENDING) {
@@ -185,8 +240,7 @@ public class LeaveService {
         }
         
         // Get approver by ID
-        Employee approver = employeeRepository.findById(approverId)
-                .orElseThrow(() -> new ResourceNotFoundException("Approver not found with id: " + approverId));
+        Employee approver = employeeService.getEmployeeReference(approverId);
         
         leave.setStatus(Leave.LeaveStatus.APPROVED);
         leave.setApprovedBy(approver);
@@ -194,12 +248,17 @@ public class LeaveService {
         leave.setComments(comments);
         leave.setUpdatedAt(LocalDateTime.now());
         
-        return leaveRepository.save(leave);
+        // Charged in the same transaction, so a short balance rolls the approval back
+        leaveBalanceService.consume(leave);
+        
+        Leave saved = leaveRepository.save(leave);
+        leaveCalendarService.onLeaveChanged(saved);
+        return saved;
     }
 
     @Transactional
     public Leave rejectLeave(Long id, Long approverId, String comments) {
-        Leave leave = getLeaveById(id);
+        Leave leave = getLeaveForUpdate(id);
         
         // Only allow rejection if leave is pending
         if (leave.getStatus() != Leave.LeaveStatus.PENDING) {
@@ -207,8 +266,7 @@ public class LeaveService {
         }
         
         // Get approver by ID
-        Employee approver = employeeRepository.findById(approverId)
-                .orElseThrow(() -> new ResourceNotFoundException("Approver not found with id: " + approverId));
+        Employee approver = employeeService.getEmployeeReference(approverId);
         
         leave.setStatus(Leave.LeaveStatus.REJECTED);
         leave.setApprovedBy(approver);
@@ -216,27 +274,192 @@ public class LeaveService {
         leave.setComments(comments);
         leave.setUpdatedAt(LocalDateTime.now());
         
-        return leaveRepository.save(leave);
+        Leave saved = leaveRepository.save(leave);
+        leaveIntervalIndex.onSaved(saved);
+        leaveCalendarService.onLeaveChanged(saved);
+        return saved;
+    }
+
+    /**
+     * Approve or reject many pending leaves in one transaction. All ids are
+     * validated with one locking read and the valid ones are changed with one
+     * UPDATE; the rest are reported per id and left untouched.
+     */
+    @Transactional
+    public LeaveDecisionResult decideLeaves(LeaveDecisionRequest request) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(request.getLeaveIds()));
+        if (ids.contains(null)) {
+            throw new BadRequestException("Leave IDs must not be null");
+        }
+        if (ids.size() > bulkDecisionMaxSize) {
+            throw new BadRequestException("At most " + bulkDecisionMaxSize + " leaves can be decided at once");
+        }
+        boolean approve = request.getDecision() == LeaveDecisionRequest.Decision.APPROVE;
+        
+        // Fails with 404 when the approver does not exist
+        employeeService.getEmployeeReference(request.getApproverId());
+        
+        NamedParameterJdbcTemplate namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        Map<Long, DecisionRow> rows = new HashMap<>();
+        namedJdbcTemplate.query(LOCK_FOR_DECISION_SQL, new MapSqlParameterSource("ids", ids), rs -> {
+            String status = rs.getString("status");
+            rows.put(rs.getLong("id"), new DecisionRow(rs.getLong("id"), rs.getLong("employee_id"),
+                    status != null ? Leave.LeaveStatus.valueOf(status) : null,
+                    Leave.LeaveType.valueOf(rs.getString("leave_type")),
+                    rs.getObject("start_date", LocalDate.class), rs.getObject("end_date", LocalDate.class)));
+        });
+        
+        Map<Long, LeaveDecisionResult.Item> failures = new HashMap<>();
+        List<DecisionRow> accepted = new ArrayList<>();
+        for (Long id : ids) {
+            DecisionRow row = rows.get(id);
+            if (row == null) {
+                failures.put(id, new LeaveDecisionResult.Item(id, LeaveDecisionResult.Outcome.NOT_FOUND,
+                        "Leave not found with id: " + id));
+            } else if (row.status() != Leave.LeaveStatus.PENDING) {
+                failures.put(id, new LeaveDecisionResult.Item(id, LeaveDecisionResult.Outcome.INVALID_STATUS,
+                        "Leave is " + row.status() + ", not PENDING"));
+            } else {
+                accepted.add(row);
+            }
+        }
+        
+        if (approve && !accepted.isEmpty()) {
+            Set<Long> uncovered = leaveBalanceService.consumeAll(accepted.stream()
+                    .map(row -> new LeaveBalanceService.Charge(row.id(), row.employeeId(), row.leaveType(),
+                            row.startDate(), row.endDate()))
+                    .toList());
+            accepted.removeIf(row -> {
+                if (!uncovered.contains(row.id())) {
+                    return false;
+                }
+                failures.put(row.id(), new LeaveDecisionResult.Item(row.id(), LeaveDecisionResult.Outcome.INSUFFICIENT_BALANCE,
+                        "Insufficient " + row.leaveType() + " leave balance"));
+                return true;
+            });
+        }
+        
+        if (!accepted.isEmpty()) {
+            MapSqlParameterSource params = new MapSqlParameterSource()
+                    .addValue("status", (approve ? Leave.LeaveStatus.APPROVED : Leave.LeaveStatus.REJECTED).name())
+                    .addValue("approverId", request.getApproverId())
+                    .addValue("now", LocalDateTime.now())
+                    .addValue("comments", request.getComments())
+                    .addValue("ids", accepted.stream().map(DecisionRow::id).toList());
+            int updated = namedJdbcTemplate.update(DECIDE_SQL, params);
+            if (updated != accepted.size()) {
+                throw new IllegalStateException("Expected to decide " + accepted.size() + " leaves but updated " + updated);
+            }
+        }
+        
+        for (DecisionRow row : accepted) {
+            if (!approve) {
+                leaveIntervalIndex.onRemoved(row.employeeId(), row.id());
+            }
+            leaveCalendarService.onLeaveChanged(row.employeeId(), row.startDate(), row.endDate());
+        }
+        
+        LeaveDecisionResult.Outcome success = approve ? LeaveDecisionResult.Outcome.APPROVED : LeaveDecisionResult.Outcome.REJECTED;
+        LeaveDecisionResult result = new LeaveDecisionResult();
+        result.setDecision(request.getDecision());
+        for (Long id : ids) {
+            LeaveDecisionResult.Item failure = failures.get(id);
+            result.getResults().add(failure != null ? failure : new LeaveDecisionResult.Item(id, success, null));
+        }
+        result.setSucceededCount(accepted.size());
+        result.setFailedCount(failures.size());
+        return result;
     }
 
     @Transactional
     public Leave cancelLeave(Long id) {
-        Leave leave = getLeaveById(id);
+        Leave leave = getLeaveForUpdate(id);
         
         // Only allow cancellation if leave is not already cancelled or taken
         if (leave.getStatus() == Leave.LeaveStatus.CANCELLED || leave.getStatus() == Leave.LeaveStatus.TAKEN) {
             throw new IllegalStateException("Cannot cancel leave that is already cancelled or taken");
         }
         
+        if (leave.getStatus() == Leave.LeaveStatus.APPROVED) {
+            leaveBalanceService.reverse(leave, "Leave cancelled");
+        }
+        
         leave.setStatus(Leave.LeaveStatus.CANCELLED);
         leave.setUpdatedAt(LocalDateTime.now());
         
-        return leaveRepository.save(leave);
+        Leave saved = leaveRepository.save(leave);
+        leaveIntervalIndex.onSaved(saved);
+        leaveCalendarService.onLeaveChanged(saved);
+        return saved;
     }
 
     @Transactional
     public void deleteLeave(Long id) {
-        Leave leave = getLeaveById(id);
+        Leave leave = getLeaveForUpdate(id);
+        if (leave.getStatus() == Leave.LeaveStatus.APPROVED) {
+            leaveBalanceService.reverse(leave, "Leave deleted");
+        }
         leaveRepository.delete(leave);
+        leaveIntervalIndex.onDeleted(leave);
+        leaveCalendarService.onLeaveChanged(leave);
+    }
+
+    public List<Long> getConflictingLeaveIds(Long employeeId, LocalDate startDate, LocalDate endDate, Long excludeLeaveId) {
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date cannot be after end date");
+        }
+        return leaveIntervalIndex.findOverlapping(employeeId, startDate, endDate, excludeLeaveId);
+    }
+
+    /**
+     * Ids of the employee's pending or approved leaves overlapping the range,
+     * read from the database rather than the index.
+     */
+    public List<Long> findOverlappingLeaveIds(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        return leaveRepository.findOverlappingIds(employeeId, startDate, endDate, BLOCKING_STATUSES);
+    }
+
+    // Working days on the employee's calendar; leave has to cover at least one
+    private int countWorkingDays(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        long days = workingCalendar.countWorkingDaysForEmployee(employeeId, startDate, endDate);
+        if (days == 0) {
+            throw new BadRequestException("Leave does not cover any working days");
+        }
+        return (int) days;
+    }
+
+    private void checkOverlap(Long employeeId, LocalDate startDate, LocalDate endDate, Long excludeLeaveId) {
+        List<Long> conflicts = leaveIntervalIndex.findOverlapping(employeeId, startDate, endDate, excludeLeaveId);
+        if (!conflicts.isEmpty()) {
+            throw new LeaveConflictException("Employee already has leave scheduled during this period", conflicts);
+        }
+    }
+
+    // The exclusion constraint catches overlaps the index has not seen yet, e.g. from a concurrent request
+    private Leave saveChecked(Leave leave, Long excludeLeaveId) {
+        Leave saved;
+        try {
+            saved = leaveRepository.saveAndFlush(leave);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getMessage() == null || !e.getMessage().contains(OVERLAP_CONSTRAINT)) {
+                throw e;
+            }
+            // This transaction is aborted, so look the conflicts up in a new one
+            TransactionTemplate lookup = new TransactionTemplate(transactionManager);
+            lookup.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            lookup.setReadOnly(true);
+            List<Long> conflicts = new ArrayList<>(lookup.execute(status -> findOverlappingLeaveIds(
+                    leave.getEmployee().getId(), leave.getStartDate(), leave.getEndDate())));
+            if (excludeLeaveId != null) {
+                conflicts.remove(excludeLeaveId);
+            }
+            throw new LeaveConflictException("Employee already has leave scheduled during this period", conflicts);
+        }
+        leaveIntervalIndex.onSaved(saved);
+        return saved;
+    }
+
+    private record DecisionRow(Long id, Long employeeId, Leave.LeaveStatus status, Leave.LeaveType leaveType,
+                               LocalDate startDate, LocalDate endDate) {
     }
 }
\ No newline at end of file
@@ -0,0 +1,261 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.model.Employee;
+import com.priacc.hrsystem.repository.EmployeeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index of the organisation used by authorization checks.
+ *
+ * Each employee gets a dense slot. Per slot we keep the employee id, user id,
+ * department id and the slot of the direct manager in primitive arrays, so a
+ * "is X in Y's reporting chain" check is a walk of at most the chain depth with
+ * no database access. The index is loaded once at startup and then updated
+ * incrementally after EmployeeService commits a change.
+ */
+@Component
+public class OrgHierarchyIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrgHierarchyIndex.class);
+
+    private static final int NO_SLOT = -1;
+    private static final long NONE = 0L;
+
+    @Autowired
+    private EmployeeRepository employeeRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> slotsByEmployeeId = new HashMap<>();
+    private final Map<Long, Integer> slotsByUserId = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private long[] employeeIds = new long[0];
+    private long[] userIds = new long[0];
+    private long[] departmentIds = new long[0];
+    private int[] managerSlots = new int[0];
+    private int slotCount;
+
+    // Before other startup listeners, which resolve departments from this index
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Object[]> rows = employeeRepository.findOrgHierarchyRows();
+
+        lock.writeLock().lock();
+        try {
+            slotsByEmployeeId.clear();
+            slotsByUserId.clear();
+            freeSlots.clear();
+            slotCount = 0;
+            int capacity = Math.max(16, rows.size() * 2);
+            employeeIds = new long[capacity];
+            userIds = new long[capacity];
+            departmentIds = new long[capacity];
+            managerSlots = new int[capacity];
+
+            for (Object[] row : rows) {
+                apply((Long) row[0], (Long) row[1], (Long) row[2], (Long) row[3]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        logger.info("Org hierarchy index built with {} employees", rows.size());
+    }
+
+    public Long getEmployeeIdForUser(Long userId) {
+        if (userId == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsByUserId.get(userId);
+            return slot != null ? employeeIds[slot] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Check whether {@code managerEmployeeId} appears anywhere above
+     * {@code employeeId} in the reporting chain.
+     */
+    public boolean isInReportingChain(Long managerEmployeeId, Long employeeId) {
+        if (managerEmployeeId == null || employeeId == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            Integer managerSlot = slotsByEmployeeId.get(managerEmployeeId);
+            Integer slot = slotsByEmployeeId.get(employeeId);
+            if (managerSlot == null || slot == null) {
+                return false;
+            }
+
+            // Bounded by the number of slots so a bad cycle in the data cannot loop forever
+            int current = managerSlots[slot];
+            for (int steps = 0; current != NO_SLOT && steps < slotCount; steps++) {
+                if (current == managerSlot) {
+                    return true;
+                }
+                current = managerSlots[current];
+            }
+            return false;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The employee's department, or null when the employee has none or is unknown.
+     */
+    public Long getDepartmentId(Long employeeId) {
+        if (employeeId == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsByEmployeeId.get(employeeId);
+            return slot != null && departmentIds[slot] != NONE ? departmentIds[slot] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isSameDepartment(Long employeeId, Long otherEmployeeId) {
+        if (employeeId == null || otherEmployeeId == null) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            Integer slot = slotsByEmployeeId.get(employeeId);
+            Integer otherSlot = slotsByEmployeeId.get(otherEmployeeId);
+            return slot != null && otherSlot != null
+                    && departmentIds[slot] != NONE
+                    && departmentIds[slot] == departmentIds[otherSlot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Record the current user, department and manager of an employee once the
+     * surrounding transaction commits.
+     */
+    public void onEmployeeSaved(Employee employee) {
+        Long employeeId = employee.getId();
+        Long userId = employee.getUser() != null ? employee.getUser().getId() : null;
+        Long departmentId = employee.getDepartment() != null ? employee.getDepartment().getId() : null;
+        Long managerId = employee.getManager() != null ? employee.getManager().getId() : null;
+
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                apply(employeeId, userId, departmentId, managerId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void onEmployeeDeleted(Long employeeId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                Integer slot = slotsByEmployeeId.remove(employeeId);
+                if (slot == null) {
+                    return;
+                }
+                if (userIds[slot] != NONE) {
+                    slotsByUserId.remove(userIds[slot]);
+                }
+                for (int i = 0; i < slotCount; i++) {
+                    if (managerSlots[i] == slot) {
+                        managerSlots[i] = NO_SLOT;
+                    }
+                }
+                employeeIds[slot] = NONE;
+                userIds[slot] = NONE;
+                departmentIds[slot] = NONE;
+                managerSlots[slot] = NO_SLOT;
+                freeSlots.push(slot);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotsByEmployeeId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Caller must hold the write lock
+    private void apply(Long employeeId, Long userId, Long departmentId, Long managerId) {
+        int slot = slotFor(employeeId);
+
+        if (userIds[slot] != NONE) {
+            slotsByUserId.remove(userIds[slot]);
+        }
+        userIds[slot] = userId != null ? userId : NONE;
+        if (userId != null) {
+            slotsByUserId.put(userId, slot);
+        }
+
+        departmentIds[slot] = departmentId != null ? departmentId : NONE;
+        managerSlots[slot] = managerId != null ? slotFor(managerId) : NO_SLOT;
+    }
+
+    // Caller must hold the write lock. Managers seen before their own row get a placeholder slot.
+    private int slotFor(Long employeeId) {
+        Integer existing = slotsByEmployeeId.get(employeeId);
+        if (existing != null) {
+            return existing;
+        }
+
+        int slot;
+        if (!freeSlots.isEmpty()) {
+            slot = freeSlots.pop();
+        } else {
+            if (slotCount == employeeIds.length) {
+                grow();
+            }
+            slot = slotCount++;
+        }
+
+        employeeIds[slot] = employeeId;
+        userIds[slot] = NONE;
+        departmentIds[slot] = NONE;
+        managerSlots[slot] = NO_SLOT;
+        slotsByEmployeeId.put(employeeId, slot);
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, employeeIds.length * 2);
+        employeeIds = Arrays.copyOf(employeeIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        departmentIds = Arrays.copyOf(departmentIds, capacity);
+        managerSlots = Arrays.copyOf(managerSlots, capacity);
+    }
+}
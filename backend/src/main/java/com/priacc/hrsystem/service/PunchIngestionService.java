@@ -0,0 +1,384 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.PunchAck;
+import com.priacc.hrsystem.dto.PunchRequest;
+import com.priacc.hrsystem.dto.PunchRequest.PunchType;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.exception.ServiceBusyException;
+import com.priacc.hrsystem.model.Attendance;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional asynchronous ingestion path for attendance punches.
+ *
+ * A punch is appended to the {@link PunchJournal}, fsynced as part of a group
+ * commit and placed on a bounded queue; the caller is acknowledged with its
+ * journal sequence number. A single writer thread drains the queue and
+ * applies punches in order, in one transaction per batch, then checkpoints
+ * the journal. Punches still in the journal at startup are replayed first.
+ *
+ * Each punch is a guarded statement (a check-in only fills an empty
+ * check-in, a check-out only closes an open day, and so on), so a punch that
+ * does not apply is skipped and replaying an already applied punch is a
+ * no-op.
+ */
+@Service
+public class PunchIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PunchIngestionService.class);
+
+    private static final String CHECK_IN_SQL = "INSERT INTO attendances (employee_id, date, check_in_time, status, "
+            + "ip_address, location, work_hours, created_at, updated_at) "
+            + "SELECT e.id, ?, ?, ?, ?, ?, 0, ?, ? FROM employees e WHERE e.id = ? "
+            + "ON CONFLICT (employee_id, date) DO UPDATE SET check_in_time = EXCLUDED.check_in_time, "
+            + "status = EXCLUDED.status, ip_address = EXCLUDED.ip_address, location = EXCLUDED.location, "
+            + "updated_at = EXCLUDED.updated_at "
+            + "WHERE attendances.check_in_time IS NULL";
+    private static final int[] CHECK_IN_TYPES = {
+            Types.DATE, Types.TIME, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.TIMESTAMP, Types.TIMESTAMP,
+            Types.BIGINT
+    };
+
+    // Work hours are whole minutes worked minus whole minutes on break, as in AttendanceService.checkOut
+    private static final String CHECK_OUT_SQL = "UPDATE attendances SET check_out_time = ?, "
+            + "ip_address = COALESCE(?, ip_address), location = COALESCE(?, location), "
+            + "work_hours = (FLOOR(EXTRACT(EPOCH FROM (CAST(? AS time) - check_in_time)) / 60) "
+            + "- COALESCE(FLOOR(EXTRACT(EPOCH FROM (break_end_time - break_start_time)) / 60), 0)) / 60.0, "
+            + "updated_at = ? "
+            + "WHERE employee_id = ? AND date = ? AND check_in_time IS NOT NULL AND check_out_time IS NULL";
+    private static final int[] CHECK_OUT_TYPES = {
+            Types.TIME, Types.VARCHAR, Types.VARCHAR, Types.TIME, Types.TIMESTAMP, Types.BIGINT, Types.DATE
+    };
+
+    private static final String BREAK_START_SQL = "UPDATE attendances SET break_start_time = ?, updated_at = ? "
+            + "WHERE employee_id = ? AND date = ? AND check_in_time IS NOT NULL AND check_out_time IS NULL "
+            + "AND NOT (break_start_time IS NOT NULL AND break_end_time IS NULL)";
+    private static final String BREAK_END_SQL = "UPDATE attendances SET break_end_time = ?, updated_at = ? "
+            + "WHERE employee_id = ? AND date = ? AND break_start_time IS NOT NULL AND break_end_time IS NULL";
+    private static final int[] BREAK_TYPES = {
+            Types.TIME, Types.TIMESTAMP, Types.BIGINT, Types.DATE
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AttendanceDayState attendanceDayState;
+
+    @Value("${app.attendance.ingest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.attendance.ingest.journal-dir:./data/punch-journal}")
+    private String journalDir;
+
+    @Value("${app.attendance.ingest.fsync:true}")
+    private boolean fsync;
+
+    @Value("${app.attendance.ingest.queue-capacity:20000}")
+    private int queueCapacity;
+
+    @Value("${app.attendance.ingest.batch-size:500}")
+    private int batchSize;
+
+    // How long the writer waits for more punches after the first one of a batch arrives
+    @Value("${app.attendance.ingest.linger-ms:5}")
+    private long lingerMs;
+
+    @Value("${app.attendance.ingest.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${app.attendance.ingest.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Value("${app.attendance.ingest.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private final Object appendLock = new Object();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private volatile PunchJournal journal;
+    private volatile boolean running;
+    private ArrayBlockingQueue<PunchJournal.Entry> queue;
+    private Thread writer;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+
+        PunchJournal opened = new PunchJournal(Paths.get(journalDir), fsync);
+        List<PunchJournal.Entry> backlog = opened.recover();
+        if (!backlog.isEmpty()) {
+            logger.info("Replaying {} unflushed attendance punches from the journal", backlog.size());
+        }
+
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        journal = opened;
+        writer = new Thread(() -> runWriter(backlog), "punch-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        logger.info("Attendance punch ingestion started with queue capacity {} and batch size {}",
+                queueCapacity, batchSize);
+    }
+
+    /**
+     * Journal a punch and queue it for the writer. Returns once the punch is
+     * durable in the journal; it reaches the attendance table shortly after.
+     */
+    public PunchAck submit(PunchRequest request) {
+        if (!enabled) {
+            throw new BadRequestException("Punch ingestion is not enabled");
+        }
+        PunchJournal current = journal;
+        if (current == null || !running) {
+            throw new ServiceBusyException("Punch ingestion is not accepting punches right now", retryAfterSeconds);
+        }
+
+        PunchJournal.Entry entry;
+        try {
+            synchronized (appendLock) {
+                if (queue.remainingCapacity() == 0) {
+                    rejected.increment();
+                    throw new ServiceBusyException("Too many pending punches, please retry shortly", retryAfterSeconds);
+                }
+                entry = current.append(request.getType(), request.getEmployeeId(), LocalDateTime.now(),
+                        request.getIpAddress(), request.getLocation());
+                queue.add(entry);
+            }
+            current.sync(entry.sequence());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write attendance punch journal", e);
+        }
+
+        accepted.increment();
+        return new PunchAck(entry.sequence(), entry.employeeId(), entry.type(), entry.punchTime());
+    }
+
+    public Map<String, Number> getStats() {
+        PunchJournal current = journal;
+        long batchCount = batches.sum();
+        Map<String, Number> stats = new LinkedHashMap<>();
+        stats.put("accepted", accepted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("applied", applied.sum());
+        stats.put("skipped", skipped.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("queueDepth", queue != null ? queue.size() : 0);
+        stats.put("batches", batchCount);
+        stats.put("averageBatchSize", batchCount == 0 ? 0.0 : (applied.sum() + skipped.sum()) / (double) batchCount);
+        stats.put("lastSequence", current != null ? current.getAppendedSequence() : 0);
+        stats.put("flushedSequence", current != null ? current.getCheckpointSequence() : 0);
+        return stats;
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (journal == null) {
+            return;
+        }
+        synchronized (appendLock) {
+            running = false;
+        }
+        writer.join(shutdownTimeoutMs);
+        if (writer.isAlive()) {
+            logger.warn("Punch writer did not drain within {} ms, {} punches will be replayed on restart",
+                    shutdownTimeoutMs, queue.size());
+            writer.interrupt();
+        }
+        journal.close();
+    }
+
+    private void runWriter(List<PunchJournal.Entry> backlog) {
+        List<PunchJournal.Entry> batch = new ArrayList<>(batchSize);
+        int backlogPosition = 0;
+
+        while (running || !queue.isEmpty() || !batch.isEmpty() || backlogPosition < backlog.size()) {
+            try {
+                if (batch.isEmpty()) {
+                    if (backlogPosition < backlog.size()) {
+                        int end = Math.min(backlogPosition + batchSize, backlog.size());
+                        batch.addAll(backlog.subList(backlogPosition, end));
+                        backlogPosition = end;
+                    } else {
+                        PunchJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - batch.size());
+                        if (batch.size() < batchSize && lingerMs > 0) {
+                            Thread.sleep(lingerMs);
+                            queue.drainTo(batch, batchSize - batch.size());
+                        }
+                    }
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply the batch in one transaction. On success the batch is cleared; on
+     * a transient failure it is kept for the next attempt.
+     */
+    private void flush(List<PunchJournal.Entry> batch) throws InterruptedException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            transaction.executeWithoutResult(status -> apply(batch));
+            batches.increment();
+            checkpoint(batch.get(batch.size() - 1).sequence());
+            refreshDayState(batch);
+            batch.clear();
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Punch batch of {} failed a constraint, applying punches one by one", batch.size(), e);
+            flushIndividually(batch, transaction);
+        } catch (RuntimeException e) {
+            logger.warn("Could not flush {} attendance punches, will retry", batch.size(), e);
+            Thread.sleep(retryBackoffMs);
+        }
+    }
+
+    private void flushIndividually(List<PunchJournal.Entry> batch, TransactionTemplate transaction)
+            throws InterruptedException {
+        while (!batch.isEmpty()) {
+            PunchJournal.Entry entry = batch.get(0);
+            try {
+                transaction.executeWithoutResult(status -> apply(List.of(entry)));
+            } catch (DataIntegrityViolationException e) {
+                dropped.increment();
+                logger.error("Dropping attendance punch {} ({} for employee {}): {}",
+                        entry.sequence(), entry.type(), entry.employeeId(), e.getMostSpecificCause().getMessage());
+            } catch (RuntimeException e) {
+                logger.warn("Could not flush attendance punch {}, will retry", entry.sequence(), e);
+                Thread.sleep(retryBackoffMs);
+                return;
+            }
+            checkpoint(entry.sequence());
+            refreshDayState(List.of(entry));
+            batch.remove(0);
+        }
+    }
+
+    // Consecutive punches of the same type go out as one JDBC batch, keeping the overall order
+    private void apply(List<PunchJournal.Entry> batch) {
+        int from = 0;
+        while (from < batch.size()) {
+            PunchType type = batch.get(from).type();
+            int to = from + 1;
+            while (to < batch.size() && batch.get(to).type() == type) {
+                to++;
+            }
+
+            List<Object[]> args = new ArrayList<>(to - from);
+            for (PunchJournal.Entry entry : batch.subList(from, to)) {
+                args.add(toArgs(entry));
+            }
+            int[] counts = jdbcTemplate.batchUpdate(sqlFor(type), args, typesFor(type));
+            for (int count : counts) {
+                if (count == 0) {
+                    skipped.increment();
+                } else {
+                    applied.increment();
+                }
+            }
+            from = to;
+        }
+    }
+
+    // The writer only knows how many rows each statement touched, so re-read the affected employees
+    private void refreshDayState(List<PunchJournal.Entry> batch) {
+        Set<Long> employeeIds = new HashSet<>();
+        for (PunchJournal.Entry entry : batch) {
+            employeeIds.add(entry.employeeId());
+        }
+        try {
+            attendanceDayState.reload(employeeIds);
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh today's attendance state after a punch batch", e);
+        }
+    }
+
+    private void checkpoint(long sequence) {
+        try {
+            journal.checkpoint(sequence);
+        } catch (IOException e) {
+            // The punches are committed; at worst they are replayed, which is a no-op
+            logger.warn("Could not checkpoint punch journal at sequence {}", sequence, e);
+        }
+    }
+
+    private static String sqlFor(PunchType type) {
+        return switch (type) {
+            case CHECK_IN -> CHECK_IN_SQL;
+            case CHECK_OUT -> CHECK_OUT_SQL;
+            case BREAK_START -> BREAK_START_SQL;
+            case BREAK_END -> BREAK_END_SQL;
+        };
+    }
+
+    private static int[] typesFor(PunchType type) {
+        return switch (type) {
+            case CHECK_IN -> CHECK_IN_TYPES;
+            case CHECK_OUT -> CHECK_OUT_TYPES;
+            case BREAK_START, BREAK_END -> BREAK_TYPES;
+        };
+    }
+
+    private static Object[] toArgs(PunchJournal.Entry entry) {
+        Date date = Date.valueOf(entry.punchTime().toLocalDate());
+        Time time = Time.valueOf(entry.punchTime().toLocalTime());
+        Timestamp timestamp = Timestamp.valueOf(entry.punchTime());
+
+        return switch (entry.type()) {
+            case CHECK_IN -> new Object[]{date, time, Attendance.AttendanceStatus.PRESENT.name(), entry.ipAddress(),
+                    entry.location(), timestamp, timestamp, entry.employeeId()};
+            case CHECK_OUT -> new Object[]{time, entry.ipAddress(), entry.location(), time, timestamp,
+                    entry.employeeId(), date};
+            case BREAK_START, BREAK_END -> new Object[]{time, timestamp, entry.employeeId(), date};
+        };
+    }
+}
@@ -0,0 +1,248 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.PunchRequest.PunchType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of attendance punches.
+ *
+ * Each record is framed as length, CRC32 and payload, so a torn write at the
+ * tail is detected and cut off on recovery. A separate checkpoint file holds
+ * the highest sequence number known to be in the database; once every
+ * journaled punch is flushed the journal is truncated.
+ *
+ * {@link #sync(long)} is a group commit: one fsync covers every record
+ * appended before it, and concurrent callers whose records are already
+ * covered return without touching the disk.
+ */
+public class PunchJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PunchJournal.class);
+
+    private static final String JOURNAL_FILE = "punches.journal";
+    private static final String CHECKPOINT_FILE = "punches.checkpoint";
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final Path journalPath;
+    private final Path checkpointPath;
+    private final boolean fsync;
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private long nextSequence = 1;
+    private volatile long appendedSequence;
+    private volatile long syncedSequence;
+    private volatile long checkpointSequence;
+
+    public PunchJournal(Path directory, boolean fsync) throws IOException {
+        Files.createDirectories(directory);
+        this.journalPath = directory.resolve(JOURNAL_FILE);
+        this.checkpointPath = directory.resolve(CHECKPOINT_FILE);
+        this.fsync = fsync;
+    }
+
+    /**
+     * Open the journal and return the punches that were journaled but never
+     * checkpointed, in sequence order. Must be called once before appending.
+     */
+    public synchronized List<Entry> recover() throws IOException {
+        checkpointSequence = readCheckpoint();
+        long lastSequence = checkpointSequence;
+        List<Entry> pending = new ArrayList<>();
+        long validLength = 0;
+
+        if (Files.exists(journalPath)) {
+            try (InputStream file = Files.newInputStream(journalPath);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(file))) {
+                while (true) {
+                    Entry entry;
+                    int length;
+                    try {
+                        length = in.readInt();
+                        int crc = in.readInt();
+                        if (length <= 0 || length > MAX_RECORD_BYTES) {
+                            break;
+                        }
+                        byte[] payload = new byte[length];
+                        in.readFully(payload);
+                        if (crc != checksum(payload)) {
+                            break;
+                        }
+                        entry = decode(payload);
+                    } catch (EOFException e) {
+                        break;
+                    }
+
+                    validLength += 8 + length;
+                    lastSequence = Math.max(lastSequence, entry.sequence());
+                    if (entry.sequence() > checkpointSequence) {
+                        pending.add(entry);
+                    }
+                }
+            }
+        }
+
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (channel.size() > validLength) {
+            logger.warn("Discarding {} bytes of incomplete punch journal data", channel.size() - validLength);
+            channel.truncate(validLength);
+        }
+        channel.position(validLength);
+
+        nextSequence = lastSequence + 1;
+        appendedSequence = lastSequence;
+        syncedSequence = lastSequence;
+        return pending;
+    }
+
+    /**
+     * Append a punch and assign its sequence number. The record is not durable
+     * until {@link #sync(long)} returns for its sequence.
+     */
+    public synchronized Entry append(PunchType type, Long employeeId, LocalDateTime punchTime,
+                                     String ipAddress, String location) throws IOException {
+        Entry entry = new Entry(nextSequence, type, employeeId, punchTime, ipAddress, location);
+        byte[] payload = encode(entry);
+
+        ByteBuffer frame = ByteBuffer.allocate(8 + payload.length);
+        frame.putInt(payload.length);
+        frame.putInt(checksum(payload));
+        frame.put(payload);
+        frame.flip();
+        while (frame.hasRemaining()) {
+            channel.write(frame);
+        }
+
+        nextSequence++;
+        appendedSequence = entry.sequence();
+        return entry;
+    }
+
+    /**
+     * Make sure every record up to the given sequence is on disk.
+     */
+    public void sync(long sequence) throws IOException {
+        if (!fsync || syncedSequence >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSequence >= sequence) {
+                return;
+            }
+            long covered = appendedSequence;
+            channel.force(false);
+            syncedSequence = covered;
+        }
+    }
+
+    /**
+     * Record that every punch up to the given sequence is in the database, and
+     * truncate the journal when nothing newer is waiting.
+     */
+    public void checkpoint(long sequence) throws IOException {
+        if (sequence <= checkpointSequence) {
+            return;
+        }
+        Path temp = checkpointPath.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, Long.toString(sequence), StandardCharsets.US_ASCII);
+        Files.move(temp, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpointSequence = sequence;
+
+        synchronized (this) {
+            if (appendedSequence == sequence && channel.size() > 0) {
+                channel.truncate(0);
+                channel.position(0);
+            }
+        }
+    }
+
+    public long getAppendedSequence() {
+        return appendedSequence;
+    }
+
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        if (!Files.exists(checkpointPath)) {
+            return 0;
+        }
+        String value = Files.readString(checkpointPath, StandardCharsets.US_ASCII).trim();
+        return value.isEmpty() ? 0 : Long.parseLong(value);
+    }
+
+    private static byte[] encode(Entry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entry.sequence());
+        out.writeByte(entry.type().ordinal());
+        out.writeLong(entry.employeeId());
+        out.writeUTF(entry.punchTime().toString());
+        writeNullable(out, entry.ipAddress());
+        writeNullable(out, entry.location());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Entry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        PunchType type = PunchType.values()[in.readByte()];
+        long employeeId = in.readLong();
+        LocalDateTime punchTime = LocalDateTime.parse(in.readUTF());
+        String ipAddress = readNullable(in);
+        String location = readNullable(in);
+        return new Entry(sequence, type, employeeId, punchTime, ipAddress, location);
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    public record Entry(long sequence, PunchType type, Long employeeId, LocalDateTime punchTime,
+                        String ipAddress, String location) {
+    }
+}
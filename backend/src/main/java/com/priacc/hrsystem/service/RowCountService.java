@@ -0,0 +1,72 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.cache.BoundedCache;
+import com.priacc.hrsystem.dto.CursorPage.CountMode;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Row counts for keyset-paged listings.
+ *
+ * An approximate count comes from the planner statistics in pg_class, which
+ * costs a catalog lookup instead of a full scan, and is cached per table. If
+ * the table has never been analyzed the exact count is used and cached instead.
+ */
+@Service
+public class RowCountService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.pagination.count-cache-ttl-ms:60000}")
+    private long countCacheTtlMs;
+
+    private BoundedCache<String, Long> approximateCounts;
+
+    @PostConstruct
+    public void init() {
+        approximateCounts = new BoundedCache<>(64, countCacheTtlMs);
+    }
+
+    /**
+     * @param table the table backing the listing
+     * @param mode how the caller wants the total computed
+     * @param exactCount exact count used for {@link CountMode#EXACT} and as a fallback
+     * @return the count, or null for {@link CountMode#NONE}
+     */
+    public Long count(String table, CountMode mode, LongSupplier exactCount) {
+        switch (mode) {
+            case EXACT:
+                return exactCount.getAsLong();
+            case APPROXIMATE:
+                Long cached = approximateCounts.get(table);
+                if (cached == null) {
+                    cached = estimate(table);
+                    if (cached == null) {
+                        cached = exactCount.getAsLong();
+                    }
+                    approximateCounts.put(table, cached);
+                }
+                return cached;
+            default:
+                return null;
+        }
+    }
+
+    private Long estimate(String table) {
+        // A partitioned table has no statistics of its own, so add up its partitions
+        List<Long> rows = jdbcTemplate.queryForList(
+                "SELECT CAST(CASE WHEN c.relkind = 'p' THEN (SELECT SUM(GREATEST(p.reltuples, 0)) FROM pg_inherits i "
+                        + "JOIN pg_class p ON p.oid = i.inhrelid WHERE i.inhparent = c.oid) ELSE c.reltuples END AS BIGINT) "
+                        + "FROM pg_class c WHERE c.oid = to_regclass(?)",
+                Long.class, table);
+        Long estimate = rows.isEmpty() ? null : rows.get(0);
+        return estimate != null && estimate >= 0 ? estimate : null;
+    }
+}
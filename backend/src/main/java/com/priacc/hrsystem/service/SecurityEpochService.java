@@ -0,0 +1,54 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.cache.BoundedCache;
+import com.priacc.hrsystem.model.SecurityEpoch;
+import com.priacc.hrsystem.repository.SecurityEpochRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+public class SecurityEpochService {
+
+    @Autowired
+    private SecurityEpochRepository securityEpochRepository;
+
+    @Value("${jwt.epoch-cache.max-size:50000}")
+    private int epochCacheMaxSize;
+
+    // Bounds how long another instance can keep accepting a revoked token
+    @Value("${jwt.epoch-cache.ttl-ms:30000}")
+    private long epochCacheTtlMs;
+
+    private BoundedCache<Long, Long> epochCache;
+
+    @PostConstruct
+    public void init() {
+        epochCache = new BoundedCache<>(epochCacheMaxSize, epochCacheTtlMs);
+    }
+
+    public long getEpoch(Long userId) {
+        Long epoch = epochCache.get(userId);
+        if (epoch == null) {
+            epoch = securityEpochRepository.findById(userId)
+                    .map(SecurityEpoch::getEpoch)
+                    .orElse(0L);
+            epochCache.put(userId, epoch);
+        }
+        return epoch;
+    }
+
+    /**
+     * Revoke all tokens issued to the user so far.
+     *
+     * @param userId The ID of the user whose tokens should be revoked
+     */
+    @Transactional
+    public void bumpEpoch(Long userId) {
+        securityEpochRepository.bumpEpoch(userId);
+
+        AfterCommit.run(() -> epochCache.invalidate(userId));
+    }
+}
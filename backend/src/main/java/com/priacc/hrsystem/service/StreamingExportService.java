@@ -0,0 +1,370 @@
+package com.priacc.hrsystem.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.priacc.hrsystem.dto.AttendanceDto;
+import com.priacc.hrsystem.dto.EmployeeDto;
+import com.priacc.hrsystem.dto.LeaveDto;
+import com.priacc.hrsystem.model.Address;
+import com.priacc.hrsystem.model.Attendance;
+import com.priacc.hrsystem.model.BankDetails;
+import com.priacc.hrsystem.model.Leave;
+import com.priacc.hrsystem.model.Salary;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Streams large listings straight from a JDBC cursor to the response.
+ *
+ * Rows are read inside a read-only transaction with a fixed fetch size, which
+ * makes the PostgreSQL driver use a server-side cursor. Each row is mapped to
+ * its DTO and written immediately as NDJSON or CSV, so memory use does not
+ * depend on how many rows the query returns.
+ */
+@Service
+public class StreamingExportService {
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    public enum ExportFormat {
+        NDJSON(MediaType.parseMediaType(NDJSON_VALUE)),
+        CSV(MediaType.parseMediaType(CSV_VALUE + ";charset=UTF-8"));
+
+        private final MediaType mediaType;
+
+        ExportFormat(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        /**
+         * CSV when the client accepts text/csv, NDJSON otherwise.
+         */
+        public static ExportFormat fromAcceptHeader(String accept) {
+            if (accept != null) {
+                for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                    if (mediaType.isCompatibleWith(MediaType.parseMediaType(CSV_VALUE)) && !mediaType.isWildcardType()) {
+                        return CSV;
+                    }
+                }
+            }
+            return NDJSON;
+        }
+    }
+
+    private static final String EMPLOYEE_SQL = "SELECT e.id, e.first_name, e.last_name, e.date_of_birth, e.gender, "
+            + "e.marital_status, e.nationality, e.email, e.phone, e.mobile_phone, "
+            + "a.id AS address_id, a.street, a.city, a.state, a.zip_code, a.country, "
+            + "d.id AS department_id, d.name AS department_name, p.id AS position_id, p.title AS position_title, "
+            + "m.id AS manager_id, m.first_name AS manager_first_name, m.last_name AS manager_last_name, "
+            + "e.employee_type, e.join_date, e.status, "
+            + "s.id AS salary_id, s.amount, s.currency, s.effective_date, s.basic, s.hra, s.bonus, "
+            + "b.id AS bank_details_id, b.account_number, b.bank_name, b.ifsc_code, e.user_id "
+            + "FROM employees e "
+            + "LEFT JOIN addresses a ON a.id = e.address_id "
+            + "LEFT JOIN departments d ON d.id = e.department_id "
+            + "LEFT JOIN positions p ON p.id = e.position_id "
+            + "LEFT JOIN employees m ON m.id = e.manager_id "
+            + "LEFT JOIN salaries s ON s.id = e.salary_id "
+            + "LEFT JOIN bank_details b ON b.id = e.bank_details_id "
+            + "ORDER BY e.id";
+
+    private static final String ATTENDANCE_SQL = "SELECT a.id, a.employee_id, e.first_name, e.last_name, a.date, "
+            + "a.check_in_time, a.check_out_time, a.break_start_time, a.break_end_time, a.work_hours, a.status, "
+            + "a.notes, a.ip_address, a.location, d.name AS department_name "
+            + "FROM attendances a "
+            + "JOIN employees e ON e.id = a.employee_id "
+            + "LEFT JOIN departments d ON d.id = e.department_id "
+            + "WHERE a.date BETWEEN ? AND ? "
+            + "ORDER BY a.date, a.id";
+
+    private static final String LEAVE_SQL = "SELECT l.id, l.employee_id, e.first_name, e.last_name, l.leave_type, "
+            + "l.start_date, l.end_date, l.number_of_days, l.reason, l.status, l.comments, "
+            + "l.approved_by, ap.first_name AS approver_first_name, ap.last_name AS approver_last_name, "
+            + "l.approved_at, l.created_at, l.updated_at, d.name AS department_name "
+            + "FROM leaves l "
+            + "JOIN employees e ON e.id = l.employee_id "
+            + "LEFT JOIN departments d ON d.id = e.department_id "
+            + "LEFT JOIN employees ap ON ap.id = l.approved_by "
+            + "WHERE l.start_date >= ? AND l.end_date <= ? "
+            + "ORDER BY l.start_date, l.id";
+
+    private static final String[] EMPLOYEE_COLUMNS = {
+            "id", "firstName", "lastName", "dateOfBirth", "gender", "maritalStatus", "nationality", "email",
+            "phone", "mobilePhone", "street", "city", "state", "zipCode", "country", "departmentId",
+            "departmentName", "positionId", "positionTitle", "managerId", "managerName", "employeeType",
+            "joinDate", "status", "salaryAmount", "salaryCurrency", "bankName", "userId"
+    };
+
+    private static final String[] ATTENDANCE_COLUMNS = {
+            "id", "employeeId", "employeeName", "departmentName", "date", "checkInTime", "checkOutTime",
+            "breakStartTime", "breakEndTime", "workHours", "status", "notes", "ipAddress", "location"
+    };
+
+    private static final String[] LEAVE_COLUMNS = {
+            "id", "employeeId", "employeeName", "departmentName", "leaveType", "startDate", "endDate",
+            "numberOfDays", "reason", "status", "comments", "approvedById", "approvedByName", "approvedAt",
+            "createdAt", "updatedAt"
+    };
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    private JdbcTemplate cursorJdbcTemplate;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private ObjectWriter ndjsonWriter;
+
+    @PostConstruct
+    public void init() {
+        cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        cursorJdbcTemplate.setFetchSize(fetchSize);
+
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        ndjsonWriter = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public StreamingResponseBody exportEmployees(ExportFormat format) {
+        return stream(format, EMPLOYEE_SQL, new Object[0], this::mapEmployee, EMPLOYEE_COLUMNS, dto -> new Object[]{
+                dto.getId(), dto.getFirstName(), dto.getLastName(), dto.getDateOfBirth(), dto.getGender(),
+                dto.getMaritalStatus(), dto.getNationality(), dto.getEmail(), dto.getPhone(), dto.getMobilePhone(),
+                dto.getAddress() != null ? dto.getAddress().getStreet() : null,
+                dto.getAddress() != null ? dto.getAddress().getCity() : null,
+                dto.getAddress() != null ? dto.getAddress().getState() : null,
+                dto.getAddress() != null ? dto.getAddress().getZipCode() : null,
+                dto.getAddress() != null ? dto.getAddress().getCountry() : null,
+                dto.getDepartmentId(), dto.getDepartmentName(), dto.getPositionId(), dto.getPositionTitle(),
+                dto.getManagerId(), dto.getManagerName(), dto.getEmployeeType(), dto.getJoinDate(), dto.getStatus(),
+                dto.getSalary() != null ? dto.getSalary().getAmount() : null,
+                dto.getSalary() != null ? dto.getSalary().getCurrency() : null,
+                dto.getBankDetails() != null ? dto.getBankDetails().getBankName() : null,
+                dto.getUserId()
+        });
+    }
+
+    public StreamingResponseBody exportAttendanceByDateRange(LocalDate startDate, LocalDate endDate, ExportFormat format) {
+        return stream(format, ATTENDANCE_SQL, new Object[]{Date.valueOf(startDate), Date.valueOf(endDate)},
+                this::mapAttendance, ATTENDANCE_COLUMNS, dto -> new Object[]{
+                        dto.getId(), dto.getEmployeeId(), dto.getEmployeeName(), dto.getDepartmentName(),
+                        dto.getDate(), dto.getCheckInTime(), dto.getCheckOutTime(), dto.getBreakStartTime(),
+                        dto.getBreakEndTime(), dto.getWorkHours(), dto.getStatus(), dto.getNotes(),
+                        dto.getIpAddress(), dto.getLocation()
+                });
+    }
+
+    public StreamingResponseBody exportLeavesByDateRange(LocalDate startDate, LocalDate endDate, ExportFormat format) {
+        return stream(format, LEAVE_SQL, new Object[]{Date.valueOf(startDate), Date.valueOf(endDate)},
+                this::mapLeave, LEAVE_COLUMNS, dto -> new Object[]{
+                        dto.getId(), dto.getEmployeeId(), dto.getEmployeeName(), dto.getDepartmentName(),
+                        dto.getLeaveType(), dto.getStartDate(), dto.getEndDate(), dto.getNumberOfDays(),
+                        dto.getReason(), dto.getStatus(), dto.getComments(), dto.getApprovedById(),
+                        dto.getApprovedByName(), dto.getApprovedAt(), dto.getCreatedAt(), dto.getUpdatedAt()
+                });
+    }
+
+    private <T> StreamingResponseBody stream(ExportFormat format, String sql, Object[] args, RowMapper<T> mapper,
+                                             String[] csvColumns, Function<T, Object[]> csvValues) {
+        return outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+            if (format == ExportFormat.CSV) {
+                writeCsvRow(writer, csvColumns);
+            }
+
+            try {
+                readOnlyTransaction.executeWithoutResult(status ->
+                        cursorJdbcTemplate.query(sql, (ResultSet rs) -> {
+                            T dto = mapper.mapRow(rs, rs.getRow());
+                            try {
+                                if (format == ExportFormat.CSV) {
+                                    writeCsvRow(writer, csvValues.apply(dto));
+                                } else {
+                                    ndjsonWriter.writeValue(writer, dto);
+                                    writer.write('\n');
+                                }
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }, args));
+            } catch (UncheckedIOException e) {
+                // Client went away mid-download; the transaction has already been rolled back
+                throw e.getCause();
+            }
+
+            writer.flush();
+        };
+    }
+
+    private EmployeeDto mapEmployee(ResultSet rs, int rowNum) throws SQLException {
+        EmployeeDto dto = new EmployeeDto();
+        dto.setId(rs.getLong("id"));
+        dto.setFirstName(rs.getString("first_name"));
+        dto.setLastName(rs.getString("last_name"));
+        dto.setDateOfBirth(toLocalDate(rs.getDate("date_of_birth")));
+        dto.setGender(rs.getString("gender"));
+        dto.setMaritalStatus(rs.getString("marital_status"));
+        dto.setNationality(rs.getString("nationality"));
+        dto.setEmail(rs.getString("email"));
+        dto.setPhone(rs.getString("phone"));
+        dto.setMobilePhone(rs.getString("mobile_phone"));
+
+        Long addressId = rs.getObject("address_id", Long.class);
+        if (addressId != null) {
+            dto.setAddress(new Address(addressId, rs.getString("street"), rs.getString("city"),
+                    rs.getString("state"), rs.getString("zip_code"), rs.getString("country")));
+        }
+
+        dto.setDepartmentId(rs.getObject("department_id", Long.class));
+        dto.setDepartmentName(rs.getString("department_name"));
+        dto.setPositionId(rs.getObject("position_id", Long.class));
+        dto.setPositionTitle(rs.getString("position_title"));
+
+        Long managerId = rs.getObject("manager_id", Long.class);
+        if (managerId != null) {
+            dto.setManagerId(managerId);
+            dto.setManagerName(rs.getString("manager_first_name") + " " + rs.getString("manager_last_name"));
+        }
+
+        dto.setEmployeeType(rs.getString("employee_type"));
+        dto.setJoinDate(toLocalDate(rs.getDate("join_date")));
+        dto.setStatus(rs.getString("status"));
+
+        Long salaryId = rs.getObject("salary_id", Long.class);
+        if (salaryId != null) {
+            dto.setSalary(new Salary(salaryId, rs.getBigDecimal("amount"), rs.getString("currency"),
+                    toLocalDate(rs.getDate("effective_date")), rs.getDouble("basic"), rs.getDouble("hra"),
+                    rs.getDouble("bonus")));
+        }
+
+        Long bankDetailsId = rs.getObject("bank_details_id", Long.class);
+        if (bankDetailsId != null) {
+            dto.setBankDetails(new BankDetails(bankDetailsId, rs.getString("account_number"),
+                    rs.getString("bank_name"), rs.getString("ifsc_code")));
+        }
+
+        dto.setUserId(rs.getObject("user_id", Long.class));
+        return dto;
+    }
+
+    private AttendanceDto mapAttendance(ResultSet rs, int rowNum) throws SQLException {
+        AttendanceDto dto = new AttendanceDto();
+        dto.setId(rs.getLong("id"));
+        dto.setEmployeeId(rs.getLong("employee_id"));
+        dto.setEmployeeName(rs.getString("first_name") + " " + rs.getString("last_name"));
+        dto.setDepartmentName(rs.getString("department_name"));
+        dto.setDate(toLocalDate(rs.getDate("date")));
+        dto.setCheckInTime(toLocalTime(rs.getTime("check_in_time")));
+        dto.setCheckOutTime(toLocalTime(rs.getTime("check_out_time")));
+        dto.setBreakStartTime(toLocalTime(rs.getTime("break_start_time")));
+        dto.setBreakEndTime(toLocalTime(rs.getTime("break_end_time")));
+        dto.setWorkHours(rs.getObject("work_hours", Double.class));
+        String status = rs.getString("status");
+        dto.setStatus(status != null ? Attendance.AttendanceStatus.valueOf(status) : null);
+        dto.setNotes(rs.getString("notes"));
+        dto.setIpAddress(rs.getString("ip_address"));
+        dto.setLocation(rs.getString("location"));
+        return dto;
+    }
+
+    private LeaveDto mapLeave(ResultSet rs, int rowNum) throws SQLException {
+        LeaveDto dto = new LeaveDto();
+        dto.setId(rs.getLong("id"));
+        dto.setEmployeeId(rs.getLong("employee_id"));
+        dto.setEmployeeName(rs.getString("first_name") + " " + rs.getString("last_name"));
+        dto.setDepartmentName(rs.getString("department_name"));
+        String leaveType = rs.getString("leave_type");
+        dto.setLeaveType(leaveType != null ? Leave.LeaveType.valueOf(leaveType) : null);
+        dto.setStartDate(toLocalDate(rs.getDate("start_date")));
+        dto.setEndDate(toLocalDate(rs.getDate("end_date")));
+        dto.setNumberOfDays(rs.getInt("number_of_days"));
+        dto.setReason(rs.getString("reason"));
+        String status = rs.getString("status");
+        dto.setStatus(status != null ? Leave.LeaveStatus.valueOf(status) : null);
+        dto.setComments(rs.getString("comments"));
+
+        Long approverId = rs.getObject("approved_by", Long.class);
+        if (approverId != null) {
+            dto.setApprovedById(approverId);
+            dto.setApprovedByName(rs.getString("approver_first_name") + " " + rs.getString("approver_last_name"));
+        }
+
+        Timestamp approvedAt = rs.getTimestamp("approved_at");
+        dto.setApprovedAt(approvedAt != null ? approvedAt.toLocalDateTime() : null);
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        dto.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        Timestamp updatedAt = rs.getTimestamp("updated_at");
+        dto.setUpdatedAt(updatedAt != null ? updatedAt.toLocalDateTime() : null);
+        return dto;
+    }
+
+    private static void writeCsvRow(Writer writer, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write("\r\n");
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        return date != null ? date.toLocalDate() : null;
+    }
+
+    private static java.time.LocalTime toLocalTime(Time time) {
+        return time != null ? time.toLocalTime() : null;
+    }
+}
@@ -2,9 +2,11 @@ package com.priacc.hrsystem.service;
 
 import com.priacc.hrsystem.model.User;
 import com.priacc.hrsystem.repository.UserRepository;
+import com.priacc.hrsystem.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -14,11 +16,14 @@ import java.util.Collections;
 import java.util.List;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private IdentityCache identityCache;
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -29,14 +34,59 @@ public class UserDetailsServiceImpl implements UserDetailsService {
                 new SimpleGrantedAuthority("ROLE_" + user.getRole().name())
         );
 
-        return new org.springframework.security.core.userdetails.User(
+        return new UserPrincipal(
+                user.getId(),
+                user.getRole(),
                 user.getEmail(),
                 user.getPassword(),
                 user.isActive(),
-                true,
-                true,
-                true,
                 authorities
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Load the principal for an already authenticated request. Unlike
+     * {@link #loadUserByUsername(String)} this never needs the password hash,
+     * so it is served from the identity cache when possible.
+     *
+     * @param email The email of the user named in the token
+     * @return the principal, without credentials
+     */
+    public UserDetails loadUserForRequest(String email) throws UsernameNotFoundException {
+        IdentityCache.UserIdentity identity = identityCache.getUser(email);
+
+        if (identity == null) {
+            User user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+            identity = new IdentityCache.UserIdentity(user.getId(), user.getEmail(), user.getRole(), user.isActive());
+            identityCache.putUser(identity);
+        }
+
+        return new UserPrincipal(
+                identity.getId(),
+                identity.getRole(),
+                identity.getEmail(),
+                "",
+                identity.isActive(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + identity.getRole().name()))
+        );
+    }
+
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        userRepository.save(user);
+
+        return new UserPrincipal(
+                user.getId(),
+                user.getRole(),
+                user.getEmail(),
+                newPassword,
+                user.isActive(),
+                userDetails.getAuthorities()
+        );
+    }
+}
@@ -1,5 +1,7 @@
 package com.priacc.hrsystem.service;
 
+import com.priacc.hrsystem.dto.CursorPage;
+import com.priacc.hrsystem.dto.PageCursor;
 import com.priacc.hrsystem.dto.UserDto;
 import com.priacc.hrsystem.exception.ResourceNotFoundException;
 import com.priacc.hrsystem.model.User;
@@ -21,6 +23,15 @@ public class UserService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private SecurityEpochService securityEpochService;
+
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private RowCountService rowCountService;
+
     public List<User> getAllUsers() {
         return userRepository.findAll();
     }
@@ -29,6 +40,22 @@ public class UserService {
         return userRepository.findAll(pageable);
     }
 
+    /**
+     * Keyset page of users ordered by email, then id.
+     *
+     * @param cursor token from the previous page, or null for the first page
+     * @param size maximum number of rows to return
+     * @param countMode whether to include a total and how to compute it
+     */
+    public CursorPage<UserDto> getUsersPage(String cursor, int size, CursorPage.CountMode countMode) {
+        PageCursor after = PageCursor.decode(cursor);
+        List<UserDto> rows = after == null
+                ? userRepository.findDtosFirstPage(PageCursor.limit(size))
+                : userRepository.findDtosAfter(after.getSortKey(), after.getId(), PageCursor.limit(size));
+        Long total = rowCountService.count("users", countMode, userRepository::count);
+        return CursorPage.of(rows, size, dto -> PageCursor.encode(dto.getEmail(), dto.getId()), total, countMode);
+    }
+
     public User getUserById(Long id) {
         return userRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
@@ -57,6 +84,8 @@ public class UserService {
 
     public User updateUser(Long id, UserDto userDto) {
         User user = getUserById(id);
+        String previousEmail = user.getEmail();
+        boolean credentialsChanged = !previousEmail.equals(userDto.getEmail());
 
         // Check if email is being changed and if it's already taken
         if (!user.getEmail().equals(userDto.getEmail()) && userRepository.existsByEmail(userDto.getEmail())) {
@@ -70,9 +99,13 @@ public class UserService {
         // Only update password if it's provided
         if (userDto.getPassword() != null && !userDto.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(userDto.getPassword()));
+            credentialsChanged = true;
         }
         
         if (userDto.getRole() != null) {
+            if (userDto.getRole() != user.getRole()) {
+                credentialsChanged = true;
+            }
             user.setRole(userDto.getRole());
         }
         
@@ -80,18 +113,31 @@ public class UserService {
             user.setAvatarUrl(userDto.getAvatarUrl());
         }
 
-        return userRepository.save(user);
+        // Tokens carry email and role, so revoke the ones issued before this change
+        if (credentialsChanged) {
+            securityEpochService.bumpEpoch(id);
+        }
+
+        User saved = userRepository.save(user);
+        identityCache.invalidateUser(previousEmail, id);
+        identityCache.invalidateUser(userDto.getEmail(), null);
+        return saved;
     }
 
     public void deleteUser(Long id) {
         User user = getUserById(id);
         userRepository.delete(user);
+        securityEpochService.bumpEpoch(id);
+        identityCache.invalidateUser(user.getEmail(), id);
     }
 
     public User updateUserStatus(Long id, boolean active) {
         User user = getUserById(id);
         user.setActive(active);
-        return userRepository.save(user);
+        securityEpochService.bumpEpoch(id);
+        User saved = userRepository.save(user);
+        identityCache.invalidateUser(user.getEmail(), id);
+        return saved;
     }
 
     public boolean changePassword(Long userId, String oldPassword, String newPassword) {
@@ -100,6 +146,7 @@ public class UserService {
         if (passwordEncoder.matches(oldPassword, user.getPassword())) {
             user.setPassword(passwordEncoder.encode(newPassword));
             userRepository.save(user);
+            securityEpochService.bumpEpoch(userId);
             return true;
         }
         
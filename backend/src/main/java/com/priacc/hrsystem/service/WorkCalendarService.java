@@ -0,0 +1,141 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.HolidayDto;
+import com.priacc.hrsystem.dto.WorkCalendarDto;
+import com.priacc.hrsystem.exception.BadRequestException;
+import com.priacc.hrsystem.exception.ResourceNotFoundException;
+import com.priacc.hrsystem.model.Holiday;
+import com.priacc.hrsystem.model.WorkCalendar;
+import com.priacc.hrsystem.repository.DepartmentRepository;
+import com.priacc.hrsystem.repository.HolidayRepository;
+import com.priacc.hrsystem.repository.WorkCalendarRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Maintenance of work calendars and their holidays. Every change rebuilds
+ * the {@link WorkingCalendar} tables after commit. Leave already requested
+ * keeps the number of days computed when it was saved.
+ */
+@Service
+public class WorkCalendarService {
+
+    @Autowired
+    private WorkCalendarRepository workCalendarRepository;
+
+    @Autowired
+    private HolidayRepository holidayRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private WorkingCalendar workingCalendar;
+
+    public List<WorkCalendarDto> getAllCalendars() {
+        Long defaultId = workingCalendar.getDefaultCalendarId();
+        return workCalendarRepository.findAll().stream()
+                .map(calendar -> WorkCalendarDto.fromEntity(calendar, calendar.getId().equals(defaultId)))
+                .collect(Collectors.toList());
+    }
+
+    public WorkCalendar getCalendarById(Long id) {
+        return workCalendarRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Work calendar not found with id: " + id));
+    }
+
+    public WorkCalendarDto getCalendarDto(Long id) {
+        return WorkCalendarDto.fromEntity(getCalendarById(id), id.equals(workingCalendar.getDefaultCalendarId()));
+    }
+
+    @Transactional
+    public WorkCalendarDto createCalendar(WorkCalendarDto calendarDto) {
+        if (workCalendarRepository.existsByName(calendarDto.getName())) {
+            throw new BadRequestException("Work calendar with name " + calendarDto.getName() + " already exists");
+        }
+        WorkCalendar calendar = new WorkCalendar();
+        apply(calendar, calendarDto);
+        WorkCalendar saved = workCalendarRepository.save(calendar);
+        workingCalendar.rebuildAfterCommit();
+        return WorkCalendarDto.fromEntity(saved, false);
+    }
+
+    @Transactional
+    public WorkCalendarDto updateCalendar(Long id, WorkCalendarDto calendarDto) {
+        WorkCalendar calendar = getCalendarById(id);
+        boolean isDefault = id.equals(workingCalendar.getDefaultCalendarId());
+        if (!calendar.getName().equals(calendarDto.getName())) {
+            if (isDefault) {
+                throw new BadRequestException("The default work calendar cannot be renamed");
+            }
+            if (workCalendarRepository.existsByName(calendarDto.getName())) {
+                throw new BadRequestException("Work calendar with name " + calendarDto.getName() + " already exists");
+            }
+        }
+        apply(calendar, calendarDto);
+        WorkCalendar saved = workCalendarRepository.save(calendar);
+        workingCalendar.rebuildAfterCommit();
+        return WorkCalendarDto.fromEntity(saved, isDefault);
+    }
+
+    @Transactional
+    public void deleteCalendar(Long id) {
+        WorkCalendar calendar = getCalendarById(id);
+        if (id.equals(workingCalendar.getDefaultCalendarId())) {
+            throw new BadRequestException("The default work calendar cannot be deleted");
+        }
+        if (departmentRepository.existsByWorkCalendarId(id)) {
+            throw new BadRequestException("Cannot delete a work calendar assigned to departments");
+        }
+        holidayRepository.deleteByCalendarId(id);
+        workCalendarRepository.delete(calendar);
+        workingCalendar.rebuildAfterCommit();
+    }
+
+    public List<HolidayDto> getHolidays(Long calendarId, Integer year) {
+        getCalendarById(calendarId);
+        List<Holiday> holidays = year == null
+                ? holidayRepository.findByCalendarIdOrderByDate(calendarId)
+                : holidayRepository.findByCalendarIdAndDateBetweenOrderByDate(calendarId,
+                        LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+        return holidays.stream().map(HolidayDto::fromEntity).collect(Collectors.toList());
+    }
+
+    @Transactional
+    public HolidayDto addHoliday(Long calendarId, HolidayDto holidayDto) {
+        getCalendarById(calendarId);
+        if (holidayRepository.existsByCalendarIdAndDate(calendarId, holidayDto.getDate())) {
+            throw new BadRequestException("Work calendar already has a holiday on " + holidayDto.getDate());
+        }
+        Holiday holiday = holidayRepository.save(new Holiday(null, calendarId, holidayDto.getDate(), holidayDto.getName()));
+        workingCalendar.rebuildAfterCommit();
+        return HolidayDto.fromEntity(holiday);
+    }
+
+    @Transactional
+    public void deleteHoliday(Long calendarId, Long holidayId) {
+        Holiday holiday = holidayRepository.findById(holidayId)
+                .filter(found -> found.getCalendarId().equals(calendarId))
+                .orElseThrow(() -> new ResourceNotFoundException("Holiday not found with id: " + holidayId));
+        holidayRepository.delete(holiday);
+        workingCalendar.rebuildAfterCommit();
+    }
+
+    private void apply(WorkCalendar calendar, WorkCalendarDto calendarDto) {
+        EnumSet<DayOfWeek> weekend = EnumSet.noneOf(DayOfWeek.class);
+        weekend.addAll(calendarDto.getWeekendDays());
+        if (weekend.size() == DayOfWeek.values().length) {
+            throw new BadRequestException("A work calendar needs at least one working day a week");
+        }
+        calendar.setName(calendarDto.getName());
+        calendar.setDescription(calendarDto.getDescription());
+        calendar.setWeekendDays(weekend.stream().map(DayOfWeek::name).collect(Collectors.joining(",")));
+    }
+}
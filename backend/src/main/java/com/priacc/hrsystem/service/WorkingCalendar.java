@@ -0,0 +1,372 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.model.Holiday;
+import com.priacc.hrsystem.model.WorkCalendar;
+import com.priacc.hrsystem.repository.DepartmentRepository;
+import com.priacc.hrsystem.repository.HolidayRepository;
+import com.priacc.hrsystem.repository.WorkCalendarRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Working-day engine over the work calendars.
+ *
+ * Per calendar and year the working days are kept as a bitset by day of the
+ * year together with a prefix sum of working days, and per calendar the
+ * number of working days before each year. Counting the working days between
+ * two dates is then two array lookups and a subtraction, however long the
+ * range. Years from app.work-calendar.first-year up to
+ * app.work-calendar.years-ahead past the current year are precomputed; a
+ * range reaching outside them is counted a year at a time.
+ *
+ * Tables are rebuilt after WorkCalendarService commits a change to a
+ * calendar or its holidays. Employees resolve to a calendar through their
+ * department, falling back to the default calendar. The calendars and the
+ * department assignments are published together in one immutable Tables
+ * value, so a reader never sees the calendars of one build with the
+ * assignments of another, or with none.
+ */
+@Component
+public class WorkingCalendar {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkingCalendar.class);
+
+    public enum DayKind {
+        WORKING,
+        WEEKEND,
+        HOLIDAY
+    }
+
+    @Autowired
+    private WorkCalendarRepository workCalendarRepository;
+
+    @Autowired
+    private HolidayRepository holidayRepository;
+
+    @Autowired
+    private DepartmentRepository departmentRepository;
+
+    @Autowired
+    private OrgHierarchyIndex orgHierarchyIndex;
+
+    @Value("${app.work-calendar.default-name:DEFAULT}")
+    private String defaultName;
+
+    @Value("${app.work-calendar.default.weekend-days:SATURDAY,SUNDAY}")
+    private String defaultWeekendDays;
+
+    @Value("${app.work-calendar.default.holidays:}")
+    private String defaultHolidays;
+
+    @Value("${app.work-calendar.first-year:2000}")
+    private int firstYear;
+
+    @Value("${app.work-calendar.years-ahead:10}")
+    private int yearsAhead;
+
+    private volatile Tables tables;
+
+    /**
+     * Create the default calendar on first start, seeded from the
+     * app.work-calendar.default.* properties, then build the tables.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void init() {
+        if (!workCalendarRepository.existsByName(defaultName)) {
+            WorkCalendar calendar = new WorkCalendar();
+            calendar.setName(defaultName);
+            calendar.setDescription("Used by departments without a calendar of their own");
+            calendar.setWeekendDays(defaultWeekendDays);
+            Long calendarId = workCalendarRepository.save(calendar).getId();
+            for (String holiday : defaultHolidays.split(",")) {
+                if (!holiday.isBlank()) {
+                    holidayRepository.save(new Holiday(null, calendarId, LocalDate.parse(holiday.trim()), "Holiday"));
+                }
+            }
+            logger.info("Created default work calendar '{}'", defaultName);
+        }
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        Map<Long, Set<LocalDate>> holidaysByCalendar = new HashMap<>();
+        for (Holiday holiday : holidayRepository.findAll()) {
+            holidaysByCalendar.computeIfAbsent(holiday.getCalendarId(), id -> new HashSet<>()).add(holiday.getDate());
+        }
+
+        int lastYear = Year.now().getValue() + yearsAhead;
+        Map<Long, CalendarTable> byId = new HashMap<>();
+        Long defaultId = null;
+        for (WorkCalendar calendar : workCalendarRepository.findAll()) {
+            byId.put(calendar.getId(), new CalendarTable(parseWeekend(calendar.getWeekendDays()),
+                    holidaysByCalendar.getOrDefault(calendar.getId(), Set.of()), firstYear, lastYear));
+            if (calendar.getName().equals(defaultName)) {
+                defaultId = calendar.getId();
+            }
+        }
+        if (defaultId == null) {
+            throw new IllegalStateException("Default work calendar '" + defaultName + "' does not exist");
+        }
+
+        Map<Long, Long> assignments = new HashMap<>();
+        for (Object[] row : departmentRepository.findWorkCalendarAssignments()) {
+            assignments.put((Long) row[0], (Long) row[1]);
+        }
+
+        tables = new Tables(byId, defaultId, assignments);
+        logger.info("Work calendars built: {} calendars for {}-{}", byId.size(), firstYear, lastYear);
+    }
+
+    /**
+     * Rebuild once the surrounding transaction commits.
+     */
+    public void rebuildAfterCommit() {
+        AfterCommit.run(this::rebuild);
+    }
+
+    /**
+     * Record a department's calendar, or null for the default, once the
+     * surrounding transaction commits.
+     */
+    public void onDepartmentCalendarChanged(Long departmentId, Long calendarId) {
+        AfterCommit.run(() -> assignCalendar(departmentId, calendarId));
+    }
+
+    public void onDepartmentDeleted(Long departmentId) {
+        onDepartmentCalendarChanged(departmentId, null);
+    }
+
+    public Long getDefaultCalendarId() {
+        return tables().defaultId;
+    }
+
+    public Long getCalendarIdForDepartment(Long departmentId) {
+        Tables current = tables();
+        Long calendarId = departmentId != null ? current.calendarIdsByDepartment.get(departmentId) : null;
+        return calendarId != null ? calendarId : current.defaultId;
+    }
+
+    public Long getCalendarIdForEmployee(Long employeeId) {
+        return getCalendarIdForDepartment(orgHierarchyIndex.getDepartmentId(employeeId));
+    }
+
+    /**
+     * Working days from startDate to endDate, both inclusive.
+     */
+    public long countWorkingDays(Long calendarId, LocalDate startDate, LocalDate endDate) {
+        return table(calendarId).count(startDate, endDate);
+    }
+
+    public long countWorkingDaysForEmployee(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        return countWorkingDays(getCalendarIdForEmployee(employeeId), startDate, endDate);
+    }
+
+    public long countWorkingDaysForDepartment(Long departmentId, LocalDate startDate, LocalDate endDate) {
+        return countWorkingDays(getCalendarIdForDepartment(departmentId), startDate, endDate);
+    }
+
+    /**
+     * Working days of the range per calendar year, in year order, leaving
+     * out years without any.
+     */
+    public Map<Integer, Long> countWorkingDaysByYear(Long employeeId, LocalDate startDate, LocalDate endDate) {
+        CalendarTable table = table(getCalendarIdForEmployee(employeeId));
+        Map<Integer, Long> days = new LinkedHashMap<>();
+        LocalDate from = startDate;
+        while (!from.isAfter(endDate)) {
+            LocalDate yearEnd = LocalDate.of(from.getYear(), 12, 31);
+            LocalDate to = yearEnd.isBefore(endDate) ? yearEnd : endDate;
+            long count = table.count(from, to);
+            if (count > 0) {
+                days.put(from.getYear(), count);
+            }
+            from = to.plusDays(1);
+        }
+        return days;
+    }
+
+    public boolean isWorkingDay(Long calendarId, LocalDate date) {
+        return table(calendarId).isWorking(date);
+    }
+
+    public DayKind getDayKind(Long calendarId, LocalDate date) {
+        return table(calendarId).kind(date);
+    }
+
+    /**
+     * Ids of the calendars on which the date is of the given kind.
+     */
+    public List<Long> getCalendarIds(LocalDate date, DayKind kind) {
+        List<Long> ids = new ArrayList<>();
+        tables().byId.forEach((id, table) -> {
+            if (table.kind(date) == kind) {
+                ids.add(id);
+            }
+        });
+        return ids;
+    }
+
+    // Copy on write; readers keep using the Tables they already hold
+    private synchronized void assignCalendar(Long departmentId, Long calendarId) {
+        Tables current = tables();
+        Map<Long, Long> assignments = new HashMap<>(current.calendarIdsByDepartment);
+        if (calendarId == null) {
+            assignments.remove(departmentId);
+        } else {
+            assignments.put(departmentId, calendarId);
+        }
+        tables = new Tables(current.byId, current.defaultId, assignments);
+    }
+
+    private CalendarTable table(Long calendarId) {
+        Tables current = tables();
+        CalendarTable table = current.byId.get(calendarId);
+        return table != null ? table : current.byId.get(current.defaultId);
+    }
+
+    private Tables tables() {
+        Tables current = tables;
+        if (current == null) {
+            // A request arrived before the startup build
+            synchronized (this) {
+                if (tables == null) {
+                    init();
+                }
+                current = tables;
+            }
+        }
+        return current;
+    }
+
+    private static Set<DayOfWeek> parseWeekend(String weekendDays) {
+        Set<DayOfWeek> weekend = EnumSet.noneOf(DayOfWeek.class);
+        for (String day : weekendDays.split(",")) {
+            if (!day.isBlank()) {
+                weekend.add(DayOfWeek.valueOf(day.trim().toUpperCase()));
+            }
+        }
+        return weekend;
+    }
+
+    private record Tables(Map<Long, CalendarTable> byId, Long defaultId, Map<Long, Long> calendarIdsByDepartment) {
+    }
+
+    /**
+     * One calendar's precomputed years.
+     */
+    static final class CalendarTable {
+
+        final Set<DayOfWeek> weekend;
+        final Set<LocalDate> holidays;
+        final int firstYear;
+        final int lastYear;
+
+        // Per year: bit (dayOfYear - 1) set for a working day
+        final long[][] workingBits;
+
+        // Per year: prefix[i] = working days among the first i days of the year
+        final int[][] prefix;
+
+        // Working days in the precomputed years before each year; one extra entry for the total
+        final long[] before;
+
+        CalendarTable(Set<DayOfWeek> weekend, Set<LocalDate> holidays, int firstYear, int lastYear) {
+            this.weekend = weekend;
+            this.holidays = holidays;
+            this.firstYear = firstYear;
+            this.lastYear = lastYear;
+            int years = lastYear - firstYear + 1;
+            workingBits = new long[years][];
+            prefix = new int[years][];
+            before = new long[years + 1];
+            for (int i = 0; i < years; i++) {
+                workingBits[i] = bitsFor(firstYear + i);
+                prefix[i] = prefixFor(workingBits[i], Year.of(firstYear + i).length());
+                before[i + 1] = before[i] + prefix[i][prefix[i].length - 1];
+            }
+        }
+
+        DayKind kind(LocalDate date) {
+            if (holidays.contains(date)) {
+                return DayKind.HOLIDAY;
+            }
+            return weekend.contains(date.getDayOfWeek()) ? DayKind.WEEKEND : DayKind.WORKING;
+        }
+
+        boolean isWorking(LocalDate date) {
+            int index = date.getYear() - firstYear;
+            if (index < 0 || index >= workingBits.length) {
+                return kind(date) == DayKind.WORKING;
+            }
+            int day = date.getDayOfYear() - 1;
+            return (workingBits[index][day >>> 6] & (1L << day)) != 0;
+        }
+
+        long count(LocalDate startDate, LocalDate endDate) {
+            if (endDate.isBefore(startDate)) {
+                return 0;
+            }
+            if (startDate.getYear() >= firstYear && endDate.getYear() <= lastYear) {
+                return rank(endDate.plusDays(1)) - rank(startDate);
+            }
+            long total = 0;
+            LocalDate from = startDate;
+            while (!from.isAfter(endDate)) {
+                LocalDate yearEnd = LocalDate.of(from.getYear(), 12, 31);
+                LocalDate to = yearEnd.isBefore(endDate) ? yearEnd : endDate;
+                int[] yearPrefix = from.getYear() >= firstYear && from.getYear() <= lastYear
+                        ? prefix[from.getYear() - firstYear]
+                        : prefixFor(bitsFor(from.getYear()), from.lengthOfYear());
+                total += yearPrefix[to.getDayOfYear()] - yearPrefix[from.getDayOfYear() - 1];
+                from = to.plusDays(1);
+            }
+            return total;
+        }
+
+        // Working days from the first precomputed day up to, not including, the date
+        private long rank(LocalDate date) {
+            int index = date.getYear() - firstYear;
+            if (index == before.length - 1) {
+                return before[index];
+            }
+            return before[index] + prefix[index][date.getDayOfYear() - 1];
+        }
+
+        private long[] bitsFor(int year) {
+            LocalDate day = LocalDate.of(year, 1, 1);
+            int length = day.lengthOfYear();
+            long[] bits = new long[(length + 63) / 64];
+            for (int i = 0; i < length; i++, day = day.plusDays(1)) {
+                if (kind(day) == DayKind.WORKING) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+            return bits;
+        }
+
+        private static int[] prefixFor(long[] bits, int length) {
+            int[] sums = new int[length + 1];
+            for (int i = 0; i < length; i++) {
+                sums[i + 1] = sums[i] + (int) ((bits[i >>> 6] >>> i) & 1L);
+            }
+            return sums;
+        }
+    }
+}
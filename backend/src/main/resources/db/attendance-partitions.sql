@@ -0,0 +1,58 @@
+-- Converts attendances into a table range-partitioned by month on "date".
+-- Does nothing once the table is partitioned. Monthly partitions ahead of
+-- time are created by AttendancePartitionService; rows outside every
+-- partition land in attendances_default.
+-- Statements are separated by ";;" because the block contains semicolons.
+
+DO $$
+DECLARE
+    v_kind "char";
+    v_month date;
+    v_quarantined bigint;
+BEGIN
+    SELECT c.relkind INTO v_kind FROM pg_class c WHERE c.oid = to_regclass('attendances');
+    IF v_kind IS DISTINCT FROM 'r' THEN
+        RETURN;
+    END IF;
+
+    ALTER TABLE attendances RENAME TO attendances_unpartitioned;
+    -- Free the constraint and index names for the partitioned table
+    ALTER TABLE attendances_unpartitioned RENAME CONSTRAINT attendances_pkey TO attendances_unpartitioned_pkey;
+    ALTER TABLE attendances_unpartitioned DROP CONSTRAINT IF EXISTS uk_attendances_employee_date;
+    DROP INDEX IF EXISTS idx_attendances_date_id;
+
+    -- Identity columns are not supported on partitioned tables, so ids come from a plain sequence
+    CREATE TABLE attendances (LIKE attendances_unpartitioned INCLUDING DEFAULTS) PARTITION BY RANGE (date);
+    CREATE SEQUENCE IF NOT EXISTS attendances_partitioned_id_seq;
+    ALTER SEQUENCE attendances_partitioned_id_seq OWNED BY attendances.id;
+    ALTER TABLE attendances ALTER COLUMN id SET DEFAULT nextval('attendances_partitioned_id_seq');
+    ALTER TABLE attendances ALTER COLUMN date SET NOT NULL;
+
+    CREATE TABLE attendances_default PARTITION OF attendances DEFAULT;
+    FOR v_month IN
+        SELECT DISTINCT CAST(date_trunc('month', date) AS date) FROM attendances_unpartitioned WHERE date IS NOT NULL
+    LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF attendances FOR VALUES FROM (%L) TO (%L)',
+                'attendances_' || to_char(v_month, '"y"YYYY"m"MM'), v_month, CAST(v_month + interval '1 month' AS date));
+    END LOOP;
+
+    INSERT INTO attendances SELECT * FROM attendances_unpartitioned WHERE date IS NOT NULL;
+
+    -- The partition key cannot be null, so rows without a date are kept aside for review
+    SELECT count(*) INTO v_quarantined FROM attendances_unpartitioned WHERE date IS NULL;
+    IF v_quarantined > 0 THEN
+        CREATE TABLE IF NOT EXISTS attendances_null_date (LIKE attendances_unpartitioned);
+        INSERT INTO attendances_null_date SELECT * FROM attendances_unpartitioned WHERE date IS NULL;
+        RAISE WARNING 'Moved % attendance rows without a date to attendances_null_date', v_quarantined;
+    END IF;
+
+    PERFORM setval('attendances_partitioned_id_seq', COALESCE((SELECT MAX(id) FROM attendances_unpartitioned), 0) + 1, false);
+    DROP TABLE attendances_unpartitioned;
+
+    -- Unique keys on a partitioned table must include the partition key.
+    -- uk_attendances_employee_date is added by attendance-unique-key.sql.
+    ALTER TABLE attendances ADD CONSTRAINT attendances_pkey PRIMARY KEY (id, date);
+    ALTER TABLE attendances ADD CONSTRAINT fk_attendances_employee FOREIGN KEY (employee_id) REFERENCES employees (id);
+    CREATE INDEX idx_attendances_date_id ON attendances (date, id);
+END;
+$$;;
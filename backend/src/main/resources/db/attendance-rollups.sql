@@ -0,0 +1,78 @@
+-- Keeps attendance_rollups in step with attendances inside the writing transaction.
+-- Statements are separated by ";;" because the function bodies contain semicolons.
+
+CREATE OR REPLACE FUNCTION attendance_rollup_upsert(p_scope varchar, p_scope_id bigint, p_period varchar,
+        p_period_start date, p_status varchar, p_work_hours double precision, p_sign integer)
+RETURNS void AS $$
+BEGIN
+    INSERT INTO attendance_rollups AS r (scope, scope_id, period, period_start, record_count, present_count,
+            absent_count, half_day_count, late_count, leave_count, holiday_count, weekend_count, total_work_hours)
+    VALUES (p_scope, p_scope_id, p_period, p_period_start, p_sign,
+            CASE WHEN p_status = 'PRESENT' THEN p_sign ELSE 0 END,
+            CASE WHEN p_status = 'ABSENT' THEN p_sign ELSE 0 END,
+            CASE WHEN p_status = 'HALF_DAY' THEN p_sign ELSE 0 END,
+            CASE WHEN p_status = 'LATE' THEN p_sign ELSE 0 END,
+            CASE WHEN p_status = 'LEAVE' THEN p_sign ELSE 0 END,
+            CASE WHEN p_status = 'HOLIDAY' THEN p_sign ELSE 0 END,
+            CASE WHEN p_status = 'WEEKEND' THEN p_sign ELSE 0 END,
+            p_sign * COALESCE(p_work_hours, 0))
+    ON CONFLICT (scope, scope_id, period, period_start) DO UPDATE SET
+        record_count = r.record_count + EXCLUDED.record_count,
+        present_count = r.present_count + EXCLUDED.present_count,
+        absent_count = r.absent_count + EXCLUDED.absent_count,
+        half_day_count = r.half_day_count + EXCLUDED.half_day_count,
+        late_count = r.late_count + EXCLUDED.late_count,
+        leave_count = r.leave_count + EXCLUDED.leave_count,
+        holiday_count = r.holiday_count + EXCLUDED.holiday_count,
+        weekend_count = r.weekend_count + EXCLUDED.weekend_count,
+        total_work_hours = r.total_work_hours + EXCLUDED.total_work_hours;
+END;
+$$ LANGUAGE plpgsql;;
+
+CREATE OR REPLACE FUNCTION attendance_rollup_apply(p_employee_id bigint, p_date date, p_status varchar,
+        p_work_hours double precision, p_sign integer)
+RETURNS void AS $$
+DECLARE
+    v_department_id bigint;
+    v_month date;
+BEGIN
+    IF p_date IS NULL THEN
+        RETURN;
+    END IF;
+    v_month := date_trunc('month', p_date)::date;
+    PERFORM attendance_rollup_upsert('EMPLOYEE', p_employee_id, 'MONTH', v_month, p_status, p_work_hours, p_sign);
+
+    SELECT department_id INTO v_department_id FROM employees WHERE id = p_employee_id;
+    IF v_department_id IS NOT NULL THEN
+        PERFORM attendance_rollup_upsert('DEPARTMENT', v_department_id, 'DAY', p_date, p_status, p_work_hours, p_sign);
+        PERFORM attendance_rollup_upsert('DEPARTMENT', v_department_id, 'MONTH', v_month, p_status, p_work_hours, p_sign);
+    END IF;
+END;
+$$ LANGUAGE plpgsql;;
+
+CREATE OR REPLACE FUNCTION attendance_rollup_trigger()
+RETURNS trigger AS $$
+BEGIN
+    -- Breaks, notes and check-in times do not affect any rollup
+    IF TG_OP = 'UPDATE'
+            AND NEW.employee_id = OLD.employee_id
+            AND NEW.date IS NOT DISTINCT FROM OLD.date
+            AND NEW.status IS NOT DISTINCT FROM OLD.status
+            AND NEW.work_hours IS NOT DISTINCT FROM OLD.work_hours THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM attendance_rollup_apply(OLD.employee_id, OLD.date, OLD.status, OLD.work_hours, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM attendance_rollup_apply(NEW.employee_id, NEW.date, NEW.status, NEW.work_hours, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;;
+
+DROP TRIGGER IF EXISTS attendances_rollup ON attendances;;
+
+CREATE TRIGGER attendances_rollup
+    AFTER INSERT OR UPDATE OR DELETE ON attendances
+    FOR EACH ROW EXECUTE FUNCTION attendance_rollup_trigger();;
@@ -0,0 +1,44 @@
+-- Installs uk_attendances_employee_date, which check-in's
+-- ON CONFLICT (employee_id, date) upsert depends on.
+-- Hibernate's schema update cannot add it over existing duplicate rows and
+-- only logs the failure, so this script removes the duplicates first. Per
+-- employee and day it keeps the row with a check-out, then the most
+-- recently updated one. The others are moved to attendances_duplicates for
+-- review. Does nothing once the constraint exists, and fails startup if
+-- the constraint still cannot be added.
+-- Statements are separated by ";;" because the block contains semicolons.
+
+DO $$
+DECLARE
+    v_moved bigint;
+BEGIN
+    IF to_regclass('attendances') IS NULL OR EXISTS (
+            SELECT 1 FROM pg_constraint
+            WHERE conrelid = to_regclass('attendances') AND conname = 'uk_attendances_employee_date') THEN
+        RETURN;
+    END IF;
+
+    CREATE TABLE IF NOT EXISTS attendances_duplicates (LIKE attendances);
+
+    WITH ranked AS (
+        SELECT id, row_number() OVER (
+                PARTITION BY employee_id, date
+                ORDER BY (check_out_time IS NOT NULL) DESC, updated_at DESC NULLS LAST, id DESC) AS rn
+        FROM attendances
+        WHERE date IS NOT NULL
+    ), moved AS (
+        DELETE FROM attendances a
+        USING ranked r
+        WHERE a.id = r.id AND r.rn > 1
+        RETURNING a.*
+    )
+    INSERT INTO attendances_duplicates SELECT * FROM moved;
+    GET DIAGNOSTICS v_moved = ROW_COUNT;
+
+    IF v_moved > 0 THEN
+        RAISE WARNING 'Moved % duplicate attendance rows to attendances_duplicates', v_moved;
+    END IF;
+
+    ALTER TABLE attendances ADD CONSTRAINT uk_attendances_employee_date UNIQUE (employee_id, date);
+END;
+$$;;
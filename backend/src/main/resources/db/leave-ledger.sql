@@ -0,0 +1,7 @@
+-- Allows one ACCRUAL ledger entry per employee, leave type and year. The yearly
+-- accrual inserts with ON CONFLICT DO NOTHING against this partial unique index, so
+-- two concurrent runs cannot both grant the entitlement. A partial index cannot be
+-- declared on the entity, hence this script.
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_leave_ledger_accrual ON leave_ledger_entries (employee_id, leave_type, year)
+    WHERE entry_type = 'ACCRUAL';;
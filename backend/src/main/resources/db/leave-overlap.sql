@@ -0,0 +1,54 @@
+-- Rejects overlapping PENDING or APPROVED leave of the same employee in the database.
+-- The exclusion constraint needs btree_gist for the equality on employee_id.
+-- Existing leave is never changed here. Startup is refused, listing the leave ids,
+-- while any leave ends before it starts (the period column cannot be computed for it)
+-- or while PENDING or APPROVED leaves overlap; those have to be corrected by someone
+-- who can tell the employee and the approver. Startup is also refused when the
+-- extension cannot be installed, so LeaveService never runs without the constraint.
+-- Statements are separated by ";;" because the block contains semicolons.
+
+DO $$
+DECLARE
+    v_invalid text;
+    v_conflicts text;
+BEGIN
+    BEGIN
+        CREATE EXTENSION IF NOT EXISTS btree_gist;
+    EXCEPTION
+        WHEN insufficient_privilege OR undefined_file THEN
+            RAISE EXCEPTION 'The leave overlap constraint needs the btree_gist extension: %', SQLERRM;
+    END;
+
+    IF NOT EXISTS (SELECT 1 FROM pg_attribute
+                   WHERE attrelid = to_regclass('leaves') AND attname = 'period' AND NOT attisdropped) THEN
+        SELECT string_agg(id::text, ', ') INTO v_invalid
+        FROM (SELECT id FROM leaves WHERE end_date < start_date ORDER BY id LIMIT 20) inverted;
+        IF v_invalid IS NOT NULL THEN
+            RAISE EXCEPTION 'Leaves end before they start (leave ids %); correct their dates before starting', v_invalid;
+        END IF;
+
+        ALTER TABLE leaves ADD COLUMN period daterange
+            GENERATED ALWAYS AS (daterange(start_date, end_date, '[]')) STORED;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM pg_constraint
+               WHERE conrelid = to_regclass('leaves') AND conname = 'ex_leaves_employee_period') THEN
+        RETURN;
+    END IF;
+
+    SELECT string_agg(first_id || ' (' || first_status || ') and ' || second_id || ' (' || second_status || ')', ', ')
+    INTO v_conflicts
+    FROM (SELECT a.id AS first_id, a.status AS first_status, b.id AS second_id, b.status AS second_status
+          FROM leaves a
+          JOIN leaves b ON b.employee_id = a.employee_id AND b.id > a.id AND b.period && a.period
+          WHERE a.status IN ('PENDING', 'APPROVED') AND b.status IN ('PENDING', 'APPROVED')
+          ORDER BY a.id, b.id LIMIT 20) pairs;
+    IF v_conflicts IS NOT NULL THEN
+        RAISE EXCEPTION 'Leaves overlap (leave ids %); reject, cancel or shorten them before starting', v_conflicts;
+    END IF;
+
+    ALTER TABLE leaves ADD CONSTRAINT ex_leaves_employee_period
+        EXCLUDE USING gist (employee_id WITH =, period WITH &&)
+        WHERE (status IN ('PENDING', 'APPROVED'));
+END;
+$$;;
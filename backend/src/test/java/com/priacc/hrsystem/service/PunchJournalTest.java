@@ -0,0 +1,160 @@
+package com.priacc.hrsystem.service;
+
+import com.priacc.hrsystem.dto.PunchRequest.PunchType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Recovery of {@link PunchJournal} after clean and torn shutdowns.
+ */
+class PunchJournalTest {
+
+    private static final LocalDateTime NINE = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoversEveryRecordAfterCleanClose() throws IOException {
+        writeJournal(3);
+
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            List<PunchJournal.Entry> pending = journal.recover();
+
+            assertThat(sequences(pending)).containsExactly(1L, 2L, 3L);
+            assertThat(pending.get(1).type()).isEqualTo(PunchType.CHECK_OUT);
+            assertThat(pending.get(1).employeeId()).isEqualTo(2L);
+            assertThat(pending.get(1).punchTime()).isEqualTo(NINE.plusMinutes(1));
+            assertThat(pending.get(1).ipAddress()).isEqualTo("10.0.0.2");
+            assertThat(pending.get(0).location()).isNull();
+        }
+    }
+
+    @Test
+    void cutsOffTornFinalFrame() throws IOException {
+        writeJournal(3);
+        long twoRecords = journalSize(2);
+        truncateJournal(Files.size(journal()) - 5);
+
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            assertThat(sequences(journal.recover())).containsExactly(1L, 2L);
+            assertThat(Files.size(journal())).isEqualTo(twoRecords);
+
+            // The torn record's sequence is reused by the next punch
+            PunchJournal.Entry next = journal.append(PunchType.BREAK_START, 9L, NINE.plusHours(3), null, null);
+            assertThat(next.sequence()).isEqualTo(3L);
+        }
+
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            List<PunchJournal.Entry> pending = journal.recover();
+            assertThat(sequences(pending)).containsExactly(1L, 2L, 3L);
+            assertThat(pending.get(2).employeeId()).isEqualTo(9L);
+        }
+    }
+
+    @Test
+    void cutsOffTornFrameHeader() throws IOException {
+        writeJournal(2);
+        long twoRecords = Files.size(journal());
+        try (RandomAccessFile file = new RandomAccessFile(journal().toFile(), "rw")) {
+            file.seek(twoRecords);
+            file.write(new byte[]{0, 0, 1});
+        }
+
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            assertThat(sequences(journal.recover())).containsExactly(1L, 2L);
+            assertThat(Files.size(journal())).isEqualTo(twoRecords);
+        }
+    }
+
+    @Test
+    void cutsOffFinalFrameWithBadChecksum() throws IOException {
+        writeJournal(3);
+        long twoRecords = journalSize(2);
+        try (RandomAccessFile file = new RandomAccessFile(journal().toFile(), "rw")) {
+            file.seek(file.length() - 1);
+            int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xFF);
+        }
+
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            assertThat(sequences(journal.recover())).containsExactly(1L, 2L);
+            assertThat(Files.size(journal())).isEqualTo(twoRecords);
+        }
+    }
+
+    @Test
+    void skipsCheckpointedRecords() throws IOException {
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            journal.recover();
+            for (int i = 0; i < 3; i++) {
+                append(journal, i);
+            }
+            journal.sync(3);
+            journal.checkpoint(2);
+        }
+
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            assertThat(sequences(journal.recover())).containsExactly(3L);
+            journal.checkpoint(3);
+            assertThat(Files.size(journal())).isEqualTo(0L);
+        }
+
+        // Sequences keep counting from the checkpoint after the journal was emptied
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            assertThat(journal.recover()).isEmpty();
+            assertThat(append(journal, 0).sequence()).isEqualTo(4L);
+        }
+    }
+
+    private void writeJournal(int records) throws IOException {
+        try (PunchJournal journal = new PunchJournal(directory, true)) {
+            journal.recover();
+            for (int i = 0; i < records; i++) {
+                append(journal, i);
+            }
+            journal.sync(records);
+        }
+    }
+
+    // Size of a journal holding the first records written by writeJournal
+    private long journalSize(int records) throws IOException {
+        Path other = Files.createTempDirectory(directory, "expected");
+        try (PunchJournal journal = new PunchJournal(other, false)) {
+            journal.recover();
+            for (int i = 0; i < records; i++) {
+                append(journal, i);
+            }
+        }
+        return Files.size(other.resolve(journal().getFileName()));
+    }
+
+    private static PunchJournal.Entry append(PunchJournal journal, int i) throws IOException {
+        PunchType type = i % 2 == 0 ? PunchType.CHECK_IN : PunchType.CHECK_OUT;
+        return journal.append(type, i + 1L, NINE.plusMinutes(i), "10.0.0." + (i + 1), i == 0 ? null : "Office");
+    }
+
+    private void truncateJournal(long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(journal().toFile(), "rw")) {
+            file.setLength(length);
+        }
+    }
+
+    private Path journal() {
+        return directory.resolve("punches.journal");
+    }
+
+    private static List<Long> sequences(List<PunchJournal.Entry> entries) {
+        return entries.stream().map(PunchJournal.Entry::sequence).toList();
+    }
+}
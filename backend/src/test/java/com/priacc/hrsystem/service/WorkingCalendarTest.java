@@ -0,0 +1,114 @@
+package com.priacc.hrsystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Counts of {@link WorkingCalendar.CalendarTable} against a day-by-day count.
+ */
+class WorkingCalendarTest {
+
+    private static final Set<DayOfWeek> WEEKEND = EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY);
+    private static final Set<LocalDate> HOLIDAYS = Set.of(
+            LocalDate.of(2024, 1, 1),
+            LocalDate.of(2024, 2, 29),
+            LocalDate.of(2024, 12, 25),
+            LocalDate.of(2025, 1, 1),
+            // A Saturday, so it must not be taken off twice
+            LocalDate.of(2026, 12, 26));
+
+    private final WorkingCalendar.CalendarTable table = new WorkingCalendar.CalendarTable(WEEKEND, HOLIDAYS, 2020, 2030);
+
+    @Test
+    void countsWholeLeapAndCommonYears() {
+        assertThat(table.count(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31))).isEqualTo(260);
+        // 262 weekdays, three of them holidays
+        assertThat(table.count(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31))).isEqualTo(259);
+    }
+
+    @Test
+    void countsAroundLeapDay() {
+        // Wed 28 Feb, Thu 29 Feb (holiday), Fri 1 Mar
+        assertThat(table.count(LocalDate.of(2024, 2, 28), LocalDate.of(2024, 3, 1))).isEqualTo(2);
+        // Tue 28 Feb, Wed 1 Mar
+        assertThat(table.count(LocalDate.of(2023, 2, 28), LocalDate.of(2023, 3, 1))).isEqualTo(2);
+        assertThat(table.isWorking(LocalDate.of(2024, 2, 29))).isFalse();
+        assertThat(table.isWorking(LocalDate.of(2024, 3, 1))).isTrue();
+        assertThat(table.isWorking(LocalDate.of(2024, 12, 31))).isTrue();
+    }
+
+    @Test
+    void countsAcrossYearBoundaries() {
+        // Fri 29 Dec, Tue 2 Jan; 1 Jan is a holiday
+        assertThat(table.count(LocalDate.of(2023, 12, 29), LocalDate.of(2024, 1, 2))).isEqualTo(2);
+        // Mon 30 and Tue 31 Dec 2024, Thu 2 and Fri 3 Jan 2025
+        assertThat(table.count(LocalDate.of(2024, 12, 30), LocalDate.of(2025, 1, 5))).isEqualTo(4);
+        assertThat(table.count(LocalDate.of(2022, 6, 1), LocalDate.of(2027, 6, 30)))
+                .isEqualTo(countDayByDay(LocalDate.of(2022, 6, 1), LocalDate.of(2027, 6, 30)));
+    }
+
+    @Test
+    void countsUpToTheLastPrecomputedDay() {
+        // Mon 30 and Tue 31 Dec 2030
+        assertThat(table.count(LocalDate.of(2030, 12, 30), LocalDate.of(2030, 12, 31))).isEqualTo(2);
+        assertThat(table.count(LocalDate.of(2020, 1, 1), LocalDate.of(2030, 12, 31)))
+                .isEqualTo(countDayByDay(LocalDate.of(2020, 1, 1), LocalDate.of(2030, 12, 31)));
+    }
+
+    @Test
+    void countsRangesOutsideThePrecomputedYears() {
+        // Mon 31 Dec 2018 to Wed 2 Jan 2019, entirely before the window
+        assertThat(table.count(LocalDate.of(2018, 12, 31), LocalDate.of(2019, 1, 2))).isEqualTo(3);
+        // Mon 30 Dec 2019 to Fri 3 Jan 2020, into the window
+        assertThat(table.count(LocalDate.of(2019, 12, 30), LocalDate.of(2020, 1, 3))).isEqualTo(5);
+        // Mon 30 Dec 2030 to Fri 3 Jan 2031, out of the window
+        assertThat(table.count(LocalDate.of(2030, 12, 30), LocalDate.of(2031, 1, 3))).isEqualTo(5);
+        // 2032 is a leap year past the window
+        assertThat(table.count(LocalDate.of(2032, 2, 27), LocalDate.of(2032, 3, 2))).isEqualTo(3);
+        assertThat(table.count(LocalDate.of(2015, 3, 1), LocalDate.of(2035, 9, 30)))
+                .isEqualTo(countDayByDay(LocalDate.of(2015, 3, 1), LocalDate.of(2035, 9, 30)));
+        assertThat(table.isWorking(LocalDate.of(2032, 2, 29))).isFalse();
+        assertThat(table.isWorking(LocalDate.of(2019, 12, 31))).isTrue();
+    }
+
+    @Test
+    void countsNothingForAnInvertedRange() {
+        assertThat(table.count(LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1))).isZero();
+    }
+
+    @Test
+    void countsEveryDayOfACalendarWithoutWeekend() {
+        WorkingCalendar.CalendarTable everyDay = new WorkingCalendar.CalendarTable(
+                EnumSet.noneOf(DayOfWeek.class), Set.of(LocalDate.of(2024, 2, 29)), 2020, 2030);
+        assertThat(everyDay.count(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31))).isEqualTo(365);
+        assertThat(everyDay.count(LocalDate.of(2031, 1, 1), LocalDate.of(2031, 12, 31))).isEqualTo(365);
+    }
+
+    @Test
+    void matchesDayByDayCountForRandomRanges() {
+        Random random = new Random(42);
+        LocalDate base = LocalDate.of(2017, 1, 1);
+        for (int i = 0; i < 2000; i++) {
+            LocalDate start = base.plusDays(random.nextInt(365 * 18));
+            LocalDate end = start.plusDays(random.nextInt(800));
+            assertThat(table.count(start, end)).as("%s to %s", start, end).isEqualTo(countDayByDay(start, end));
+        }
+    }
+
+    private static long countDayByDay(LocalDate startDate, LocalDate endDate) {
+        long count = 0;
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            if (!WEEKEND.contains(day.getDayOfWeek()) && !HOLIDAYS.contains(day)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}